@@ -11,8 +11,6 @@ import io.flutter.embedding.engine.FlutterJNI;
 import io.flutter.embedding.engine.deferredcomponents.DeferredComponentManager;
 import io.flutter.embedding.engine.loader.FlutterLoader;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 
 /**
  * This class is a simple dependency injector for the relatively thin Android part of the Flutter
@@ -100,6 +98,12 @@ public final class FlutterInjector {
     return deferredComponentManager;
   }
 
+  /**
+   * Returns the {@link ExecutorService} that runs Flutter's background work.
+   *
+   * <p>Unless overridden with {@link Builder#setExecutorService(ExecutorService)}, this is a {@link
+   * FlutterWorkerExecutor}, which can be queried for metrics.
+   */
   public ExecutorService executorService() {
     return executorService;
   }
@@ -116,20 +120,11 @@ public final class FlutterInjector {
    * <p>Non-overridden values have reasonable defaults.
    */
   public static final class Builder {
-    private class NamedThreadFactory implements ThreadFactory {
-      private int threadId = 0;
-
-      public Thread newThread(Runnable command) {
-        Thread thread = new Thread(command);
-        thread.setName("flutter-worker-" + threadId++);
-        return thread;
-      }
-    }
-
     private FlutterLoader flutterLoader;
     private DeferredComponentManager deferredComponentManager;
     private FlutterJNI.Factory flutterJniFactory;
     private ExecutorService executorService;
+    @Nullable private FlutterWorkerExecutor.Options workerExecutorOptions;
     /**
      * Sets a {@link io.flutter.embedding.engine.loader.FlutterLoader} override.
      *
@@ -156,13 +151,28 @@ public final class FlutterInjector {
       return this;
     }
 
+    /**
+     * Sets the options of the default {@link FlutterWorkerExecutor}, such as its number of threads
+     * and queue capacity.
+     *
+     * <p>Has no effect if an executor is set with {@link #setExecutorService(ExecutorService)}.
+     */
+    public Builder setWorkerExecutorOptions(@NonNull FlutterWorkerExecutor.Options options) {
+      this.workerExecutorOptions = options;
+      return this;
+    }
+
     private void fillDefaults() {
       if (flutterJniFactory == null) {
         flutterJniFactory = new FlutterJNI.Factory();
       }
 
       if (executorService == null) {
-        executorService = Executors.newCachedThreadPool(new NamedThreadFactory());
+        executorService =
+            new FlutterWorkerExecutor(
+                workerExecutorOptions != null
+                    ? workerExecutorOptions
+                    : new FlutterWorkerExecutor.Options());
       }
 
       if (flutterLoader == null) {
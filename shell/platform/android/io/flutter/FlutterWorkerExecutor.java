@@ -0,0 +1,424 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter;
+
+import android.os.Process;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The default {@link FlutterInjector#executorService()}, which runs Flutter's background work such
+ * as {@link io.flutter.embedding.engine.loader.FlutterLoader} initialization and {@link
+ * io.flutter.plugin.common.BinaryMessenger.TaskQueueOptions.Priority#NORMAL} priority task queues.
+ *
+ * <p>Unlike a cached thread pool, the number of threads is bounded, so a burst of platform messages
+ * queues up instead of starting a thread per message. The pool is configured with {@link Options},
+ * passed to {@link FlutterInjector.Builder#setWorkerExecutorOptions(Options)}, and reports how busy
+ * it is through {@link #getActiveCount()}, {@link #getQueueDepth()} and its latency histograms.
+ *
+ * <p>The histograms, {@link #getQueueLatencyHistogram()} and {@link #getRunTimeHistogram()}, count
+ * tasks in 12 buckets of whole milliseconds with power of two upper bounds: at most 1ms, 2ms, 4ms,
+ * and so on up to 1024ms, and a last bucket for anything longer. Each bucket also includes the
+ * values above the bound of the previous one, so a task that took 3ms is counted in the 4ms bucket.
+ *
+ * <p>Tasks are queued as they are given, so {@link #getQueue()}, {@link #remove(Runnable)} and
+ * {@link #shutdownNow()} see the caller's own {@link Runnable}s.
+ */
+public final class FlutterWorkerExecutor extends ThreadPoolExecutor {
+  /** What happens to a task submitted while the queue is full and every thread is busy. */
+  public enum RejectionPolicy {
+    /**
+     * The default; the task runs on the thread that submitted it.
+     *
+     * <p>Background task queues submit their tasks from the thread that dispatches platform
+     * messages, which is the platform thread. With this policy, a full queue therefore runs message
+     * handlers of those task queues on the platform thread, where they hold up the UI. Use {@link
+     * #ABORT} if that thread must never run them.
+     */
+    RUN_ON_CALLER,
+    /** The task is rejected with a {@link java.util.concurrent.RejectedExecutionException}. */
+    ABORT,
+  }
+
+  /** Options that control the size and behavior of a {@link FlutterWorkerExecutor}. */
+  public static final class Options {
+    /** The default value of the `queueCapacity` property, which leaves the queue unbounded. */
+    public static final int UNBOUNDED_QUEUE = Integer.MAX_VALUE;
+
+    /** The default value of the `keepAliveMillis` property. */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+
+    private int corePoolSize = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private int maximumPoolSize = 2 * corePoolSize;
+    private int queueCapacity = UNBOUNDED_QUEUE;
+    @NonNull private RejectionPolicy rejectionPolicy = RejectionPolicy.RUN_ON_CALLER;
+    private int threadPriority = Process.THREAD_PRIORITY_DEFAULT;
+    private long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+
+    public int getCorePoolSize() {
+      return corePoolSize;
+    }
+
+    /**
+     * Setter for `corePoolSize` property.
+     *
+     * <p>The number of threads started before tasks are queued. Defaults to the number of
+     * processors, and at least 4.
+     *
+     * @throws IllegalArgumentException if {@code corePoolSize} is less than 1.
+     */
+    @NonNull
+    public Options setCorePoolSize(int corePoolSize) {
+      if (corePoolSize < 1) {
+        throw new IllegalArgumentException("corePoolSize must be at least 1, was " + corePoolSize);
+      }
+      this.corePoolSize = corePoolSize;
+      return this;
+    }
+
+    public int getMaximumPoolSize() {
+      return maximumPoolSize;
+    }
+
+    /**
+     * Setter for `maximumPoolSize` property.
+     *
+     * <p>The number of threads the pool grows to once the queue is full. Only has an effect if the
+     * queue is bounded. Must not be less than `corePoolSize`. Defaults to twice the default
+     * `corePoolSize`.
+     *
+     * @throws IllegalArgumentException if {@code maximumPoolSize} is less than 1.
+     */
+    @NonNull
+    public Options setMaximumPoolSize(int maximumPoolSize) {
+      if (maximumPoolSize < 1) {
+        throw new IllegalArgumentException(
+            "maximumPoolSize must be at least 1, was " + maximumPoolSize);
+      }
+      this.maximumPoolSize = maximumPoolSize;
+      return this;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    /**
+     * Setter for `queueCapacity` property.
+     *
+     * <p>The number of tasks that wait for a thread before the pool grows past `corePoolSize`. A
+     * capacity of 0 hands every task directly to a thread. Defaults to {@link #UNBOUNDED_QUEUE}.
+     *
+     * @throws IllegalArgumentException if {@code queueCapacity} is negative.
+     */
+    @NonNull
+    public Options setQueueCapacity(int queueCapacity) {
+      if (queueCapacity < 0) {
+        throw new IllegalArgumentException(
+            "queueCapacity must not be negative, was " + queueCapacity);
+      }
+      this.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    @NonNull
+    public RejectionPolicy getRejectionPolicy() {
+      return rejectionPolicy;
+    }
+
+    /**
+     * Setter for `rejectionPolicy` property.
+     *
+     * <p>Only applies when the queue is bounded. Defaults to {@link RejectionPolicy#RUN_ON_CALLER}.
+     */
+    @NonNull
+    public Options setRejectionPolicy(@NonNull RejectionPolicy rejectionPolicy) {
+      this.rejectionPolicy = rejectionPolicy;
+      return this;
+    }
+
+    public int getThreadPriority() {
+      return threadPriority;
+    }
+
+    /**
+     * Setter for `threadPriority` property.
+     *
+     * <p>The Linux scheduling priority of the pool's threads, as passed to {@link
+     * Process#setThreadPriority(int)}. Defaults to {@link Process#THREAD_PRIORITY_DEFAULT}.
+     */
+    @NonNull
+    public Options setThreadPriority(int threadPriority) {
+      this.threadPriority = threadPriority;
+      return this;
+    }
+
+    public long getKeepAliveMillis() {
+      return keepAliveMillis;
+    }
+
+    /**
+     * Setter for `keepAliveMillis` property.
+     *
+     * <p>How long a thread, including a core one, stays idle before it is stopped. Defaults to
+     * {@link #DEFAULT_KEEP_ALIVE_MILLIS}.
+     *
+     * @throws IllegalArgumentException if {@code keepAliveMillis} is less than 1.
+     */
+    @NonNull
+    public Options setKeepAliveMillis(long keepAliveMillis) {
+      if (keepAliveMillis < 1) {
+        throw new IllegalArgumentException(
+            "keepAliveMillis must be at least 1, was " + keepAliveMillis);
+      }
+      this.keepAliveMillis = keepAliveMillis;
+      return this;
+    }
+  }
+
+  // The upper bounds, in milliseconds, of the buckets of the latency histograms. The last bucket
+  // counts every task that took longer than the last bound.
+  private static final long[] LATENCY_BUCKET_BOUNDS_MS = {
+    1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024
+  };
+
+  @NonNull private final AtomicLong rejectedTaskCount = new AtomicLong();
+
+  @NonNull
+  private final AtomicLongArray queueLatencyHistogram =
+      new AtomicLongArray(LATENCY_BUCKET_BOUNDS_MS.length + 1);
+
+  @NonNull
+  private final AtomicLongArray runTimeHistogram =
+      new AtomicLongArray(LATENCY_BUCKET_BOUNDS_MS.length + 1);
+
+  // When each task waiting for a thread was submitted, by identity, since tasks may override
+  // `equals`. A task submitted again before it runs keeps the time of its first submission.
+  @NonNull private final Map<Runnable, Long> enqueueTimesNanos = new IdentityHashMap<>();
+
+  /**
+   * Creates a pool configured by {@code options}.
+   *
+   * @throws IllegalArgumentException if the `maximumPoolSize` of {@code options} is less than its
+   *     `corePoolSize`.
+   */
+  public FlutterWorkerExecutor(@NonNull Options options) {
+    super(
+        options.getCorePoolSize(),
+        checkMaximumPoolSize(options),
+        options.getKeepAliveMillis(),
+        TimeUnit.MILLISECONDS,
+        createQueue(options.getQueueCapacity()),
+        new WorkerThreadFactory(options.getThreadPriority()));
+    allowCoreThreadTimeOut(true);
+    final RejectedExecutionHandler rejectionHandler =
+        options.getRejectionPolicy() == RejectionPolicy.ABORT
+            ? new AbortPolicy()
+            : new CallerRunsPolicy();
+    setRejectedExecutionHandler(
+        (task, executor) -> {
+          rejectedTaskCount.incrementAndGet();
+          // A task run on the caller is not counted in the histograms.
+          takeEnqueueTime(task);
+          rejectionHandler.rejectedExecution(task, executor);
+        });
+  }
+
+  private static int checkMaximumPoolSize(@NonNull Options options) {
+    if (options.getMaximumPoolSize() < options.getCorePoolSize()) {
+      throw new IllegalArgumentException(
+          "maximumPoolSize ("
+              + options.getMaximumPoolSize()
+              + ") must not be less than corePoolSize ("
+              + options.getCorePoolSize()
+              + ")");
+    }
+    return options.getMaximumPoolSize();
+  }
+
+  @NonNull
+  private static BlockingQueue<Runnable> createQueue(int capacity) {
+    if (capacity == 0) {
+      return new SynchronousQueue<>();
+    }
+    if (capacity == Options.UNBOUNDED_QUEUE) {
+      return new LinkedBlockingQueue<>();
+    }
+    return new LinkedBlockingQueue<>(capacity);
+  }
+
+  @Override
+  public void execute(@NonNull Runnable command) {
+    if (command == null) {
+      throw new NullPointerException();
+    }
+    final long enqueueTimeNanos = System.nanoTime();
+    synchronized (enqueueTimesNanos) {
+      if (!enqueueTimesNanos.containsKey(command)) {
+        enqueueTimesNanos.put(command, enqueueTimeNanos);
+      }
+    }
+    super.execute(command);
+  }
+
+  @Override
+  protected void beforeExecute(@NonNull Thread thread, @NonNull Runnable task) {
+    final long startTimeNanos = System.nanoTime();
+    final Long enqueueTimeNanos = takeEnqueueTime(task);
+    if (enqueueTimeNanos != null) {
+      record(queueLatencyHistogram, startTimeNanos - enqueueTimeNanos);
+    }
+    if (thread instanceof WorkerThread) {
+      ((WorkerThread) thread).taskStartTimeNanos = startTimeNanos;
+    }
+  }
+
+  @Override
+  protected void afterExecute(@NonNull Runnable task, Throwable throwable) {
+    final Thread thread = Thread.currentThread();
+    if (thread instanceof WorkerThread) {
+      record(runTimeHistogram, System.nanoTime() - ((WorkerThread) thread).taskStartTimeNanos);
+    }
+  }
+
+  @Override
+  public boolean remove(@NonNull Runnable task) {
+    final boolean removed = super.remove(task);
+    if (removed) {
+      takeEnqueueTime(task);
+    }
+    return removed;
+  }
+
+  @Override
+  public void purge() {
+    super.purge();
+    // Purging removes cancelled futures from the queue directly. This also forgets tasks that have
+    // just been taken by a thread, which then go unrecorded in the queue latency histogram.
+    final BlockingQueue<Runnable> queue = getQueue();
+    synchronized (enqueueTimesNanos) {
+      enqueueTimesNanos.keySet().retainAll(queue);
+    }
+  }
+
+  @NonNull
+  @Override
+  public List<Runnable> shutdownNow() {
+    final List<Runnable> tasks = super.shutdownNow();
+    synchronized (enqueueTimesNanos) {
+      enqueueTimesNanos.clear();
+    }
+    return tasks;
+  }
+
+  @Nullable
+  private Long takeEnqueueTime(@NonNull Runnable task) {
+    synchronized (enqueueTimesNanos) {
+      return enqueueTimesNanos.remove(task);
+    }
+  }
+
+  /** Returns the number of tasks waiting for a thread. */
+  public int getQueueDepth() {
+    return getQueue().size();
+  }
+
+  /** Returns the number of tasks handled by the {@link RejectionPolicy}. */
+  public long getRejectedTaskCount() {
+    return rejectedTaskCount.get();
+  }
+
+  /**
+   * Returns a histogram of how long tasks waited for a thread.
+   *
+   * <p>Entry {@code i} of the 12 returned counts the tasks that waited at most {@code 2^i}
+   * milliseconds, and more than the bound of the previous entry. The last entry counts the tasks
+   * that waited longer than a second.
+   */
+  @NonNull
+  public long[] getQueueLatencyHistogram() {
+    return snapshot(queueLatencyHistogram);
+  }
+
+  /**
+   * Returns a histogram of how long tasks took to run once started, with the same buckets as {@link
+   * #getQueueLatencyHistogram()}.
+   */
+  @NonNull
+  public long[] getRunTimeHistogram() {
+    return snapshot(runTimeHistogram);
+  }
+
+  private static void record(@NonNull AtomicLongArray histogram, long latencyNanos) {
+    histogram.incrementAndGet(getLatencyBucket(latencyNanos));
+  }
+
+  /** Returns the index of the histogram bucket that counts {@code latencyNanos}. */
+  @VisibleForTesting
+  static int getLatencyBucket(long latencyNanos) {
+    final long latencyMs = latencyNanos / 1000000;
+    int bucket = 0;
+    while (bucket < LATENCY_BUCKET_BOUNDS_MS.length
+        && latencyMs > LATENCY_BUCKET_BOUNDS_MS[bucket]) {
+      bucket++;
+    }
+    return bucket;
+  }
+
+  @NonNull
+  private static long[] snapshot(@NonNull AtomicLongArray histogram) {
+    final long[] counts = new long[histogram.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = histogram.get(i);
+    }
+    return counts;
+  }
+
+  /** A pool thread, which remembers when its current task started. */
+  private static class WorkerThread extends Thread {
+    long taskStartTimeNanos;
+
+    WorkerThread(@NonNull Runnable command) {
+      super(command);
+    }
+  }
+
+  /** Creates threads named {@code flutter-worker-<n>} that run at the given priority. */
+  private static class WorkerThreadFactory implements ThreadFactory {
+    private final int threadPriority;
+    @NonNull private final AtomicInteger threadId = new AtomicInteger();
+
+    WorkerThreadFactory(int threadPriority) {
+      this.threadPriority = threadPriority;
+    }
+
+    @Override
+    public Thread newThread(@NonNull Runnable command) {
+      final Thread thread =
+          new WorkerThread(
+              () -> {
+                // Thread priorities can only be applied reliably from the thread itself.
+                Process.setThreadPriority(threadPriority);
+                command.run();
+              });
+      thread.setName("flutter-worker-" + threadId.getAndIncrement());
+      return thread;
+    }
+  }
+}
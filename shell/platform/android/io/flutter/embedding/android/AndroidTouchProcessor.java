@@ -10,6 +10,7 @@ import android.view.MotionEvent;
 import android.view.ViewConfiguration;
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import io.flutter.embedding.engine.renderer.FlutterRenderer;
 import java.nio.ByteBuffer;
@@ -83,6 +84,10 @@ public class AndroidTouchProcessor {
   // Must match the unpacking code in hooks.dart.
   private static final int POINTER_DATA_FIELD_COUNT = 35;
   @VisibleForTesting static final int BYTES_PER_FIELD = 8;
+  private static final int BYTES_PER_POINTER = POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD;
+
+  // Enough for a ten finger touch; the packet grows if an event carries more pointers.
+  private static final int INITIAL_PACKET_POINTER_CAPACITY = 10;
 
   // Default if context is null, chosen to ensure reasonable speed scrolling.
   @VisibleForTesting static final int DEFAULT_VERTICAL_SCROLL_FACTOR = 48;
@@ -92,6 +97,10 @@ public class AndroidTouchProcessor {
   // This flag indicates whether the original Android pointer events were batched together.
   private static final int POINTER_DATA_FLAG_BATCHED = 1;
 
+  // Passed as the history index to read a MotionEvent's current sample rather than a historical
+  // one.
+  private static final int CURRENT_SAMPLE = -1;
+
   @NonNull private final FlutterRenderer renderer;
   @NonNull private final MotionEventTracker motionEventTracker;
 
@@ -99,8 +108,19 @@ public class AndroidTouchProcessor {
 
   private final boolean trackMotionEvents;
 
+  private boolean forwardsHistoricalSamples;
+
   private final Map<Integer, float[]> ongoingPans = new HashMap<>();
 
+  // Reused for every event. The engine copies the packet before dispatchPointerDataPacket
+  // returns, and events are only processed on the UI thread.
+  @Nullable private ByteBuffer packet;
+  // The number of bytes of `packet` that the previous event wrote.
+  private int previousPacketSize;
+
+  // Scratch space for mapping a pointer's coordinates to screen coordinates.
+  private final float[] viewToScreenCoords = new float[2];
+
   // Only used on api 25 and below to avoid requerying display metrics.
   private int cachedVerticalScrollFactor;
 
@@ -119,6 +139,20 @@ public class AndroidTouchProcessor {
     this.trackMotionEvents = trackMotionEvents;
   }
 
+  /**
+   * Sets whether the historical samples Android batches into each {@link MotionEvent#ACTION_MOVE}
+   * event are sent to Flutter, rather than just the event's current sample.
+   *
+   * <p>When enabled, each move event is sent as a single packet containing every historical sample
+   * of every pointer, oldest first, followed by the current sample. Historical samples are flagged
+   * as batched, so that the framework does not forward them to platform views on their own; the
+   * platform view receives the original event, history included, along with the current sample.
+   * Defaults to false.
+   */
+  public void setForwardsHistoricalSamples(boolean forwardsHistoricalSamples) {
+    this.forwardsHistoricalSamples = forwardsHistoricalSamples;
+  }
+
   public boolean onTouchEvent(@NonNull MotionEvent event) {
     return onTouchEvent(event, IDENTITY_TRANSFORM);
   }
@@ -133,13 +167,15 @@ public class AndroidTouchProcessor {
    */
   public boolean onTouchEvent(@NonNull MotionEvent event, @NonNull Matrix transformMatrix) {
     int pointerCount = event.getPointerCount();
+    int maskedAction = event.getActionMasked();
+    int historySize =
+        forwardsHistoricalSamples && maskedAction == MotionEvent.ACTION_MOVE
+            ? event.getHistorySize()
+            : 0;
 
     // Prepare a data packet of the appropriate size and order.
-    ByteBuffer packet =
-        ByteBuffer.allocateDirect(pointerCount * POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD);
-    packet.order(ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer packet = obtainPacket((historySize + 1) * pointerCount);
 
-    int maskedAction = event.getActionMasked();
     int pointerChange = getPointerChangeForAction(event.getActionMasked());
     boolean updateForSinglePointer =
         maskedAction == MotionEvent.ACTION_DOWN || maskedAction == MotionEvent.ACTION_POINTER_DOWN;
@@ -168,18 +204,24 @@ public class AndroidTouchProcessor {
       // ACTION_MOVE may not actually mean all pointers have moved
       // but it's the responsibility of a later part of the system to
       // ignore 0-deltas if desired.
+      for (int h = 0; h < historySize; h++) {
+        for (int p = 0; p < pointerCount; p++) {
+          addPointerForIndex(
+              event, p, h, pointerChange, POINTER_DATA_FLAG_BATCHED, transformMatrix, packet, null);
+        }
+      }
       for (int p = 0; p < pointerCount; p++) {
         addPointerForIndex(event, p, pointerChange, 0, transformMatrix, packet);
       }
     }
 
     // Verify that the packet is the expected size.
-    if (packet.position() % (POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD) != 0) {
+    if (packet.position() % BYTES_PER_POINTER != 0) {
       throw new AssertionError("Packet position is not on field boundary");
     }
 
     // Send the packet to Flutter.
-    renderer.dispatchPointerDataPacket(packet, packet.position());
+    dispatchPacket(packet);
 
     return true;
   }
@@ -211,21 +253,57 @@ public class AndroidTouchProcessor {
     }
 
     int pointerChange = getPointerChangeForAction(event.getActionMasked());
-    ByteBuffer packet =
-        ByteBuffer.allocateDirect(
-            event.getPointerCount() * POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD);
-    packet.order(ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer packet = obtainPacket(event.getPointerCount());
 
     // ACTION_HOVER_MOVE always applies to a single pointer only.
     addPointerForIndex(
-        event, event.getActionIndex(), pointerChange, 0, IDENTITY_TRANSFORM, packet, context);
-    if (packet.position() % (POINTER_DATA_FIELD_COUNT * BYTES_PER_FIELD) != 0) {
+        event,
+        event.getActionIndex(),
+        CURRENT_SAMPLE,
+        pointerChange,
+        0,
+        IDENTITY_TRANSFORM,
+        packet,
+        context);
+    if (packet.position() % BYTES_PER_POINTER != 0) {
       throw new AssertionError("Packet position is not on field boundary.");
     }
-    renderer.dispatchPointerDataPacket(packet, packet.position());
+    dispatchPacket(packet);
     return true;
   }
 
+  /**
+   * Returns the reusable packet, cleared and large enough to hold {@code pointerCount} pointers.
+   */
+  @NonNull
+  private ByteBuffer obtainPacket(int pointerCount) {
+    final int requiredCapacity = pointerCount * BYTES_PER_POINTER;
+    if (packet == null || packet.capacity() < requiredCapacity) {
+      final int pointerCapacity =
+          Math.max(
+              INITIAL_PACKET_POINTER_CAPACITY,
+              packet == null ? 0 : 2 * packet.capacity() / BYTES_PER_POINTER);
+      packet =
+          ByteBuffer.allocateDirect(Math.max(pointerCount, pointerCapacity) * BYTES_PER_POINTER);
+      packet.order(ByteOrder.LITTLE_ENDIAN);
+      previousPacketSize = 0;
+    }
+    packet.clear();
+    return packet;
+  }
+
+  /** Sends the event written to {@code packet} to Flutter. */
+  private void dispatchPacket(@NonNull ByteBuffer packet) {
+    final int size = packet.position();
+    // Zero what is left of a larger earlier event, so that the packet holds this event alone, as a
+    // newly allocated one would.
+    for (int index = size; index < previousPacketSize; index += BYTES_PER_FIELD) {
+      packet.putLong(index, 0);
+    }
+    previousPacketSize = size;
+    renderer.dispatchPointerDataPacket(packet, size);
+  }
+
   /// Calls addPointerForIndex with null for context.
   ///
   /// Without context the scroll wheel will not mimick android's scroll speed.
@@ -237,14 +315,24 @@ public class AndroidTouchProcessor {
       Matrix transformMatrix,
       ByteBuffer packet) {
     addPointerForIndex(
-        event, pointerIndex, pointerChange, pointerData, transformMatrix, packet, null);
+        event,
+        pointerIndex,
+        CURRENT_SAMPLE,
+        pointerChange,
+        pointerData,
+        transformMatrix,
+        packet,
+        null);
   }
 
   // TODO: consider creating a PointerPacket class instead of using a procedure that
   // mutates inputs. https://github.com/flutter/flutter/issues/132853
+  //
+  // historyIndex selects one of the event's historical samples, or CURRENT_SAMPLE.
   private void addPointerForIndex(
       MotionEvent event,
       int pointerIndex,
+      int historyIndex,
       int pointerChange,
       int pointerData,
       Matrix transformMatrix,
@@ -258,7 +346,12 @@ public class AndroidTouchProcessor {
     int pointerKind = getPointerDeviceTypeForToolType(event.getToolType(pointerIndex));
     // We use this in lieu of using event.getRawX and event.getRawY as we wish to support
     // earlier versions than API level 29.
-    float viewToScreenCoords[] = {event.getX(pointerIndex), event.getY(pointerIndex)};
+    final float[] viewToScreenCoords = this.viewToScreenCoords;
+    final boolean isHistorical = historyIndex != CURRENT_SAMPLE;
+    viewToScreenCoords[0] =
+        isHistorical ? event.getHistoricalX(pointerIndex, historyIndex) : event.getX(pointerIndex);
+    viewToScreenCoords[1] =
+        isHistorical ? event.getHistoricalY(pointerIndex, historyIndex) : event.getY(pointerIndex);
     transformMatrix.mapPoints(viewToScreenCoords);
     long buttons;
     if (pointerKind == PointerDeviceKind.MOUSE) {
@@ -269,7 +362,7 @@ public class AndroidTouchProcessor {
         // Some implementations translate trackpad scrolling into a mouse down-move-up event
         // sequence with buttons: 0, such as ARC on a Chromebook. See #11420, a legacy
         // implementation that uses the same condition but converts differently.
-        ongoingPans.put(pointerId, viewToScreenCoords);
+        ongoingPans.put(pointerId, viewToScreenCoords.clone());
       }
     } else if (pointerKind == PointerDeviceKind.STYLUS) {
       // Returns converted android button state into flutter framework normalized state
@@ -292,7 +385,9 @@ public class AndroidTouchProcessor {
     }
 
     long motionEventId = 0;
-    if (trackMotionEvents) {
+    // Historical samples are never forwarded to platform views on their own, so there is no need
+    // to track the event for them.
+    if (trackMotionEvents && !isHistorical) {
       MotionEventTracker.MotionEventId trackedEvent = motionEventTracker.track(event);
       motionEventId = trackedEvent.getId();
     }
@@ -302,7 +397,9 @@ public class AndroidTouchProcessor {
             ? PointerSignalKind.SCROLL
             : PointerSignalKind.NONE;
 
-    long timeStamp = event.getEventTime() * 1000; // Convert from milliseconds to microseconds.
+    long eventTime =
+        isHistorical ? event.getHistoricalEventTime(historyIndex) : event.getEventTime();
+    long timeStamp = eventTime * 1000; // Convert from milliseconds to microseconds.
 
     packet.putLong(motionEventId); // motionEventId
     packet.putLong(timeStamp); // time_stamp
@@ -337,7 +434,10 @@ public class AndroidTouchProcessor {
 
     packet.putLong(0); // synthesized
 
-    packet.putDouble(event.getPressure(pointerIndex)); // pressure
+    packet.putDouble(
+        isHistorical
+            ? event.getHistoricalPressure(pointerIndex, historyIndex)
+            : event.getPressure(pointerIndex)); // pressure
     double pressureMin = 0.0;
     double pressureMax = 1.0;
     if (event.getDevice() != null) {
@@ -352,25 +452,38 @@ public class AndroidTouchProcessor {
     packet.putDouble(pressureMax); // pressure_max
 
     if (pointerKind == PointerDeviceKind.STYLUS) {
-      packet.putDouble(event.getAxisValue(MotionEvent.AXIS_DISTANCE, pointerIndex)); // distance
+      packet.putDouble(
+          getAxisValue(event, MotionEvent.AXIS_DISTANCE, pointerIndex, historyIndex)); // distance
       packet.putDouble(0.0); // distance_max
     } else {
       packet.putDouble(0.0); // distance
       packet.putDouble(0.0); // distance_max
     }
 
-    packet.putDouble(event.getSize(pointerIndex)); // size
+    packet.putDouble(
+        isHistorical
+            ? event.getHistoricalSize(pointerIndex, historyIndex)
+            : event.getSize(pointerIndex)); // size
 
-    packet.putDouble(event.getToolMajor(pointerIndex)); // radius_major
-    packet.putDouble(event.getToolMinor(pointerIndex)); // radius_minor
+    packet.putDouble(
+        isHistorical
+            ? event.getHistoricalToolMajor(pointerIndex, historyIndex)
+            : event.getToolMajor(pointerIndex)); // radius_major
+    packet.putDouble(
+        isHistorical
+            ? event.getHistoricalToolMinor(pointerIndex, historyIndex)
+            : event.getToolMinor(pointerIndex)); // radius_minor
 
     packet.putDouble(0.0); // radius_min
     packet.putDouble(0.0); // radius_max
 
-    packet.putDouble(event.getAxisValue(MotionEvent.AXIS_ORIENTATION, pointerIndex)); // orientation
+    packet.putDouble(
+        getAxisValue(
+            event, MotionEvent.AXIS_ORIENTATION, pointerIndex, historyIndex)); // orientation
 
     if (pointerKind == PointerDeviceKind.STYLUS) {
-      packet.putDouble(event.getAxisValue(MotionEvent.AXIS_TILT, pointerIndex)); // tilt
+      packet.putDouble(
+          getAxisValue(event, MotionEvent.AXIS_TILT, pointerIndex, historyIndex)); // tilt
     } else {
       packet.putDouble(0.0); // tilt
     }
@@ -389,9 +502,11 @@ public class AndroidTouchProcessor {
       // We flip the sign of the scroll value below because it aligns the pixel value with the
       // scroll direction in native android.
       final double horizontalScrollPixels =
-          horizontalScaleFactor * -event.getAxisValue(MotionEvent.AXIS_HSCROLL, pointerIndex);
+          horizontalScaleFactor
+              * -getAxisValue(event, MotionEvent.AXIS_HSCROLL, pointerIndex, historyIndex);
       final double verticalScrollPixels =
-          verticalScaleFactor * -event.getAxisValue(MotionEvent.AXIS_VSCROLL, pointerIndex);
+          verticalScaleFactor
+              * -getAxisValue(event, MotionEvent.AXIS_VSCROLL, pointerIndex, historyIndex);
       packet.putDouble(horizontalScrollPixels); // scroll_delta_x
       packet.putDouble(verticalScrollPixels); // scroll_delta_y
     } else {
@@ -417,6 +532,13 @@ public class AndroidTouchProcessor {
     }
   }
 
+  private static float getAxisValue(
+      @NonNull MotionEvent event, int axis, int pointerIndex, int historyIndex) {
+    return historyIndex == CURRENT_SAMPLE
+        ? event.getAxisValue(axis, pointerIndex)
+        : event.getHistoricalAxisValue(axis, pointerIndex, historyIndex);
+  }
+
   private float getHorizontalScrollFactor(@NonNull Context context) {
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
       return ViewConfiguration.get(context).getScaledHorizontalScrollFactor();
@@ -20,6 +20,7 @@ import android.text.format.DateFormat;
 import android.util.AttributeSet;
 import android.util.SparseArray;
 import android.view.Choreographer;
+import android.view.Display;
 import android.view.DisplayCutout;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
@@ -68,6 +69,7 @@ import io.flutter.plugin.mouse.MouseCursorPlugin;
 import io.flutter.plugin.platform.PlatformViewsController;
 import io.flutter.util.ViewUtils;
 import io.flutter.view.AccessibilityBridge;
+import io.flutter.view.VsyncWaiter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -140,6 +142,8 @@ public class FlutterView extends FrameLayout
 
   // Provides access to foldable/hinge information
   @Nullable private WindowInfoRepositoryCallbackAdapterWrapper windowInfoRepo;
+  // The display this view was attached to, as reported to the VsyncWaiter.
+  private int attachedDisplayId = Display.INVALID_DISPLAY;
   // Directly implemented View behavior that communicates with Flutter.
   private final FlutterRenderer.ViewportMetrics viewportMetrics =
       new FlutterRenderer.ViewportMetrics();
@@ -505,7 +509,8 @@ public class FlutterView extends FrameLayout
   /**
    * Invoked when this is attached to the window.
    *
-   * <p>We register for {@link androidx.window.layout.WindowInfoTracker} updates.
+   * <p>We register for {@link androidx.window.layout.WindowInfoTracker} updates, and tell the
+   * {@link VsyncWaiter} which display Flutter is now rendered on.
    */
   @Override
   protected void onAttachedToWindow() {
@@ -516,6 +521,13 @@ public class FlutterView extends FrameLayout
       windowInfoRepo.addWindowLayoutInfoListener(
           activity, ContextCompat.getMainExecutor(getContext()), windowInfoListener);
     }
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 /* 17 */) {
+      final Display display = getDisplay();
+      if (display != null) {
+        attachedDisplayId = display.getDisplayId();
+        VsyncWaiter.onViewAttachedToDisplay(attachedDisplayId);
+      }
+    }
   }
 
   /**
@@ -529,6 +541,10 @@ public class FlutterView extends FrameLayout
       windowInfoRepo.removeWindowLayoutInfoListener(windowInfoListener);
     }
     this.windowInfoRepo = null;
+    if (attachedDisplayId != Display.INVALID_DISPLAY) {
+      VsyncWaiter.onViewDetachedFromDisplay(attachedDisplayId);
+      attachedDisplayId = Display.INVALID_DISPLAY;
+    }
     super.onDetachedFromWindow();
   }
 
@@ -1179,7 +1195,7 @@ public class FlutterView extends FrameLayout
 
     localizationPlugin = this.flutterEngine.getLocalizationPlugin();
 
-    keyboardManager = new KeyboardManager(this);
+    keyboardManager = new KeyboardManager(this, this.flutterEngine.getKeyEventChannel());
     androidTouchProcessor =
         new AndroidTouchProcessor(this.flutterEngine.getRenderer(), /*trackMotionEvents=*/ false);
     accessibilityBridge =
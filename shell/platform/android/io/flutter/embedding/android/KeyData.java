@@ -114,15 +114,27 @@ public class KeyData {
    * @return the marshalled bytes.
    */
   ByteBuffer toBytes() {
-    byte[] charBytes;
-    try {
-      charBytes = character == null ? null : character.getBytes("UTF-8");
-    } catch (UnsupportedEncodingException e) {
-      throw new AssertionError("UTF-8 not supported");
-    }
-    final int charSize = charBytes == null ? 0 : charBytes.length;
-    final ByteBuffer packet =
-        ByteBuffer.allocateDirect((1 + FIELD_COUNT) * BYTES_PER_FIELD + charSize);
+    final ByteBuffer packet = ByteBuffer.allocateDirect(getPacketSize());
+    writeTo(packet);
+    return packet;
+  }
+
+  /** Returns the number of bytes {@link #writeTo(ByteBuffer)} writes. */
+  int getPacketSize() {
+    return (1 + FIELD_COUNT) * BYTES_PER_FIELD + utf8Length(character);
+  }
+
+  /**
+   * Marshal the key data into {@code packet}, from its start, in the same format as {@link
+   * #toBytes()}.
+   *
+   * <p>The limit of {@code packet} is set to {@link #getPacketSize()}, which must not exceed its
+   * capacity, and its position is left at the end of the key data.
+   */
+  void writeTo(@NonNull ByteBuffer packet) {
+    final int charSize = utf8Length(character);
+    packet.clear();
+    packet.limit((1 + FIELD_COUNT) * BYTES_PER_FIELD + charSize);
     packet.order(ByteOrder.LITTLE_ENDIAN);
 
     packet.putLong(charSize);
@@ -131,10 +143,64 @@ public class KeyData {
     packet.putLong(physicalKey);
     packet.putLong(logicalKey);
     packet.putLong(synthesized ? 1L : 0L);
-    if (charBytes != null) {
-      packet.put(charBytes);
+    if (character != null) {
+      putUtf8(packet, character);
+    }
+  }
+
+  // Returns the number of bytes String#getBytes("UTF-8") returns for the string, without encoding
+  // it. Unpaired surrogates are replaced with a single '?', as that method does.
+  private static int utf8Length(@Nullable String string) {
+    if (string == null) {
+      return 0;
+    }
+    int length = 0;
+    for (int i = 0; i < string.length(); i++) {
+      final char c = string.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (isSurrogatePairAt(string, i)) {
+        length += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        length += 1;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  // Writes the string in UTF-8, with the same bytes as String#getBytes("UTF-8").
+  private static void putUtf8(@NonNull ByteBuffer packet, @NonNull String string) {
+    for (int i = 0; i < string.length(); i++) {
+      final char c = string.charAt(i);
+      if (c < 0x80) {
+        packet.put((byte) c);
+      } else if (c < 0x800) {
+        packet.put((byte) (0xC0 | (c >> 6)));
+        packet.put((byte) (0x80 | (c & 0x3F)));
+      } else if (isSurrogatePairAt(string, i)) {
+        final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+        packet.put((byte) (0xF0 | (codePoint >> 18)));
+        packet.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+        packet.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+        packet.put((byte) (0x80 | (codePoint & 0x3F)));
+      } else if (Character.isSurrogate(c)) {
+        packet.put((byte) '?');
+      } else {
+        packet.put((byte) (0xE0 | (c >> 12)));
+        packet.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        packet.put((byte) (0x80 | (c & 0x3F)));
+      }
     }
+  }
 
-    return packet;
+  private static boolean isSurrogatePairAt(@NonNull String string, int index) {
+    return Character.isHighSurrogate(string.charAt(index))
+        && index + 1 < string.length()
+        && Character.isLowSurrogate(string.charAt(index + 1));
   }
 }
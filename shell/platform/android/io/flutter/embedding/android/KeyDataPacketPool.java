@@ -0,0 +1,61 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.android;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A pool of direct {@link ByteBuffer}s that {@link KeyEmbedderResponder} marshals {@link KeyData}
+ * into with {@link KeyData#writeTo(ByteBuffer)}.
+ *
+ * <p>{@link io.flutter.plugin.common.BinaryMessenger#send(String, java.nio.ByteBuffer,
+ * io.flutter.plugin.common.BinaryMessenger.BinaryReply)} copies a message before it returns, so a
+ * packet can be recycled as soon as it has been sent. More than one packet is only in use at once
+ * when a reply is delivered synchronously and leads to another key event being sent, which is why
+ * this is a pool rather than a single buffer.
+ *
+ * <p>Packets have a power-of-two capacity of at least {@link #MIN_CAPACITY} bytes, which fits a key
+ * data with a character of up to 16 bytes. Only packets of that capacity are pooled; the rare
+ * larger ones are left to the garbage collector.
+ *
+ * <p>This class is not thread-safe, and must only be used from the main thread.
+ */
+final class KeyDataPacketPool {
+  @VisibleForTesting static final int MIN_CAPACITY = 64;
+  private static final int MAX_POOLED_PACKETS = 4;
+
+  @NonNull private final ArrayDeque<ByteBuffer> pool = new ArrayDeque<>(MAX_POOLED_PACKETS);
+  private long allocationCount;
+
+  /** Returns a packet that can hold at least {@code size} bytes. */
+  @NonNull
+  ByteBuffer obtain(int size) {
+    if (size <= MIN_CAPACITY) {
+      final ByteBuffer pooled = pool.pollFirst();
+      if (pooled != null) {
+        return pooled;
+      }
+    }
+    allocationCount++;
+    return ByteBuffer.allocateDirect(
+        size <= MIN_CAPACITY ? MIN_CAPACITY : Integer.highestOneBit(size - 1) << 1);
+  }
+
+  /** Returns a packet obtained from {@link #obtain(int)} to the pool once it has been sent. */
+  void recycle(@NonNull ByteBuffer packet) {
+    if (packet.capacity() == MIN_CAPACITY && pool.size() < MAX_POOLED_PACKETS) {
+      pool.addFirst(packet);
+    }
+  }
+
+  /** Returns the number of packets allocated because none could be reused. */
+  @VisibleForTesting
+  long getAllocationCount() {
+    return allocationCount;
+  }
+}
@@ -6,13 +6,12 @@ package io.flutter.embedding.android;
 
 import android.view.KeyEvent;
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 import io.flutter.embedding.android.KeyboardMap.PressingGoal;
 import io.flutter.embedding.android.KeyboardMap.TogglingGoal;
 import io.flutter.plugin.common.BinaryMessenger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -24,6 +23,41 @@ import java.util.Map;
 public class KeyEmbedderResponder implements KeyboardManager.Responder {
   private static final String TAG = "KeyEmbedderResponder";
 
+  // KeyboardMap.scanCodeToPhysical and KeyboardMap.keyCodeToLogical as dense tables indexed by
+  // code, so that looking a key up never boxes. Codes without a mapping hold 0, which is not a
+  // valid key.
+  private static final long[] physicalKeyByScanCode = toTable(KeyboardMap.scanCodeToPhysical);
+  private static final long[] logicalKeyByKeyCode = toTable(KeyboardMap.keyCodeToLogical);
+
+  private static long[] toTable(@NonNull Map<Long, Long> mapping) {
+    long maxCode = 0;
+    for (final long code : mapping.keySet()) {
+      maxCode = Math.max(maxCode, code);
+    }
+    final long[] table = new long[(int) maxCode + 1];
+    for (final Map.Entry<Long, Long> entry : mapping.entrySet()) {
+      table[(int) (long) entry.getKey()] = entry.getValue();
+    }
+    return table;
+  }
+
+  private static long lookUp(@NonNull long[] table, long code) {
+    return code >= 0 && code < table.length ? table[(int) code] : 0;
+  }
+
+  // The characters of ASCII key events, so that typing them doesn't allocate a string.
+  private static final String[] asciiCharacters = new String[128];
+
+  static {
+    for (char c = 0; c < asciiCharacters.length; c++) {
+      asciiCharacters[c] = String.valueOf(c);
+    }
+  }
+
+  private static boolean isBitSet(int bits, int index) {
+    return (bits & (1 << index)) != 0;
+  }
+
   // Maps KeyEvent's action and repeatCount to a KeyData type.
   private static KeyData.Type getEventType(KeyEvent event) {
     final boolean isRepeatEvent = event.getRepeatCount() > 0;
@@ -40,25 +74,34 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
   // The messenger that is used to send Flutter key events to the framework.
   //
   // On `handleEvent`, Flutter events are marshalled into byte buffers in the format specified by
-  // `KeyData.toBytes`.
+  // `KeyData.toBytes`, in packets reused from `packetPool`.
   @NonNull private final BinaryMessenger messenger;
+  @NonNull private final KeyDataPacketPool packetPool = new KeyDataPacketPool();
   // The keys being pressed currently, mapped from physical keys to logical keys.
-  @NonNull private final HashMap<Long, Long> pressingRecords = new HashMap<>();
-  // Map from logical key to toggling goals.
+  @NonNull private final LongLongMap pressingRecords = new LongLongMap();
+  // The toggling goals, each with a distinct logical key. There are only a handful, so they are
+  // looked up by scanning.
   //
   // Besides immutable configuration, the toggling goals are also used to store the current enabling
   // states in their `enabled` field.
-  @NonNull private final HashMap<Long, TogglingGoal> togglingGoals = new HashMap<>();
+  @NonNull private final TogglingGoal[] togglingGoals = KeyboardMap.getTogglingGoals();
 
   @NonNull
   private final KeyboardManager.CharacterCombiner characterCombiner =
       new KeyboardManager.CharacterCombiner();
 
+  // Reused for every event, since each one is written into a packet before the messenger is called.
+  @NonNull private final KeyData keyData = new KeyData();
+
+  // The events to synthesize after the main event of each `handleEventImpl` call in progress.
+  //
+  // A reply can be delivered synchronously and lead to another key event being handled, so this is
+  // used as a stack: each call appends its events after those of the calls it is nested in, and
+  // removes them before returning.
+  @NonNull private final ArrayList<Runnable> postSynchronizeEvents = new ArrayList<>();
+
   public KeyEmbedderResponder(BinaryMessenger messenger) {
     this.messenger = messenger;
-    for (final TogglingGoal goal : KeyboardMap.getTogglingGoals()) {
-      togglingGoals.put(goal.logicalKey, goal);
-    }
   }
 
   private static long keyOfPlane(long key, long plane) {
@@ -67,9 +110,7 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
   }
 
   // Get the physical key for this event.
-  //
-  // The returned value is never null.
-  private Long getPhysicalKey(@NonNull KeyEvent event) {
+  private long getPhysicalKey(@NonNull KeyEvent event) {
     final long scancode = event.getScanCode();
     // Scancode 0 can occur during emulation using `adb shell input keyevent`. Synthesize a physical
     // key from the key code so that keys can be told apart.
@@ -77,19 +118,17 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
       // The key code can't also be 0, since those events have been filtered.
       return keyOfPlane(event.getKeyCode(), KeyboardMap.kAndroidPlane);
     }
-    final Long byMapping = KeyboardMap.scanCodeToPhysical.get(scancode);
-    if (byMapping != null) {
+    final long byMapping = lookUp(physicalKeyByScanCode, scancode);
+    if (byMapping != 0) {
       return byMapping;
     }
     return keyOfPlane(event.getScanCode(), KeyboardMap.kAndroidPlane);
   }
 
   // Get the logical key for this event.
-  //
-  // The returned value is never null.
-  private Long getLogicalKey(@NonNull KeyEvent event) {
-    final Long byMapping = KeyboardMap.keyCodeToLogical.get((long) event.getKeyCode());
-    if (byMapping != null) {
+  private long getLogicalKey(@NonNull KeyEvent event) {
+    final long byMapping = lookUp(logicalKeyByKeyCode, event.getKeyCode());
+    if (byMapping != 0) {
       return byMapping;
     }
     return keyOfPlane(event.getKeyCode(), KeyboardMap.kAndroidPlane);
@@ -97,20 +136,18 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
 
   // Update `pressingRecords`.
   //
-  // If the key indicated by `physicalKey` is currently not pressed, then `logicalKey` must not be
-  // null and this key will be marked pressed.
+  // If `isPressed` is true, the key indicated by `physicalKey` must currently not be pressed, and
+  // will be marked pressed with `logicalKey`.
   //
-  // If the key indicated by `physicalKey` is currently pressed, then `logicalKey` must be null
-  // and this key will be marked released.
-  void updatePressingState(@NonNull Long physicalKey, @Nullable Long logicalKey) {
-    if (logicalKey != null) {
-      final Long previousValue = pressingRecords.put(physicalKey, logicalKey);
-      if (previousValue != null) {
+  // If `isPressed` is false, the key indicated by `physicalKey` must currently be pressed, and will
+  // be marked released. `logicalKey` is ignored.
+  void updatePressingState(long physicalKey, boolean isPressed, long logicalKey) {
+    if (isPressed) {
+      if (!pressingRecords.putIfAbsent(physicalKey, logicalKey)) {
         throw new AssertionError("The key was not empty");
       }
     } else {
-      final Long previousValue = pressingRecords.remove(physicalKey);
-      if (previousValue == null) {
+      if (!pressingRecords.remove(physicalKey)) {
         throw new AssertionError("The key was empty");
       }
     }
@@ -147,18 +184,27 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
     // The goal of the synchronization algorithm is to derive a pre-event state that can satisfy the
     // true state (`truePressed`) after the event, and that requires as few synthesized events based
     // on the current state (`nowStates`) as possible.
-    final boolean[] nowStates = new boolean[goal.keys.length];
-    final Boolean[] preEventStates = new Boolean[goal.keys.length];
+    //
+    // The states are bits indexed by the position of the key in the goal. Goals have a handful of
+    // keys, and keeping the states in locals means synchronizing doesn't allocate, and is not
+    // affected by key events handled while synthesized events are sent.
+    int nowStates = 0;
+    int preEventStates = 0;
+    // The keys whose pre-event state has been derived.
+    int preEventStatesKnown = 0;
     boolean postEventAnyPressed = false;
     // 1. Find the current states of all keys.
     // 2. Derive the pre-event state of the event key (if applicable.)
     for (int keyIdx = 0; keyIdx < goal.keys.length; keyIdx += 1) {
       final KeyboardMap.KeyPair key = goal.keys[keyIdx];
-      nowStates[keyIdx] = pressingRecords.containsKey(key.physicalKey);
+      final int keyBit = 1 << keyIdx;
+      if (pressingRecords.containsKey(key.physicalKey)) {
+        nowStates |= keyBit;
+      }
       if (key.logicalKey == eventLogicalKey) {
+        preEventStatesKnown |= keyBit;
         switch (getEventType(event)) {
           case kDown:
-            preEventStates[keyIdx] = false;
             postEventAnyPressed = true;
             if (!truePressed) {
               postSynchronize.add(
@@ -171,7 +217,7 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
             // Incoming event is an up. Although the previous state should be pressed, don't
             // synthesize a down event even if it's not. The later code will handle such cases by
             // skipping abrupt up events. Obviously don't synthesize up events either.
-            preEventStates[keyIdx] = nowStates[keyIdx];
+            preEventStates |= nowStates & keyBit;
             break;
           case kRepeat:
             // Incoming event is repeat. The previous state can be either pressed or released. Don't
@@ -183,47 +229,41 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
                       synthesizeEvent(
                           false, key.logicalKey, key.physicalKey, event.getEventTime()));
             }
-            preEventStates[keyIdx] = nowStates[keyIdx];
+            preEventStates |= nowStates & keyBit;
             postEventAnyPressed = true;
             break;
         }
       } else {
-        postEventAnyPressed = postEventAnyPressed || nowStates[keyIdx];
+        postEventAnyPressed = postEventAnyPressed || isBitSet(nowStates, keyIdx);
       }
     }
 
-    // Fill the rest of the pre-event states to match the true state.
+    // Fill the rest of the pre-event states to match the true state. Unknown states are released
+    // unless set here.
     if (truePressed) {
       // It is required that at least one key is pressed.
       for (int keyIdx = 0; keyIdx < goal.keys.length; keyIdx += 1) {
-        if (preEventStates[keyIdx] != null) {
+        if (isBitSet(preEventStatesKnown, keyIdx)) {
           continue;
         }
         if (postEventAnyPressed) {
-          preEventStates[keyIdx] = nowStates[keyIdx];
+          preEventStates |= nowStates & (1 << keyIdx);
         } else {
-          preEventStates[keyIdx] = true;
+          preEventStates |= 1 << keyIdx;
           postEventAnyPressed = true;
         }
       }
       if (!postEventAnyPressed) {
-        preEventStates[0] = true;
-      }
-    } else {
-      for (int keyIdx = 0; keyIdx < goal.keys.length; keyIdx += 1) {
-        if (preEventStates[keyIdx] != null) {
-          continue;
-        }
-        preEventStates[keyIdx] = false;
+        preEventStates |= 1;
       }
     }
 
     // Dispatch synthesized events for state differences.
     for (int keyIdx = 0; keyIdx < goal.keys.length; keyIdx += 1) {
-      if (nowStates[keyIdx] != preEventStates[keyIdx]) {
+      final boolean preEventState = isBitSet(preEventStates, keyIdx);
+      if (isBitSet(nowStates, keyIdx) != preEventState) {
         final KeyboardMap.KeyPair key = goal.keys[keyIdx];
-        synthesizeEvent(
-            preEventStates[keyIdx], key.logicalKey, key.physicalKey, event.getEventTime());
+        synthesizeEvent(preEventState, key.logicalKey, key.physicalKey, event.getEventTime());
       }
     }
   }
@@ -270,10 +310,23 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
     if (event.getScanCode() == 0 && event.getKeyCode() == 0) {
       return false;
     }
-    final Long physicalKey = getPhysicalKey(event);
-    final Long logicalKey = getLogicalKey(event);
+    final int postSynchronizeStart = postSynchronizeEvents.size();
+    try {
+      return handleEventImpl(event, onKeyEventHandledCallback, postSynchronizeStart);
+    } finally {
+      while (postSynchronizeEvents.size() > postSynchronizeStart) {
+        postSynchronizeEvents.remove(postSynchronizeEvents.size() - 1);
+      }
+    }
+  }
+
+  private boolean handleEventImpl(
+      @NonNull KeyEvent event,
+      @NonNull OnKeyEventHandledCallback onKeyEventHandledCallback,
+      int postSynchronizeStart) {
+    final long physicalKey = getPhysicalKey(event);
+    final long logicalKey = getLogicalKey(event);
 
-    final ArrayList<Runnable> postSynchronizeEvents = new ArrayList<>();
     for (final PressingGoal goal : KeyboardMap.pressingGoals) {
       synchronizePressingKey(
           goal,
@@ -284,7 +337,10 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
           postSynchronizeEvents);
     }
 
-    for (final TogglingGoal goal : togglingGoals.values()) {
+    // Events of nested calls have been removed by now, so these are this call's own.
+    final int postSynchronizeEnd = postSynchronizeEvents.size();
+
+    for (final TogglingGoal goal : togglingGoals) {
       synchronizeTogglingKey(goal, (event.getMetaState() & goal.mask) != 0, logicalKey, event);
     }
 
@@ -302,9 +358,9 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
 
     KeyData.Type type;
     String character = null;
-    final Long lastLogicalRecord = pressingRecords.get(physicalKey);
+    final boolean wasPressed = pressingRecords.containsKey(physicalKey);
     if (isDownEvent) {
-      if (lastLogicalRecord == null) {
+      if (!wasPressed) {
         type = KeyData.Type.kDown;
       } else {
         // A key has been pressed that has the exact physical key as a currently
@@ -312,17 +368,21 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
         if (event.getRepeatCount() > 0) {
           type = KeyData.Type.kRepeat;
         } else {
-          synthesizeEvent(false, lastLogicalRecord, physicalKey, event.getEventTime());
+          synthesizeEvent(
+              false, pressingRecords.get(physicalKey, 0), physicalKey, event.getEventTime());
           type = KeyData.Type.kDown;
         }
       }
       final char complexChar =
           characterCombiner.applyCombiningCharacterToBaseCharacter(event.getUnicodeChar());
       if (complexChar != 0) {
-        character = "" + complexChar;
+        character =
+            complexChar < asciiCharacters.length
+                ? asciiCharacters[complexChar]
+                : String.valueOf(complexChar);
       }
     } else { // isDownEvent is false
-      if (lastLogicalRecord == null) {
+      if (!wasPressed) {
         // Ignore abrupt up events.
         return false;
       } else {
@@ -331,16 +391,17 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
     }
 
     if (type != KeyData.Type.kRepeat) {
-      updatePressingState(physicalKey, isDownEvent ? logicalKey : null);
+      updatePressingState(physicalKey, isDownEvent, logicalKey);
     }
     if (type == KeyData.Type.kDown) {
-      final TogglingGoal maybeTogglingGoal = togglingGoals.get(logicalKey);
-      if (maybeTogglingGoal != null) {
-        maybeTogglingGoal.enabled = !maybeTogglingGoal.enabled;
+      for (final TogglingGoal goal : togglingGoals) {
+        if (goal.logicalKey == logicalKey) {
+          goal.enabled = !goal.enabled;
+        }
       }
     }
 
-    final KeyData output = new KeyData();
+    final KeyData output = keyData;
     output.timestamp = event.getEventTime();
     output.type = type;
     output.logicalKey = logicalKey;
@@ -349,14 +410,14 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
     output.synthesized = false;
 
     sendKeyEvent(output, onKeyEventHandledCallback);
-    for (final Runnable postSyncEvent : postSynchronizeEvents) {
-      postSyncEvent.run();
+    for (int i = postSynchronizeStart; i < postSynchronizeEnd; i++) {
+      postSynchronizeEvents.get(i).run();
     }
     return true;
   }
 
-  private void synthesizeEvent(boolean isDown, Long logicalKey, Long physicalKey, long timestamp) {
-    final KeyData output = new KeyData();
+  private void synthesizeEvent(boolean isDown, long logicalKey, long physicalKey, long timestamp) {
+    final KeyData output = keyData;
     output.timestamp = timestamp;
     output.type = isDown ? KeyData.Type.kDown : KeyData.Type.kUp;
     output.logicalKey = logicalKey;
@@ -364,7 +425,7 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
     output.character = null;
     output.synthesized = true;
     if (physicalKey != 0 && logicalKey != 0) {
-      updatePressingState(physicalKey, isDown ? logicalKey : null);
+      updatePressingState(physicalKey, isDown, logicalKey);
     }
     sendKeyEvent(output, null);
   }
@@ -382,7 +443,14 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
               onKeyEventHandledCallback.onKeyEventHandled(handled);
             };
 
-    messenger.send(KeyData.CHANNEL, data.toBytes(), handleMessageReply);
+    final ByteBuffer packet = packetPool.obtain(data.getPacketSize());
+    try {
+      data.writeTo(packet);
+      messenger.send(KeyData.CHANNEL, packet, handleMessageReply);
+    } finally {
+      // The messenger has copied the packet by now, as BinaryMessenger#send guarantees.
+      packetPool.recycle(packet);
+    }
   }
 
   /**
@@ -409,12 +477,12 @@ public class KeyEmbedderResponder implements KeyboardManager.Responder {
   }
 
   /**
-   * Returns an unmodifiable view of the pressed state.
+   * Returns an unmodifiable snapshot of the pressed state.
    *
    * @return A map whose keys are physical keyboard key IDs and values are the corresponding logical
    *     keyboard key IDs.
    */
   public Map<Long, Long> getPressedState() {
-    return Collections.unmodifiableMap(pressingRecords);
+    return Collections.unmodifiableMap(pressingRecords.toMap());
   }
 }
@@ -112,15 +112,33 @@ public class KeyboardManager
   /**
    * Construct a {@link KeyboardManager}.
    *
+   * <p>Key events are sent on a new {@link KeyEventChannel}, which doesn't answer the framework's
+   * requests to change their encoding, and therefore sends them as JSON.
+   *
    * @param viewDelegate provides a set of interfaces that the keyboard manager needs to interact
    *     with other components and the platform, and is typically implements by {@link FlutterView}.
    */
   public KeyboardManager(@NonNull ViewDelegate viewDelegate) {
+    this(viewDelegate, new KeyEventChannel(viewDelegate.getBinaryMessenger()));
+  }
+
+  /**
+   * Construct a {@link KeyboardManager} that sends key events on an existing {@link
+   * KeyEventChannel}.
+   *
+   * @param viewDelegate provides a set of interfaces that the keyboard manager needs to interact
+   *     with other components and the platform, and is typically implements by {@link FlutterView}.
+   * @param keyEventChannel the channel to send key events to the framework with, typically the one
+   *     of the {@link io.flutter.embedding.engine.FlutterEngine}, which keeps the encoding that the
+   *     framework negotiated across views.
+   */
+  public KeyboardManager(
+      @NonNull ViewDelegate viewDelegate, @NonNull KeyEventChannel keyEventChannel) {
     this.viewDelegate = viewDelegate;
     this.responders =
         new Responder[] {
           new KeyEmbedderResponder(viewDelegate.getBinaryMessenger()),
-          new KeyChannelResponder(new KeyEventChannel(viewDelegate.getBinaryMessenger())),
+          new KeyChannelResponder(keyEventChannel),
         };
     final KeyboardChannel keyboardChannel = new KeyboardChannel(viewDelegate.getBinaryMessenger());
     keyboardChannel.setKeyboardMethodHandler(this);
@@ -259,7 +277,7 @@ public class KeyboardManager
   }
 
   /**
-   * Returns an unmodifiable view of the pressed state.
+   * Returns an unmodifiable snapshot of the pressed state.
    *
    * @return A map whose keys are physical keyboard key IDs and values are the corresponding logical
    *     keyboard key IDs.
@@ -0,0 +1,150 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.android;
+
+import androidx.annotation.NonNull;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A map from {@code long} to {@code long} that stores both unboxed, in an open-addressing table
+ * with linear probing.
+ *
+ * <p>Used by {@link KeyEmbedderResponder} to track pressed keys without boxing key codes on every
+ * key event. Only allocates when the table grows.
+ */
+final class LongLongMap {
+  private static final int INITIAL_CAPACITY = 16;
+
+  @NonNull private long[] keys = new long[INITIAL_CAPACITY];
+  @NonNull private long[] values = new long[INITIAL_CAPACITY];
+  @NonNull private boolean[] occupied = new boolean[INITIAL_CAPACITY];
+  private int size;
+
+  /** Returns the number of entries. */
+  int size() {
+    return size;
+  }
+
+  /** Returns whether {@code key} has a value. */
+  boolean containsKey(long key) {
+    return indexOf(key) != -1;
+  }
+
+  /** Returns the value of {@code key}, or {@code defaultValue} if it has none. */
+  long get(long key, long defaultValue) {
+    final int index = indexOf(key);
+    return index == -1 ? defaultValue : values[index];
+  }
+
+  /**
+   * Sets the value of {@code key} to {@code value} if it has none.
+   *
+   * @return true if the value was set, false if {@code key} already had a value.
+   */
+  boolean putIfAbsent(long key, long value) {
+    if (2 * (size + 1) > keys.length) {
+      resize(2 * keys.length);
+    }
+    final int mask = keys.length - 1;
+    int index = hash(key) & mask;
+    while (occupied[index]) {
+      if (keys[index] == key) {
+        return false;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    occupied[index] = true;
+    size++;
+    return true;
+  }
+
+  /**
+   * Removes the value of {@code key}.
+   *
+   * @return true if a value was removed, false if {@code key} had none.
+   */
+  boolean remove(long key) {
+    final int index = indexOf(key);
+    if (index == -1) {
+      return false;
+    }
+    deleteSlot(index);
+    size--;
+    return true;
+  }
+
+  /** Returns a new {@link Map} with the same entries. */
+  @NonNull
+  Map<Long, Long> toMap() {
+    final HashMap<Long, Long> map = new HashMap<>();
+    for (int i = 0; i < keys.length; i++) {
+      if (occupied[i]) {
+        map.put(keys[i], values[i]);
+      }
+    }
+    return map;
+  }
+
+  private int indexOf(long key) {
+    final int mask = keys.length - 1;
+    int index = hash(key) & mask;
+    while (occupied[index]) {
+      if (keys[index] == key) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  // Key codes mostly differ in a few low bits of each half, so mix every bit into the low ones.
+  private static int hash(long key) {
+    final int h = (int) (key ^ (key >>> 32)) * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+
+  // Backward-shift deletion: moves later entries of the same probe run into the freed slot so that
+  // lookups never need tombstones.
+  private void deleteSlot(int index) {
+    final int mask = keys.length - 1;
+    int free = index;
+    int next = (free + 1) & mask;
+    while (occupied[next]) {
+      final int home = hash(keys[next]) & mask;
+      // Move the entry if its home slot is not in the cyclic range (free, next].
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        values[free] = values[next];
+        free = next;
+      }
+      next = (next + 1) & mask;
+    }
+    occupied[free] = false;
+  }
+
+  private void resize(int capacity) {
+    final long[] oldKeys = keys;
+    final long[] oldValues = values;
+    final boolean[] oldOccupied = occupied;
+    keys = new long[capacity];
+    values = new long[capacity];
+    occupied = new boolean[capacity];
+    final int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldOccupied[i]) {
+        int index = hash(oldKeys[i]) & mask;
+        while (occupied[index]) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+        occupied[index] = true;
+      }
+    }
+  }
+}
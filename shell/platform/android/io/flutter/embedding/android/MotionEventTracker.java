@@ -1,13 +1,21 @@
 package io.flutter.embedding.android;
 
-import android.util.LongSparseArray;
 import android.view.MotionEvent;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import java.util.PriorityQueue;
+import androidx.annotation.VisibleForTesting;
 import java.util.concurrent.atomic.AtomicLong;
 
-/** Tracks the motion events received by the FlutterView. */
+/**
+ * Tracks the motion events received by the FlutterView.
+ *
+ * <p>Tracked events are kept in a fixed size ring buffer indexed by their {@link MotionEventId}.
+ * Since IDs are handed out in increasing order, tracking an event when the buffer is full evicts
+ * the oldest one. Copies of events that are evicted, or discarded by {@link #pop(MotionEventId)},
+ * are recycled.
+ *
+ * <p>This class must only be used from the main thread.
+ */
 public final class MotionEventTracker {
 
   /** Represents a unique identifier corresponding to a motion event. */
@@ -34,51 +42,143 @@ public final class MotionEventTracker {
     }
   }
 
-  private final LongSparseArray<MotionEvent> eventById;
-  private final PriorityQueue<Long> unusedEvents;
+  /** The number of events tracked before the oldest is evicted, unless set otherwise. */
+  public static final int DEFAULT_CAPACITY = 256;
+
+  // eventBySlot[slotFor(id)] holds the copy of the event with the ID in idBySlot at the same index,
+  // or null if the slot is free.
+  @NonNull private MotionEvent[] eventBySlot;
+  @NonNull private long[] idBySlot;
+  // Every event with a smaller ID has been popped, discarded or evicted.
+  private long discardedBelowId;
+  private long evictionCount;
+  private long missCount;
   private static MotionEventTracker INSTANCE;
 
   @NonNull
   public static MotionEventTracker getInstance() {
     if (INSTANCE == null) {
-      INSTANCE = new MotionEventTracker();
+      INSTANCE = new MotionEventTracker(DEFAULT_CAPACITY);
     }
     return INSTANCE;
   }
 
-  private MotionEventTracker() {
-    eventById = new LongSparseArray<>();
-    unusedEvents = new PriorityQueue<>();
+  @VisibleForTesting
+  MotionEventTracker(int capacity) {
+    eventBySlot = new MotionEvent[capacity];
+    idBySlot = new long[capacity];
   }
 
   /** Tracks the event and returns a unique MotionEventId identifying the event. */
   @NonNull
   public MotionEventId track(@NonNull MotionEvent event) {
     MotionEventId eventId = MotionEventId.createUnique();
-    eventById.put(eventId.id, MotionEvent.obtain(event));
-    unusedEvents.add(eventId.id);
+    final int slot = slotFor(eventId.id);
+    if (eventBySlot[slot] != null) {
+      eventBySlot[slot].recycle();
+      evictionCount++;
+    }
+    eventBySlot[slot] = MotionEvent.obtain(event);
+    idBySlot[slot] = eventId.id;
     return eventId;
   }
 
   /**
    * Returns the MotionEvent corresponding to the eventId while discarding all the motion events
    * that occurred prior to the event represented by the eventId. Returns null if this event was
-   * popped or discarded.
+   * popped, discarded or evicted.
+   *
+   * <p>The caller owns the returned event, and should recycle it once done with it.
    */
   @Nullable
   public MotionEvent pop(@NonNull MotionEventId eventId) {
-    // remove all the older events.
-    while (!unusedEvents.isEmpty() && unusedEvents.peek() < eventId.id) {
-      eventById.remove(unusedEvents.poll());
+    discardOlderThan(eventId.id);
+    final int slot = slotFor(eventId.id);
+    final MotionEvent event = eventBySlot[slot];
+    if (event == null || idBySlot[slot] != eventId.id) {
+      missCount++;
+      return null;
     }
+    eventBySlot[slot] = null;
+    return event;
+  }
 
-    // remove the current event from the heap if it exists.
-    if (!unusedEvents.isEmpty() && unusedEvents.peek() == eventId.id) {
-      unusedEvents.poll();
+  /**
+   * Sets the maximum number of events tracked at once. Defaults to {@link #DEFAULT_CAPACITY}.
+   *
+   * <p>If more events than that are currently tracked, the oldest are evicted.
+   *
+   * @throws IllegalArgumentException if {@code capacity} is less than 1.
+   */
+  public void setCapacity(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be at least 1, was " + capacity);
     }
+    final MotionEvent[] oldEvents = eventBySlot;
+    final long[] oldIds = idBySlot;
+    eventBySlot = new MotionEvent[capacity];
+    idBySlot = new long[capacity];
+    for (int i = 0; i < oldEvents.length; i++) {
+      if (oldEvents[i] == null) {
+        continue;
+      }
+      final int slot = slotFor(oldIds[i]);
+      if (eventBySlot[slot] == null) {
+        eventBySlot[slot] = oldEvents[i];
+        idBySlot[slot] = oldIds[i];
+      } else if (idBySlot[slot] < oldIds[i]) {
+        eventBySlot[slot].recycle();
+        evictionCount++;
+        eventBySlot[slot] = oldEvents[i];
+        idBySlot[slot] = oldIds[i];
+      } else {
+        oldEvents[i].recycle();
+        evictionCount++;
+      }
+    }
+  }
 
-    MotionEvent event = eventById.get(eventId.id);
-    eventById.remove(eventId.id);
-    return event;
+  /** Returns the maximum number of events tracked at once. */
+  public int getCapacity() {
+    return eventBySlot.length;
+  }
+
+  /** Returns the number of events evicted because more than the capacity were tracked. */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /** Returns the number of calls to {@link #pop(MotionEventId)} that returned null. */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  private int slotFor(long id) {
+    return (int) (id % eventBySlot.length);
+  }
+
+  private void discardOlderThan(long id) {
+    if (id <= discardedBelowId) {
+      return;
+    }
+    if (id - discardedBelowId >= eventBySlot.length) {
+      // Every slot may hold an older event.
+      for (int slot = 0; slot < eventBySlot.length; slot++) {
+        discardSlotIfOlderThan(slot, id);
+      }
+    } else {
+      // Each ID is only stepped over once, so this is amortized constant time per tracked event.
+      for (long olderId = discardedBelowId; olderId < id; olderId++) {
+        discardSlotIfOlderThan(slotFor(olderId), id);
+      }
+    }
+    discardedBelowId = id;
+  }
+
+  private void discardSlotIfOlderThan(int slot, long id) {
+    if (eventBySlot[slot] != null && idBySlot[slot] < id) {
+      eventBySlot[slot].recycle();
+      eventBySlot[slot] = null;
+    }
   }
 }
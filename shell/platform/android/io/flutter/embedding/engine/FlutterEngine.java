@@ -26,6 +26,7 @@ import io.flutter.embedding.engine.renderer.FlutterRenderer;
 import io.flutter.embedding.engine.renderer.RenderSurface;
 import io.flutter.embedding.engine.systemchannels.AccessibilityChannel;
 import io.flutter.embedding.engine.systemchannels.DeferredComponentChannel;
+import io.flutter.embedding.engine.systemchannels.KeyEventChannel;
 import io.flutter.embedding.engine.systemchannels.LifecycleChannel;
 import io.flutter.embedding.engine.systemchannels.LocalizationChannel;
 import io.flutter.embedding.engine.systemchannels.MouseCursorChannel;
@@ -89,6 +90,7 @@ public class FlutterEngine implements ViewUtils.DisplayUpdater {
   // System channels.
   @NonNull private final AccessibilityChannel accessibilityChannel;
   @NonNull private final DeferredComponentChannel deferredComponentChannel;
+  @NonNull private final KeyEventChannel keyEventChannel;
   @NonNull private final LifecycleChannel lifecycleChannel;
   @NonNull private final LocalizationChannel localizationChannel;
   @NonNull private final MouseCursorChannel mouseCursorChannel;
@@ -118,6 +120,8 @@ public class FlutterEngine implements ViewUtils.DisplayUpdater {
 
           platformViewsController.onPreEngineRestart();
           restorationChannel.clearData();
+          keyEventChannel.resetEncoding();
+          textInputChannel.resetEncoding();
         }
 
         @Override
@@ -324,6 +328,8 @@ public class FlutterEngine implements ViewUtils.DisplayUpdater {
 
     accessibilityChannel = new AccessibilityChannel(dartExecutor, flutterJNI);
     deferredComponentChannel = new DeferredComponentChannel(dartExecutor);
+    keyEventChannel = new KeyEventChannel(dartExecutor);
+    keyEventChannel.setEncodingHandler();
     lifecycleChannel = new LifecycleChannel(dartExecutor);
     localizationChannel = new LocalizationChannel(dartExecutor);
     mouseCursorChannel = new MouseCursorChannel(dartExecutor);
@@ -516,6 +522,12 @@ public class FlutterEngine implements ViewUtils.DisplayUpdater {
     return accessibilityChannel;
   }
 
+  /** System channel that sends key events to Flutter. */
+  @NonNull
+  public KeyEventChannel getKeyEventChannel() {
+    return keyEventChannel;
+  }
+
   /** System channel that sends Android lifecycle events to Flutter. */
   @NonNull
   public LifecycleChannel getLifecycleChannel() {
@@ -4,6 +4,7 @@
 
 package io.flutter.embedding.engine;
 
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.AssetManager;
 import android.graphics.Bitmap;
@@ -20,6 +21,7 @@ import android.view.SurfaceHolder;
 import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 import androidx.annotation.UiThread;
 import androidx.annotation.VisibleForTesting;
 import io.flutter.Log;
@@ -212,7 +214,8 @@ public class FlutterJNI {
   /**
    * This value is updated by the VsyncWaiter when it is initialized.
    *
-   * <p>On API 17+, it is updated whenever the default display refresh rate changes.
+   * <p>On API 17+, it is updated whenever the refresh rate of the display Flutter is rendered on
+   * changes, or Flutter moves to another display.
    *
    * <p>It is defaulted to 60.
    */
@@ -225,6 +228,10 @@ public class FlutterJNI {
   // This is set from native code via JNI.
   @Nullable private static String vmServiceUri;
 
+  // Read by decodeImage on the engine's IO thread. 0 means unbounded.
+  private static volatile int maxDecodedImageWidth = 0;
+  private static volatile int maxDecodedImageHeight = 0;
+
   private native boolean nativeGetIsSoftwareRenderingEnabled();
 
   /**
@@ -274,10 +281,11 @@ public class FlutterJNI {
    * @param refreshRateFPS The refresh rate in nanoseconds.
    */
   public void setRefreshRateFPS(float refreshRateFPS) {
-    // This is ok because it only ever tracks the refresh rate of the main
-    // display. If we ever need to support the refresh rate of other displays
-    // on Android we will need to refactor this. Static lookup makes things a
-    // bit easier on the C++ side.
+    // This is ok because it only ever tracks the refresh rate of a single
+    // display, the one VsyncWaiter considers current. Supporting engines that
+    // render on displays with different refresh rates at the same time would
+    // need the C++ side to track the rate per engine. Static lookup makes
+    // things a bit easier on the C++ side.
     FlutterJNI.refreshRateFPS = refreshRateFPS;
     updateRefreshRate();
   }
@@ -544,12 +552,63 @@ public class FlutterJNI {
   public static native void nativeImageHeaderCallback(
       long imageGeneratorPointer, int width, int height);
 
+  /**
+   * Sets the largest size, in physical pixels, that {@link #decodeImage(ByteBuffer, long)} decodes
+   * images at.
+   *
+   * <p>Images larger than this in either dimension are downsampled by the decoder to fit, keeping
+   * their aspect ratio, so they are never fully decoded into memory. The engine is told the
+   * downsampled size, and sees the image as if it had that size to begin with.
+   *
+   * <p>Pass 0 to leave a dimension unbounded, which is the default.
+   *
+   * @throws IllegalArgumentException if either bound is negative.
+   */
+  public static void setMaxDecodedImageSize(int maxWidth, int maxHeight) {
+    if (maxWidth < 0 || maxHeight < 0) {
+      throw new IllegalArgumentException(
+          "Maximum decoded image size must not be negative, was " + maxWidth + "x" + maxHeight);
+    }
+    maxDecodedImageWidth = maxWidth;
+    maxDecodedImageHeight = maxHeight;
+  }
+
+  /**
+   * Returns the size an image of {@code width} by {@code height} pixels is decoded at, given the
+   * bounds set by {@link #setMaxDecodedImageSize(int, int)}.
+   */
+  @VisibleForTesting
+  @TargetApi(21)
+  @RequiresApi(21)
+  @NonNull
+  static Size getDecodedImageSize(int width, int height) {
+    final int maxWidth = maxDecodedImageWidth;
+    final int maxHeight = maxDecodedImageHeight;
+    double scale = 1.0;
+    if (maxWidth > 0 && width > maxWidth) {
+      scale = Math.min(scale, (double) maxWidth / width);
+    }
+    if (maxHeight > 0 && height > maxHeight) {
+      scale = Math.min(scale, (double) maxHeight / height);
+    }
+    if (scale == 1.0) {
+      return new Size(width, height);
+    }
+    return new Size(
+        Math.max(1, (int) Math.round(width * scale)),
+        Math.max(1, (int) Math.round(height * scale)));
+  }
+
   /**
    * Called by native as a fallback method of image decoding. There are other ways to decode images
    * on lower API levels, they involve copying the native data _and_ do not support any additional
    * formats, whereas ImageDecoder supports HEIF images. Unlike most other methods called from
-   * native, this method is expected to be called on a worker thread, since it only uses thread safe
-   * methods and may take multiple frames to complete.
+   * native, this method is expected to be called on the engine's IO thread, since it only uses
+   * thread safe methods and may take multiple frames to complete. An engine decodes one image at a
+   * time.
+   *
+   * <p>Images larger than the size set by {@link #setMaxDecodedImageSize(int, int)} are decoded
+   * straight to a downsampled bitmap, and the downsampled size is what is reported to native.
    */
   @SuppressWarnings("unused")
   @VisibleForTesting
@@ -570,7 +629,12 @@ public class FlutterJNI {
               decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
 
               Size size = info.getSize();
-              nativeImageHeaderCallback(imageGeneratorAddress, size.getWidth(), size.getHeight());
+              Size decodedSize = getDecodedImageSize(size.getWidth(), size.getHeight());
+              if (!decodedSize.equals(size)) {
+                decoder.setTargetSize(decodedSize.getWidth(), decodedSize.getHeight());
+              }
+              nativeImageHeaderCallback(
+                  imageGeneratorAddress, decodedSize.getWidth(), decodedSize.getHeight());
             });
       } catch (IOException e) {
         Log.e(TAG, "Failed to decode image", e);
@@ -1099,7 +1163,11 @@ public class FlutterJNI {
   private native void nativeDispatchEmptyPlatformMessage(
       long nativeShellHolderId, @NonNull String channel, int responseId);
 
-  /** Sends a reply {@code message} from Android to Flutter over the given {@code channel}. */
+  /**
+   * Sends a reply {@code message} from Android to Flutter over the given {@code channel}.
+   *
+   * <p>The engine copies the first {@code position} bytes of {@code message} before this returns.
+   */
   @UiThread
   public void dispatchPlatformMessage(
       @NonNull String channel, @Nullable ByteBuffer message, int position, int responseId) {
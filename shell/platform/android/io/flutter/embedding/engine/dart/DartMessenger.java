@@ -4,23 +4,34 @@
 
 package io.flutter.embedding.engine.dart;
 
+import android.os.Looper;
+import android.os.Process;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.annotation.UiThread;
 import io.flutter.FlutterInjector;
 import io.flutter.Log;
 import io.flutter.embedding.engine.FlutterJNI;
 import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.plugin.common.BorrowedBufferViews;
 import io.flutter.util.TraceSection;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Message conduit for 2-way communication between Android and Dart.
@@ -38,9 +49,13 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
    * Maps a channel name to an object that contains the task queue and the handler associated with
    * the channel.
    *
-   * <p>Reads and writes to this map must lock {@code handlersLock}.
+   * <p>Writes to this map must lock {@code handlersLock}, so that registering a handler and
+   * draining the messages buffered for its channel happen atomically. Reads may happen without the
+   * lock, which keeps the lookup on every incoming message lock-free; a reader that needs to buffer
+   * a message must take the lock and read again.
    */
-  @NonNull private final Map<String, HandlerInfo> messageHandlers = new HashMap<>();
+  @NonNull
+  private final ConcurrentHashMap<String, HandlerInfo> messageHandlers = new ConcurrentHashMap<>();
 
   /**
    * Maps a channel name to an object that holds information about the incoming Dart message.
@@ -52,8 +67,7 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
   @NonNull private final Object handlersLock = new Object();
   @NonNull private final AtomicBoolean enableBufferingIncomingMessages = new AtomicBoolean(false);
 
-  @NonNull private final Map<Integer, BinaryMessenger.BinaryReply> pendingReplies = new HashMap<>();
-  private int nextReplyId = 1;
+  @NonNull private final PendingReplies pendingReplies = new PendingReplies();
 
   @NonNull private final DartMessengerTaskQueue platformTaskQueue = new PlatformTaskQueue();
 
@@ -82,22 +96,105 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
     DartMessengerTaskQueue makeBackgroundTaskQueue(TaskQueueOptions options);
   }
 
+  /**
+   * Creates task queues on threads that match their {@link TaskQueueOptions.Priority}.
+   *
+   * <p>{@link TaskQueueOptions.Priority#NORMAL} queues share {@link
+   * FlutterInjector#executorService()}. Each other priority gets a pool of its own, created on
+   * first use, so that queues of different priorities never wait on each other's threads. Queues
+   * with dedicated threads get a new pool of that size at their priority.
+   */
   private static class DefaultTaskQueueFactory implements TaskQueueFactory {
+    private static final long DEDICATED_THREAD_KEEP_ALIVE_SECONDS = 30;
+
     ExecutorService executorService;
+    @Nullable private ExecutorService highPriorityExecutorService;
+    @Nullable private ExecutorService lowPriorityExecutorService;
 
     DefaultTaskQueueFactory() {
       executorService = FlutterInjector.instance().executorService();
     }
 
     public DartMessengerTaskQueue makeBackgroundTaskQueue(TaskQueueOptions options) {
+      final ExecutorService executor = executorFor(options);
       if (options.getIsSerial()) {
-        return new SerialTaskQueue(executorService);
+        return new SerialTaskQueue(executor, options.getBatchBudget());
       } else {
-        return new ConcurrentTaskQueue(executorService);
+        return new ConcurrentTaskQueue(executor);
+      }
+    }
+
+    @NonNull
+    private synchronized ExecutorService executorFor(@NonNull TaskQueueOptions options) {
+      final TaskQueueOptions.Priority priority = options.getPriority();
+      if (options.getDedicatedThreadCount() > 0) {
+        final int threadCount = options.getDedicatedThreadCount();
+        final ThreadPoolExecutor dedicated =
+            new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                DEDICATED_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new PriorityThreadFactory(priority));
+        // Lets the pool's threads exit once the queue is no longer in use.
+        dedicated.allowCoreThreadTimeOut(true);
+        return dedicated;
+      }
+      switch (priority) {
+        case HIGH:
+          if (highPriorityExecutorService == null) {
+            highPriorityExecutorService =
+                Executors.newCachedThreadPool(new PriorityThreadFactory(priority));
+          }
+          return highPriorityExecutorService;
+        case LOW:
+          if (lowPriorityExecutorService == null) {
+            lowPriorityExecutorService =
+                Executors.newCachedThreadPool(new PriorityThreadFactory(priority));
+          }
+          return lowPriorityExecutorService;
+        default:
+          return executorService;
       }
     }
   }
 
+  /** Creates named threads that run at the scheduling priority of a task queue. */
+  private static class PriorityThreadFactory implements ThreadFactory {
+    @NonNull private final String namePrefix;
+    private final int threadPriority;
+    @NonNull private final AtomicInteger threadId = new AtomicInteger();
+
+    PriorityThreadFactory(@NonNull TaskQueueOptions.Priority priority) {
+      namePrefix = "flutter-" + priority.name().toLowerCase(Locale.ROOT) + "-worker-";
+      switch (priority) {
+        case HIGH:
+          threadPriority = Process.THREAD_PRIORITY_FOREGROUND;
+          break;
+        case LOW:
+          threadPriority = Process.THREAD_PRIORITY_BACKGROUND;
+          break;
+        default:
+          threadPriority = Process.THREAD_PRIORITY_DEFAULT;
+          break;
+      }
+    }
+
+    @Override
+    public Thread newThread(@NonNull Runnable command) {
+      final Thread thread =
+          new Thread(
+              () -> {
+                // Thread priorities can only be applied reliably from the thread itself.
+                Process.setThreadPriority(threadPriority);
+                command.run();
+              });
+      thread.setName(namePrefix + threadId.getAndIncrement());
+      return thread;
+    }
+  }
+
   /**
    * Holds information about a platform handler, such as the task queue that processes messages from
    * Dart.
@@ -143,43 +240,81 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
     }
   }
 
-  /** A serial task queue that can run on a concurrent ExecutorService. */
+  /**
+   * A serial task queue that can run on a concurrent ExecutorService.
+   *
+   * <p>At most one drain of the queue is scheduled on the executor at a time. Each drain runs up to
+   * {@code batchBudget} tasks before handing the thread back to the executor and rescheduling
+   * itself, so that a burst of messages costs one executor submission per batch rather than per
+   * message, without letting a busy queue monopolize a shared thread.
+   *
+   * <p>If the executor rejects a drain, {@link #dispatch(Runnable)} drops the new task and rethrows
+   * the {@link RejectedExecutionException}. Tasks left over by a rejected reschedule run with the
+   * next drain.
+   */
   static class SerialTaskQueue implements DartMessengerTaskQueue {
     @NonNull private final ExecutorService executor;
     @NonNull private final ConcurrentLinkedQueue<Runnable> queue;
-    @NonNull private final AtomicBoolean isRunning;
+    @NonNull private final AtomicBoolean isScheduled;
+    @NonNull private final Runnable drainRunnable;
+    private final int batchBudget;
 
     SerialTaskQueue(ExecutorService executor) {
+      this(executor, TaskQueueOptions.DEFAULT_BATCH_BUDGET);
+    }
+
+    SerialTaskQueue(ExecutorService executor, int batchBudget) {
       this.executor = executor;
+      this.batchBudget = batchBudget;
       queue = new ConcurrentLinkedQueue<>();
-      isRunning = new AtomicBoolean(false);
+      isScheduled = new AtomicBoolean(false);
+      drainRunnable = () -> drain();
     }
 
     @Override
     public void dispatch(@NonNull Runnable runnable) {
       queue.add(runnable);
-      executor.execute(
-          () -> {
-            flush();
-          });
+      try {
+        scheduleDrain();
+      } catch (RejectedExecutionException e) {
+        // No drain is scheduled, so the task can't have started.
+        queue.remove(runnable);
+        throw e;
+      }
     }
 
-    private void flush() {
-      // Don't execute if we are already executing (enforce serial execution).
-      if (isRunning.compareAndSet(false, true)) {
+    private void scheduleDrain() {
+      // Only one drain may be scheduled or running at a time (enforce serial execution).
+      if (isScheduled.compareAndSet(false, true)) {
         try {
+          executor.execute(drainRunnable);
+        } catch (RejectedExecutionException e) {
+          // Otherwise no drain would ever be scheduled again.
+          isScheduled.set(false);
+          throw e;
+        }
+      }
+    }
+
+    private void drain() {
+      try {
+        for (int i = 0; i < batchBudget; i++) {
           @Nullable Runnable runnable = queue.poll();
-          if (runnable != null) {
-            runnable.run();
+          if (runnable == null) {
+            break;
           }
-        } finally {
-          isRunning.set(false);
-          if (!queue.isEmpty()) {
-            // Schedule the next event.
-            executor.execute(
-                () -> {
-                  flush();
-                });
+          runnable.run();
+        }
+      } finally {
+        isScheduled.set(false);
+        // Tasks dispatched after the last poll saw the drain as still scheduled, so it is up to
+        // this drain to schedule the next one.
+        if (!queue.isEmpty()) {
+          try {
+            scheduleDrain();
+          } catch (RejectedExecutionException e) {
+            Log.e(
+                TAG, "Could not schedule the rest of a task queue; it runs with the next task.", e);
           }
         }
       }
@@ -222,17 +357,17 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
     }
     Log.v(TAG, "Setting handler for channel '" + channel + "'");
 
+    final HandlerInfo handlerInfo = new HandlerInfo(handler, dartMessengerTaskQueue);
     List<BufferedMessageInfo> list;
     synchronized (handlersLock) {
-      messageHandlers.put(channel, new HandlerInfo(handler, dartMessengerTaskQueue));
+      messageHandlers.put(channel, handlerInfo);
       list = bufferedMessages.remove(channel);
       if (list == null) {
         return;
       }
     }
     for (BufferedMessageInfo info : list) {
-      dispatchMessageToQueue(
-          channel, messageHandlers.get(channel), info.message, info.replyId, info.messageData);
+      dispatchMessageToQueue(channel, handlerInfo, info.message, info.replyId, info.messageData);
     }
   }
 
@@ -258,7 +393,6 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
   }
 
   @Override
-  @UiThread
   public void send(@NonNull String channel, @NonNull ByteBuffer message) {
     Log.v(TAG, "Sending message over channel '" + channel + "'");
     send(channel, message, null);
@@ -272,20 +406,45 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
     TraceSection.begin("DartMessenger#send on " + channel);
     try {
       Log.v(TAG, "Sending message with callback over channel '" + channel + "'");
-      int replyId = nextReplyId++;
+      final int replyId = pendingReplies.nextReplyId();
       if (callback != null) {
         pendingReplies.put(replyId, callback);
       }
-      if (message == null) {
-        flutterJNI.dispatchEmptyPlatformMessage(channel, replyId);
+      if (Looper.myLooper() == Looper.getMainLooper()) {
+        dispatchToDart(channel, message, replyId);
       } else {
-        flutterJNI.dispatchPlatformMessage(channel, message, message.position(), replyId);
+        // The engine only accepts messages on the platform thread. The reply is already
+        // registered, so only the JNI call has to hop; the message is copied since the caller may
+        // reuse its buffer as soon as this returns.
+        final ByteBuffer messageCopy = message == null ? null : copyMessage(message);
+        platformTaskQueue.dispatch(() -> dispatchToDart(channel, messageCopy, replyId));
       }
     } finally {
       TraceSection.end();
     }
   }
 
+  private void dispatchToDart(@NonNull String channel, @Nullable ByteBuffer message, int replyId) {
+    if (message == null) {
+      flutterJNI.dispatchEmptyPlatformMessage(channel, replyId);
+    } else {
+      flutterJNI.dispatchPlatformMessage(channel, message, message.position(), replyId);
+    }
+  }
+
+  /**
+   * Returns a direct copy of the first {@code message.position()} bytes of {@code message}, with
+   * its position at the end of the copied bytes.
+   */
+  @NonNull
+  private static ByteBuffer copyMessage(@NonNull ByteBuffer message) {
+    final ByteBuffer source = message.duplicate();
+    source.flip();
+    final ByteBuffer copy = ByteBuffer.allocateDirect(source.remaining());
+    copy.put(source);
+    return copy;
+  }
+
   private void invokeHandler(
       @Nullable HandlerInfo handlerInfo, @Nullable ByteBuffer message, final int replyId) {
     // Called from any thread.
@@ -318,6 +477,7 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
         () -> {
           TraceSection.endAsyncSection("PlatformChannel ScheduleHandler on " + channel, replyId);
           TraceSection.begin("DartMessenger#handleMessageFromDart on " + channel);
+          final int viewsMark = BorrowedBufferViews.begin();
           try {
             invokeHandler(handlerInfo, message, replyId);
             if (message != null && message.isDirect()) {
@@ -326,6 +486,8 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
               message.limit(0);
             }
           } finally {
+            // Same as above, for views over the message created by zero-copy codecs.
+            BorrowedBufferViews.end(viewsMark);
             // This is deleting the data underneath the message object.
             flutterJNI.cleanupMessageData(messageData);
             TraceSection.end();
@@ -342,11 +504,17 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
     // Called from any thread.
     Log.v(TAG, "Received message from Dart over channel '" + channel + "'");
 
-    HandlerInfo handlerInfo;
+    // Lock-free fast path: the handler is registered, or messages are not being buffered.
+    HandlerInfo handlerInfo = messageHandlers.get(channel);
+    if (handlerInfo != null || !enableBufferingIncomingMessages.get()) {
+      dispatchMessageToQueue(channel, handlerInfo, message, replyId, messageData);
+      return;
+    }
+
     boolean messageDeferred;
-    // This lock can potentially be a bottleneck and could replaced with a
-    // read/write lock.
     synchronized (handlersLock) {
+      // Read again under the lock, since a handler may have been registered or buffering disabled
+      // since the lock-free read above.
       handlerInfo = messageHandlers.get(channel);
       messageDeferred = (enableBufferingIncomingMessages.get() && handlerInfo == null);
       if (messageDeferred) {
@@ -375,6 +543,7 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
     Log.v(TAG, "Received message reply from Dart.");
     BinaryMessenger.BinaryReply callback = pendingReplies.remove(replyId);
     if (callback != null) {
+      final int viewsMark = BorrowedBufferViews.begin();
       try {
         Log.v(TAG, "Invoking registered callback for reply from Dart.");
         callback.reply(reply);
@@ -387,6 +556,8 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
         Log.e(TAG, "Uncaught exception in binary message reply handler", ex);
       } catch (Error err) {
         handleError(err);
+      } finally {
+        BorrowedBufferViews.end(viewsMark);
       }
     }
   }
@@ -398,11 +569,9 @@ class DartMessenger implements BinaryMessenger, PlatformMessageHandler {
    * ByteBuffer, io.flutter.plugin.common.BinaryMessenger.BinaryReply)}, developers can optionally
    * specify a reply callback if they expect a reply from the Flutter application.
    *
-   * <p>This method tracks all the pending callbacks that are waiting for response, and is supposed
-   * to be called from the main thread (as other methods). Calling from a different thread could
-   * possibly capture an indeterministic internal state, so don't do it.
+   * <p>This method tracks all the pending callbacks that are waiting for response, and may be
+   * called from any thread.
    */
-  @UiThread
   public int getPendingChannelResponseCount() {
     return pendingReplies.size();
   }
@@ -0,0 +1,123 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.dart;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import io.flutter.plugin.common.BinaryMessenger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe table of the {@link BinaryMessenger.BinaryReply} callbacks waiting for a response
+ * from Dart, keyed by reply ID.
+ *
+ * <p>Reply IDs are handed out by {@link #nextReplyId()} from an atomic counter, and stored unboxed
+ * in an open-addressing table with linear probing. Since IDs are sequential, indexing by the low
+ * bits of the ID spreads live entries evenly without further hashing. Every operation holds the
+ * table's monitor only for a handful of array accesses.
+ */
+final class PendingReplies {
+  private static final int INITIAL_CAPACITY = 16;
+
+  @NonNull private final AtomicInteger nextReplyId = new AtomicInteger(1);
+
+  // Guarded by this. A slot is empty iff its value is null.
+  @NonNull private int[] keys = new int[INITIAL_CAPACITY];
+
+  @NonNull
+  private BinaryMessenger.BinaryReply[] values = new BinaryMessenger.BinaryReply[INITIAL_CAPACITY];
+
+  private int size;
+
+  /**
+   * Returns a new reply ID. IDs are never 0, which the engine reserves for messages that expect no
+   * reply.
+   */
+  int nextReplyId() {
+    int replyId;
+    do {
+      replyId = nextReplyId.getAndIncrement();
+    } while (replyId == 0);
+    return replyId;
+  }
+
+  /** Registers {@code reply} to be returned by {@link #remove(int)} for {@code replyId}. */
+  synchronized void put(int replyId, @NonNull BinaryMessenger.BinaryReply reply) {
+    if (2 * (size + 1) > keys.length) {
+      resize(2 * keys.length);
+    }
+    final int mask = keys.length - 1;
+    int index = replyId & mask;
+    while (values[index] != null) {
+      if (keys[index] == replyId) {
+        values[index] = reply;
+        return;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = replyId;
+    values[index] = reply;
+    size++;
+  }
+
+  /** Removes and returns the callback registered for {@code replyId}, if any. */
+  @Nullable
+  synchronized BinaryMessenger.BinaryReply remove(int replyId) {
+    final int mask = keys.length - 1;
+    int index = replyId & mask;
+    while (values[index] != null) {
+      if (keys[index] == replyId) {
+        final BinaryMessenger.BinaryReply reply = values[index];
+        deleteSlot(index);
+        size--;
+        return reply;
+      }
+      index = (index + 1) & mask;
+    }
+    return null;
+  }
+
+  /** Returns the number of callbacks waiting for a reply. */
+  synchronized int size() {
+    return size;
+  }
+
+  // Backward-shift deletion: moves later entries of the same probe run into the freed slot so that
+  // lookups never need tombstones.
+  private void deleteSlot(int index) {
+    final int mask = keys.length - 1;
+    int free = index;
+    int next = (free + 1) & mask;
+    while (values[next] != null) {
+      final int home = keys[next] & mask;
+      // Move the entry if its home slot is not in the cyclic range (free, next].
+      if (((next - home) & mask) >= ((next - free) & mask)) {
+        keys[free] = keys[next];
+        values[free] = values[next];
+        free = next;
+      }
+      next = (next + 1) & mask;
+    }
+    values[free] = null;
+  }
+
+  private void resize(int capacity) {
+    final int[] oldKeys = keys;
+    final BinaryMessenger.BinaryReply[] oldValues = values;
+    keys = new int[capacity];
+    values = new BinaryMessenger.BinaryReply[capacity];
+    final int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        int index = oldKeys[i] & mask;
+        while (values[index] != null) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+}
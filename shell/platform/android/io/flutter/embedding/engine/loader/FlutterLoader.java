@@ -28,6 +28,9 @@ import io.flutter.util.PathUtils;
 import io.flutter.util.TraceSection;
 import io.flutter.view.VsyncWaiter;
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -108,6 +111,7 @@ public class FlutterLoader {
   private boolean initialized = false;
   @Nullable private Settings settings;
   private long initStartTimestampMillis;
+  @Nullable private StartupTimeline.Recorder timelineRecorder;
   private FlutterApplicationInfo flutterApplicationInfo;
   private FlutterJNI flutterJNI;
   private ExecutorService executorService;
@@ -155,6 +159,9 @@ public class FlutterLoader {
       throw new IllegalStateException("startInitialization must be called on the main thread");
     }
 
+    final long startTimeNanos = System.nanoTime();
+    final StartupTimeline.Recorder timeline = new StartupTimeline.Recorder(startTimeNanos);
+    timelineRecorder = timeline;
     TraceSection.begin("FlutterLoader#startInitialization");
     try {
       // Ensure that the context is actually the application context.
@@ -164,7 +171,9 @@ public class FlutterLoader {
 
       initStartTimestampMillis = SystemClock.uptimeMillis();
       flutterApplicationInfo = ApplicationInfoLoader.load(appContext);
+      timeline.recordPhase(StartupTimeline.Phase.LOAD_APPLICATION_INFO, startTimeNanos);
 
+      final long vsyncStartTimeNanos = System.nanoTime();
       VsyncWaiter waiter;
       if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 /* 17 */) {
         final DisplayManager dm =
@@ -178,6 +187,7 @@ public class FlutterLoader {
         waiter = VsyncWaiter.getInstance(fps, flutterJNI);
       }
       waiter.init();
+      timeline.recordPhase(StartupTimeline.Phase.INIT_VSYNC_WAITER, vsyncStartTimeNanos);
 
       // Use a background thread for initialization tasks that require disk access.
       Callable<InitResult> initTask =
@@ -188,15 +198,32 @@ public class FlutterLoader {
               try {
                 ResourceExtractor resourceExtractor = initResources(appContext);
 
+                final long loadStartTimeNanos = System.nanoTime();
                 flutterJNI.loadLibrary();
+                timeline.recordPhase(StartupTimeline.Phase.LOAD_LIBRARY, loadStartTimeNanos);
                 flutterJNI.updateRefreshRate();
 
                 // Prefetch the default font manager as soon as possible on a background thread.
                 // It helps to reduce time cost of engine setup that blocks the platform thread.
-                executorService.execute(() -> flutterJNI.prefetchDefaultFontManager());
+                executorService.execute(
+                    () -> {
+                      final long prefetchStartTimeNanos = System.nanoTime();
+                      flutterJNI.prefetchDefaultFontManager();
+                      timeline.recordPhase(
+                          StartupTimeline.Phase.PREFETCH_FONT_MANAGER, prefetchStartTimeNanos);
+                    });
 
                 if (resourceExtractor != null) {
+                  final long waitStartTimeNanos = System.nanoTime();
                   resourceExtractor.waitForCompletion();
+                  timeline.recordPhase(
+                      StartupTimeline.Phase.WAIT_FOR_RESOURCES, waitStartTimeNanos);
+                  // The extraction ran in parallel with loading the library, so record when it
+                  // actually ran rather than when it was waited for.
+                  timeline.recordPhase(
+                      StartupTimeline.Phase.EXTRACT_RESOURCES,
+                      resourceExtractor.getStartTimeNanos(),
+                      resourceExtractor.getCompletionTimeNanos());
                 }
 
                 return new InitResult(
@@ -210,6 +237,7 @@ public class FlutterLoader {
           };
       initResultFuture = executorService.submit(initTask);
     } finally {
+      timeline.recordMainThreadBlocked(startTimeNanos);
       TraceSection.end();
     }
   }
@@ -243,9 +271,13 @@ public class FlutterLoader {
           "ensureInitializationComplete must be called after startInitialization");
     }
 
+    final long startTimeNanos = System.nanoTime();
     TraceSection.begin("FlutterLoader#ensureInitializationComplete");
     try {
       InitResult result = initResultFuture.get();
+      final long metadataStartTimeNanos = System.nanoTime();
+      timelineRecorder.recordPhase(
+          StartupTimeline.Phase.WAIT_FOR_INITIALIZATION, startTimeNanos, metadataStartTimeNanos);
 
       List<String> shellArgs = new ArrayList<>();
       shellArgs.add("--icu-symbol-prefix=_binary_icudtl_dat");
@@ -346,6 +378,9 @@ public class FlutterLoader {
 
       long initTimeMillis = SystemClock.uptimeMillis() - initStartTimestampMillis;
 
+      final long engineStartTimeNanos = System.nanoTime();
+      timelineRecorder.recordPhase(
+          StartupTimeline.Phase.READ_METADATA, metadataStartTimeNanos, engineStartTimeNanos);
       flutterJNI.init(
           applicationContext,
           shellArgs.toArray(new String[0]),
@@ -353,14 +388,47 @@ public class FlutterLoader {
           result.appStoragePath,
           result.engineCachesPath,
           initTimeMillis);
+      timelineRecorder.recordPhase(StartupTimeline.Phase.INIT_ENGINE, engineStartTimeNanos);
 
       initialized = true;
     } catch (Exception e) {
       Log.e(TAG, "Flutter initialization failed.", e);
       throw new RuntimeException(e);
     } finally {
+      timelineRecorder.recordMainThreadBlocked(startTimeNanos);
       TraceSection.end();
     }
+    timelineRecorder.recordComplete();
+    persistStartupTimeline();
+  }
+
+  /**
+   * Returns the timeline of initialization so far, or null if {@link #startInitialization} has not
+   * been called.
+   *
+   * <p>Background phases may still be recorded after {@link #ensureInitializationComplete} returns,
+   * so later calls can return a more complete timeline.
+   */
+  @Nullable
+  public StartupTimeline getStartupTimeline() {
+    return timelineRecorder == null ? null : timelineRecorder.snapshot();
+  }
+
+  // Writes the startup timeline to the file from the settings, if any, in the background.
+  private void persistStartupTimeline() {
+    final File file = settings.getStartupTimelineFile();
+    if (file == null) {
+      return;
+    }
+    final StartupTimeline.Recorder timeline = timelineRecorder;
+    executorService.execute(
+        () -> {
+          try (Writer writer = new FileWriter(file)) {
+            writer.write(timeline.snapshot().toJson());
+          } catch (IOException e) {
+            Log.w(TAG, "Failed to write the startup timeline to " + file, e);
+          }
+        });
   }
 
   private static boolean isLeakVM(@Nullable Bundle metaData) {
@@ -424,7 +492,8 @@ public class FlutterLoader {
       final PackageManager packageManager = applicationContext.getPackageManager();
       final AssetManager assetManager = applicationContext.getResources().getAssets();
       resourceExtractor =
-          new ResourceExtractor(dataDirPath, packageName, packageManager, assetManager);
+          new ResourceExtractor(
+              dataDirPath, packageName, packageManager, assetManager, executorService);
 
       // In debug/JIT mode these assets will be written to disk and then
       // mapped into memory so they can be provided to the Dart VM.
@@ -482,6 +551,7 @@ public class FlutterLoader {
 
   public static class Settings {
     private String logTag;
+    @Nullable private File startupTimelineFile;
 
     @Nullable
     public String getLogTag() {
@@ -496,5 +566,21 @@ public class FlutterLoader {
     public void setLogTag(String tag) {
       logTag = tag;
     }
+
+    @Nullable
+    public File getStartupTimelineFile() {
+      return startupTimelineFile;
+    }
+
+    /**
+     * Set a file that the {@link StartupTimeline} is written to as JSON, in the background, once
+     * initialization completes. It can be read back with {@link StartupTimeline#fromJson(String)},
+     * for example to report it on the next launch.
+     *
+     * @param file The file to overwrite, or null to not persist the timeline.
+     */
+    public void setStartupTimelineFile(@Nullable File file) {
+      startupTimelineFile = file;
+    }
   }
 }
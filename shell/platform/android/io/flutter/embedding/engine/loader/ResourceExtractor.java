@@ -8,24 +8,45 @@ import static java.util.Arrays.asList;
 
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
-import android.os.AsyncTask;
 import android.os.Build;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import io.flutter.BuildConfig;
 import io.flutter.Log;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
-
-/** A class to initialize the native code. */
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A class to initialize the native code.
+ *
+ * <p>Resources are extracted in parallel on the given executor. Alongside the extracted files, a
+ * manifest records the length and SHA-256 hash of each one, so that when the app is updated only
+ * the resources whose content changed are written again.
+ */
 class ResourceExtractor {
   private static final String TAG = "ResourceExtractor";
   private static final String TIMESTAMP_PREFIX = "res_timestamp-";
+  @VisibleForTesting static final String MANIFEST_FILE = "res_manifest";
+  private static final int BUFFER_SIZE = 64 * 1024;
   private static final String[] SUPPORTED_ABIS = getSupportedAbis();
 
   @SuppressWarnings("deprecation")
@@ -38,28 +59,42 @@ class ResourceExtractor {
     }
   }
 
-  private static class ExtractTask extends AsyncTask<Void, Void, Void> {
+  /** The length and content hash of an extracted resource, as recorded in the manifest. */
+  private static class ManifestEntry {
+    @NonNull final String digest;
+    final long length;
+
+    ManifestEntry(@NonNull String digest, long length) {
+      this.digest = digest;
+      this.length = length;
+    }
+  }
+
+  private static class ExtractTask implements Callable<Void> {
     @NonNull private final String mDataDirPath;
     @NonNull private final HashSet<String> mResources;
     @NonNull private final AssetManager mAssetManager;
     @NonNull private final String mPackageName;
     @NonNull private final PackageManager mPackageManager;
+    @NonNull private final ExecutorService mExecutorService;
 
     ExtractTask(
         @NonNull String dataDirPath,
         @NonNull HashSet<String> resources,
         @NonNull String packageName,
         @NonNull PackageManager packageManager,
-        @NonNull AssetManager assetManager) {
+        @NonNull AssetManager assetManager,
+        @NonNull ExecutorService executorService) {
       mDataDirPath = dataDirPath;
       mResources = resources;
       mAssetManager = assetManager;
       mPackageName = packageName;
       mPackageManager = packageManager;
+      mExecutorService = executorService;
     }
 
     @Override
-    protected Void doInBackground(Void... unused) {
+    public Void call() {
       final File dataDir = new File(mDataDirPath);
 
       final String timestamp = checkTimestamp(dataDir, mPackageManager, mPackageName);
@@ -67,56 +102,196 @@ class ResourceExtractor {
         return null;
       }
 
-      deleteFiles(mDataDirPath, mResources);
+      // Until the new manifest and timestamp are written, the extracted files are not trusted.
+      final HashMap<String, ManifestEntry> extracted = readManifest(dataDir);
+      deleteMetadata(dataDir);
 
-      if (!extractAPK(dataDir)) {
+      final String manifest = extractAPK(dataDir, extracted);
+      if (manifest == null) {
         return null;
       }
 
-      if (timestamp != null) {
-        try {
-          new File(dataDir, timestamp).createNewFile();
-        } catch (IOException e) {
-          Log.w(TAG, "Failed to write resource timestamp");
-        }
+      try (Writer writer = new FileWriter(new File(dataDir, MANIFEST_FILE))) {
+        writer.write(manifest);
+      } catch (IOException e) {
+        Log.w(TAG, "Failed to write resource manifest");
+      }
+
+      try {
+        new File(dataDir, timestamp).createNewFile();
+      } catch (IOException e) {
+        Log.w(TAG, "Failed to write resource timestamp");
       }
 
       return null;
     }
 
-    /// Returns true if successfully unpacked APK resources,
-    /// otherwise deletes all resources and returns false.
+    /// Returns the manifest of the APK resources if they were successfully unpacked,
+    /// otherwise deletes all resources and returns null.
     @WorkerThread
-    private boolean extractAPK(@NonNull File dataDir) {
+    @Nullable
+    private String extractAPK(
+        @NonNull File dataDir, @NonNull HashMap<String, ManifestEntry> extracted) {
+      final ArrayList<FutureTask<String>> tasks = new ArrayList<>(mResources.size());
       for (String asset : mResources) {
+        final ManifestEntry entry = extracted.get(asset);
+        final FutureTask<String> task =
+            new FutureTask<>(() -> extractResource(dataDir, asset, entry));
+        tasks.add(task);
         try {
-          final String resource = "assets/" + asset;
-          final File output = new File(dataDir, asset);
-          if (output.exists()) {
-            continue;
-          }
-          if (output.getParentFile() != null) {
-            output.getParentFile().mkdirs();
+          mExecutorService.execute(task);
+        } catch (RejectedExecutionException e) {
+          // Runs on this thread below.
+        }
+      }
+
+      final StringBuilder manifest = new StringBuilder();
+      Throwable failure = null;
+      boolean interrupted = false;
+      for (FutureTask<String> task : tasks) {
+        // Runs the task on this thread if the executor has not started it yet, so that extraction
+        // never waits for a busy executor. Does nothing if the task already started.
+        task.run();
+        while (true) {
+          try {
+            final String line = task.get();
+            if (line != null) {
+              manifest.append(line).append('\n');
+            }
+            break;
+          } catch (ExecutionException e) {
+            failure = e.getCause();
+            break;
+          } catch (InterruptedException e) {
+            // Files may still be written by the task, so keep waiting for it.
+            interrupted = true;
           }
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
 
-          try (InputStream is = mAssetManager.open(asset);
-              OutputStream os = new FileOutputStream(output)) {
-            copy(is, os);
+      if (failure != null) {
+        Log.w(TAG, "Exception unpacking resources: " + failure.getMessage());
+        deleteFiles(mDataDirPath, mResources);
+        return null;
+      }
+      return manifest.toString();
+    }
+
+    /// Extracts an asset, unless a previous extraction with the same content is found, and
+    /// returns its manifest line. Returns null and deletes any previous extraction if the asset
+    /// does not exist.
+    @WorkerThread
+    @Nullable
+    private String extractResource(
+        @NonNull File dataDir, @NonNull String asset, @Nullable ManifestEntry extracted)
+        throws IOException {
+      final String resource = "assets/" + asset;
+      final File output = new File(dataDir, asset);
+      final ReadableByteChannel source;
+      try {
+        source = Channels.newChannel(mAssetManager.open(asset));
+      } catch (FileNotFoundException fnfe) {
+        if (output.exists()) {
+          output.delete();
+        }
+        return null;
+      }
+
+      if (extracted != null && output.isFile() && output.length() == extracted.length) {
+        final ManifestEntry entry = hash(source);
+        if (entry.length == extracted.length && entry.digest.equals(extracted.digest)) {
+          if (BuildConfig.DEBUG) {
+            Log.i(TAG, "Kept unchanged resource " + resource);
           }
+        } else {
+          transfer(asset, output);
           if (BuildConfig.DEBUG) {
-            Log.i(TAG, "Extracted baseline resource " + resource);
+            Log.i(TAG, "Extracted changed resource " + resource);
           }
-        } catch (FileNotFoundException fnfe) {
-          continue;
+        }
+        return manifestLine(asset, entry);
+      }
+
+      if (output.getParentFile() != null) {
+        output.getParentFile().mkdirs();
+      }
+      final ManifestEntry entry = copyAndHash(source, output);
+      if (BuildConfig.DEBUG) {
+        Log.i(TAG, "Extracted baseline resource " + resource);
+      }
+      return manifestLine(asset, entry);
+    }
 
-        } catch (IOException ioe) {
-          Log.w(TAG, "Exception unpacking resources: " + ioe.getMessage());
-          deleteFiles(mDataDirPath, mResources);
-          return false;
+    /** Hashes the content of {@code source}, and closes it. */
+    @NonNull
+    private static ManifestEntry hash(@NonNull ReadableByteChannel source) throws IOException {
+      final MessageDigest digest = newDigest();
+      long length = 0;
+      try (ReadableByteChannel input = source) {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (int count; (count = input.read(buffer)) >= 0; ) {
+          length += count;
+          buffer.flip();
+          digest.update(buffer);
+          buffer.clear();
         }
       }
+      return new ManifestEntry(toHex(digest.digest()), length);
+    }
 
-      return true;
+    /** Copies the content of {@code source} to {@code output}, hashing it on the way. */
+    @NonNull
+    private static ManifestEntry copyAndHash(
+        @NonNull ReadableByteChannel source, @NonNull File output) throws IOException {
+      final MessageDigest digest = newDigest();
+      long length = 0;
+      try (ReadableByteChannel input = source;
+          FileChannel destination = new FileOutputStream(output).getChannel()) {
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (input.read(buffer) >= 0) {
+          buffer.flip();
+          digest.update(buffer.array(), 0, buffer.limit());
+          while (buffer.hasRemaining()) {
+            length += destination.write(buffer);
+          }
+          buffer.clear();
+        }
+      }
+      return new ManifestEntry(toHex(digest.digest()), length);
+    }
+
+    /**
+     * Copies the asset to {@code output} with {@link FileChannel#transferTo}, which lets the kernel
+     * copy the bytes. Falls back to {@link #copyAndHash} for compressed assets, which cannot be
+     * opened as a file descriptor.
+     */
+    private void transfer(@NonNull String asset, @NonNull File output) throws IOException {
+      final AssetFileDescriptor fd;
+      try {
+        fd = mAssetManager.openFd(asset);
+      } catch (FileNotFoundException e) {
+        copyAndHash(Channels.newChannel(mAssetManager.open(asset)), output);
+        return;
+      }
+      try (FileChannel source = fd.createInputStream().getChannel();
+          FileChannel destination = new FileOutputStream(output).getChannel()) {
+        final long start = fd.getStartOffset();
+        final long length = fd.getLength();
+        long transferred = 0;
+        while (transferred < length) {
+          final long count =
+              source.transferTo(start + transferred, length - transferred, destination);
+          if (count <= 0) {
+            throw new IOException("Unexpected end of asset " + asset);
+          }
+          transferred += count;
+        }
+      } finally {
+        fd.close();
+      }
     }
   }
 
@@ -124,18 +299,24 @@ class ResourceExtractor {
   @NonNull private final String mPackageName;
   @NonNull private final PackageManager mPackageManager;
   @NonNull private final AssetManager mAssetManager;
+  @NonNull private final ExecutorService mExecutorService;
   @NonNull private final HashSet<String> mResources;
-  private ExtractTask mExtractTask;
+  private FutureTask<Void> mExtractTask;
+  // The System.nanoTime() at which mExtractTask started and finished running.
+  private long mStartTimeNanos;
+  private long mCompletionTimeNanos;
 
   ResourceExtractor(
       @NonNull String dataDirPath,
       @NonNull String packageName,
       @NonNull PackageManager packageManager,
-      @NonNull AssetManager assetManager) {
+      @NonNull AssetManager assetManager,
+      @NonNull ExecutorService executorService) {
     mDataDirPath = dataDirPath;
     mPackageName = packageName;
     mPackageManager = packageManager;
     mAssetManager = assetManager;
+    mExecutorService = executorService;
     mResources = new HashSet<>();
   }
 
@@ -154,9 +335,29 @@ class ResourceExtractor {
       Log.e(
           TAG, "Attempted to start resource extraction while another extraction was in progress.");
     }
+    final ExtractTask extractTask =
+        new ExtractTask(
+            mDataDirPath,
+            mResources,
+            mPackageName,
+            mPackageManager,
+            mAssetManager,
+            mExecutorService);
     mExtractTask =
-        new ExtractTask(mDataDirPath, mResources, mPackageName, mPackageManager, mAssetManager);
-    mExtractTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+        new FutureTask<>(
+            () -> {
+              mStartTimeNanos = System.nanoTime();
+              try {
+                return extractTask.call();
+              } finally {
+                mCompletionTimeNanos = System.nanoTime();
+              }
+            });
+    try {
+      mExecutorService.execute(mExtractTask);
+    } catch (RejectedExecutionException e) {
+      // Runs in waitForCompletion.
+    }
     return this;
   }
 
@@ -165,6 +366,9 @@ class ResourceExtractor {
       return;
     }
 
+    // Runs the extraction on this thread if the executor has not started it yet, for example
+    // because every thread is busy waiting for it.
+    mExtractTask.run();
     try {
       mExtractTask.get();
     } catch (CancellationException | ExecutionException | InterruptedException e) {
@@ -172,6 +376,23 @@ class ResourceExtractor {
     }
   }
 
+  /**
+   * Returns the {@link System#nanoTime()} at which the extraction started running, which may be
+   * later than the call to {@link #start()} if the executor was busy. Only valid once {@link
+   * #waitForCompletion()} has returned.
+   */
+  long getStartTimeNanos() {
+    return mStartTimeNanos;
+  }
+
+  /**
+   * Returns the {@link System#nanoTime()} at which the extraction finished, which may be earlier
+   * than the return of {@link #waitForCompletion()}. Only valid once it has returned.
+   */
+  long getCompletionTimeNanos() {
+    return mCompletionTimeNanos;
+  }
+
   private static String[] getExistingTimestamps(File dataDir) {
     return dataDir.list(
         new FilenameFilter() {
@@ -190,6 +411,11 @@ class ResourceExtractor {
         file.delete();
       }
     }
+    deleteMetadata(dataDir);
+  }
+
+  private static void deleteMetadata(@NonNull File dataDir) {
+    new File(dataDir, MANIFEST_FILE).delete();
     final String[] existingTimestamps = getExistingTimestamps(dataDir);
     if (existingTimestamps == null) {
       return;
@@ -199,6 +425,49 @@ class ResourceExtractor {
     }
   }
 
+  // Returns the entries of the manifest of previously extracted resources, or none if there is no
+  // valid manifest.
+  @NonNull
+  private static HashMap<String, ManifestEntry> readManifest(@NonNull File dataDir) {
+    final HashMap<String, ManifestEntry> entries = new HashMap<>();
+    try (BufferedReader reader =
+        new BufferedReader(new FileReader(new File(dataDir, MANIFEST_FILE)))) {
+      for (String line; (line = reader.readLine()) != null; ) {
+        final String[] fields = line.split(" ", 3);
+        if (fields.length != 3) {
+          throw new IOException("Malformed manifest line: " + line);
+        }
+        entries.put(fields[2], new ManifestEntry(fields[0], Long.parseLong(fields[1])));
+      }
+    } catch (IOException | NumberFormatException e) {
+      entries.clear();
+    }
+    return entries;
+  }
+
+  @NonNull
+  private static String manifestLine(@NonNull String asset, @NonNull ManifestEntry entry) {
+    return entry.digest + " " + entry.length + " " + asset;
+  }
+
+  @NonNull
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("SHA-256 unsupported");
+    }
+  }
+
+  @NonNull
+  private static String toHex(@NonNull byte[] bytes) {
+    final StringBuilder hex = new StringBuilder(2 * bytes.length);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
   // Returns null if extracted resources are found and match the current APK version
   // and update version if any, otherwise returns the current APK and update version.
   private static String checkTimestamp(
@@ -243,13 +512,6 @@ class ResourceExtractor {
     return null;
   }
 
-  private static void copy(@NonNull InputStream in, @NonNull OutputStream out) throws IOException {
-    byte[] buf = new byte[16 * 1024];
-    for (int i; (i = in.read(buf)) >= 0; ) {
-      out.write(buf, 0, i);
-    }
-  }
-
   @SuppressWarnings("deprecation")
   private static String[] getSupportedAbis() {
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
@@ -0,0 +1,199 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.loader;
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * When each phase of {@link FlutterLoader} initialization started and how long it took, and how
+ * long initialization blocked the main thread.
+ *
+ * <p>Times are in nanoseconds, and start times are relative to the call to {@link
+ * FlutterLoader#startInitialization}. Phases that run on background threads may overlap each other
+ * and the main thread phases. Phases that did not run, such as {@link Phase#EXTRACT_RESOURCES} in
+ * release builds, or have not finished yet, are {@link #NOT_RECORDED}.
+ *
+ * <p>A timeline is an immutable snapshot, returned by {@link FlutterLoader#getStartupTimeline()}.
+ * It can be converted to and from JSON, for example to be reported by field analytics.
+ */
+public final class StartupTimeline {
+  /** The value of the times of a phase that was not recorded. */
+  public static final long NOT_RECORDED = -1;
+
+  /** A phase of initialization. */
+  public enum Phase {
+    /** Reading the Flutter settings of the app from its manifest, on the main thread. */
+    LOAD_APPLICATION_INFO,
+    /** Setting up the {@link io.flutter.view.VsyncWaiter}, on the main thread. */
+    INIT_VSYNC_WAITER,
+    /** Extracting the Dart snapshots from the APK in debug and JIT builds, in the background. */
+    EXTRACT_RESOURCES,
+    /**
+     * Waiting for {@link #EXTRACT_RESOURCES} to finish once the library is loaded, in the
+     * background. Includes the extraction itself if it had not started yet.
+     */
+    WAIT_FOR_RESOURCES,
+    /** Loading libflutter.so, in the background. */
+    LOAD_LIBRARY,
+    /** Prefetching the default font manager, in the background. */
+    PREFETCH_FONT_MANAGER,
+    /**
+     * Waiting for the background phases in {@link FlutterLoader#ensureInitializationComplete}, on
+     * the main thread.
+     */
+    WAIT_FOR_INITIALIZATION,
+    /** Reading the app's meta-data and building the engine's arguments, on the main thread. */
+    READ_METADATA,
+    /** Initializing the native engine, on the main thread. */
+    INIT_ENGINE,
+  }
+
+  @NonNull private final long[] startNanos;
+  @NonNull private final long[] durationNanos;
+  private final long mainThreadBlockedNanos;
+  private final long totalNanos;
+
+  private StartupTimeline(
+      @NonNull long[] startNanos,
+      @NonNull long[] durationNanos,
+      long mainThreadBlockedNanos,
+      long totalNanos) {
+    this.startNanos = startNanos;
+    this.durationNanos = durationNanos;
+    this.mainThreadBlockedNanos = mainThreadBlockedNanos;
+    this.totalNanos = totalNanos;
+  }
+
+  /** Returns when {@code phase} started, or {@link #NOT_RECORDED}. */
+  public long getStartNanos(@NonNull Phase phase) {
+    return startNanos[phase.ordinal()];
+  }
+
+  /** Returns how long {@code phase} took, or {@link #NOT_RECORDED}. */
+  public long getDurationNanos(@NonNull Phase phase) {
+    return durationNanos[phase.ordinal()];
+  }
+
+  /**
+   * Returns how long {@link FlutterLoader#startInitialization} and {@link
+   * FlutterLoader#ensureInitializationComplete} blocked the main thread, in total so far.
+   */
+  public long getMainThreadBlockedNanos() {
+    return mainThreadBlockedNanos;
+  }
+
+  /**
+   * Returns the time from the start of initialization until it completed, or {@link #NOT_RECORDED}
+   * if it has not completed yet.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /** Returns the timeline as a JSON object, as read by {@link #fromJson(String)}. */
+  @NonNull
+  public String toJson() {
+    try {
+      final JSONObject phases = new JSONObject();
+      for (Phase phase : Phase.values()) {
+        if (getStartNanos(phase) == NOT_RECORDED) {
+          continue;
+        }
+        final JSONObject times = new JSONObject();
+        times.put("startNanos", getStartNanos(phase));
+        times.put("durationNanos", getDurationNanos(phase));
+        phases.put(phase.name(), times);
+      }
+      final JSONObject json = new JSONObject();
+      json.put("phases", phases);
+      json.put("mainThreadBlockedNanos", mainThreadBlockedNanos);
+      json.put("totalNanos", totalNanos);
+      return json.toString();
+    } catch (JSONException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Reads a timeline written by {@link #toJson()}. Phases unknown to this version are ignored.
+   *
+   * @throws JSONException if {@code json} is not a timeline.
+   */
+  @NonNull
+  public static StartupTimeline fromJson(@NonNull String json) throws JSONException {
+    final JSONObject object = new JSONObject(json);
+    final JSONObject phases = object.getJSONObject("phases");
+    final long[] startNanos = notRecorded();
+    final long[] durationNanos = notRecorded();
+    for (Phase phase : Phase.values()) {
+      final JSONObject times = phases.optJSONObject(phase.name());
+      if (times != null) {
+        startNanos[phase.ordinal()] = times.getLong("startNanos");
+        durationNanos[phase.ordinal()] = times.getLong("durationNanos");
+      }
+    }
+    return new StartupTimeline(
+        startNanos,
+        durationNanos,
+        object.getLong("mainThreadBlockedNanos"),
+        object.getLong("totalNanos"));
+  }
+
+  @NonNull
+  private static long[] notRecorded() {
+    final long[] times = new long[Phase.values().length];
+    Arrays.fill(times, NOT_RECORDED);
+    return times;
+  }
+
+  /**
+   * Records the timeline of one initialization, from any thread.
+   *
+   * <p>Times passed to this class are {@link System#nanoTime()} values.
+   */
+  static final class Recorder {
+    private final long originNanos;
+    // All guarded by this.
+    @NonNull private final long[] startNanos = notRecorded();
+    @NonNull private final long[] durationNanos = notRecorded();
+    private long mainThreadBlockedNanos;
+    private long totalNanos = NOT_RECORDED;
+
+    /** Creates a recorder for an initialization that started at {@code originNanos}. */
+    Recorder(long originNanos) {
+      this.originNanos = originNanos;
+    }
+
+    /** Records that {@code phase} ran from {@code startTimeNanos} until now. */
+    synchronized void recordPhase(@NonNull Phase phase, long startTimeNanos) {
+      recordPhase(phase, startTimeNanos, System.nanoTime());
+    }
+
+    /** Records that {@code phase} ran from {@code startTimeNanos} until {@code endTimeNanos}. */
+    synchronized void recordPhase(@NonNull Phase phase, long startTimeNanos, long endTimeNanos) {
+      startNanos[phase.ordinal()] = startTimeNanos - originNanos;
+      durationNanos[phase.ordinal()] = endTimeNanos - startTimeNanos;
+    }
+
+    /** Records that the main thread was blocked from {@code startTimeNanos} until now. */
+    synchronized void recordMainThreadBlocked(long startTimeNanos) {
+      mainThreadBlockedNanos += System.nanoTime() - startTimeNanos;
+    }
+
+    /** Records that initialization completed now. */
+    synchronized void recordComplete() {
+      totalNanos = System.nanoTime() - originNanos;
+    }
+
+    @NonNull
+    synchronized StartupTimeline snapshot() {
+      return new StartupTimeline(
+          startNanos.clone(), durationNanos.clone(), mainThreadBlockedNanos, totalNanos);
+    }
+  }
+}
@@ -8,8 +8,10 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Path;
+import android.graphics.RectF;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
 import android.view.accessibility.AccessibilityEvent;
 import android.widget.FrameLayout;
@@ -18,6 +20,8 @@ import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import io.flutter.embedding.android.AndroidTouchProcessor;
 import io.flutter.util.ViewUtils;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A view that applies the {@link io.flutter.embedding.engine.mutatorsstack.FlutterMutatorsStack} to
@@ -32,6 +36,11 @@ public class FlutterMutatorView extends FrameLayout {
   private int prevLeft;
   private int prevTop;
 
+  // Derived from the mutators stack and the offset, and cleared when either changes.
+  @Nullable private List<Path> clippingPaths;
+  @Nullable private RectF clippingRect;
+  @Nullable private Matrix platformViewMatrix;
+
   private final AndroidTouchProcessor androidTouchProcessor;
 
   /**
@@ -92,38 +101,84 @@ public class FlutterMutatorView extends FrameLayout {
 
   /**
    * Pass the necessary parameters to the view so it can apply correct mutations to its children.
+   *
+   * <p>If {@code mutatorsStack} is equal to the stack of the previous frame, the clipping paths and
+   * matrix computed for that stack are reused.
    */
   public void readyToDisplay(
       @NonNull FlutterMutatorsStack mutatorsStack, int left, int top, int width, int height) {
-    this.mutatorsStack = mutatorsStack;
-    this.left = left;
-    this.top = top;
+    final boolean mutatorsChanged =
+        !mutatorsStack.equals(this.mutatorsStack) || left != this.left || top != this.top;
+    if (mutatorsChanged) {
+      this.mutatorsStack = mutatorsStack;
+      this.left = left;
+      this.top = top;
+      clippingPaths = null;
+      clippingRect = null;
+      platformViewMatrix = null;
+    }
+    setWillNotDraw(false);
+    final ViewGroup.LayoutParams currentLayoutParams = getLayoutParams();
+    if (currentLayoutParams instanceof FrameLayout.LayoutParams) {
+      final FrameLayout.LayoutParams current = (FrameLayout.LayoutParams) currentLayoutParams;
+      if (current.width == width
+          && current.height == height
+          && current.leftMargin == left
+          && current.topMargin == top) {
+        // The frame didn't change, so at most the mutators need to be redrawn. Setting the same
+        // layout params would request a layout pass of the whole Flutter view.
+        if (mutatorsChanged) {
+          invalidate();
+        }
+        return;
+      }
+    }
     FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(width, height);
     layoutParams.leftMargin = left;
     layoutParams.topMargin = top;
     setLayoutParams(layoutParams);
-    setWillNotDraw(false);
   }
 
   @Override
   public void draw(Canvas canvas) {
     // Apply all clippings on the parent canvas.
     canvas.save();
-    for (Path path : mutatorsStack.getFinalClippingPaths()) {
-      // Reverse the current offset.
-      //
-      // The frame of this view includes the final offset of the bounding rect.
-      // We need to apply all the mutators to the view, which includes the mutation that leads to
-      // the final offset. We should reverse this final offset, both as a translate mutation and to
-      // all the clipping paths
-      Path pathCopy = new Path(path);
-      pathCopy.offset(-left, -top);
-      canvas.clipPath(pathCopy);
+    final RectF finalClippingRect = mutatorsStack.getFinalClippingRect();
+    if (finalClippingRect != null) {
+      // All the clips are axis-aligned rects, so there is no need to clip to paths.
+      if (clippingRect == null) {
+        clippingRect = new RectF(finalClippingRect);
+        clippingRect.offset(-left, -top);
+      }
+      canvas.clipRect(clippingRect);
+    } else {
+      for (Path path : getClippingPaths()) {
+        canvas.clipPath(path);
+      }
     }
     super.draw(canvas);
     canvas.restore();
   }
 
+  @NonNull
+  private List<Path> getClippingPaths() {
+    if (clippingPaths == null) {
+      clippingPaths = new ArrayList<>();
+      for (Path path : mutatorsStack.getFinalClippingPaths()) {
+        // Reverse the current offset.
+        //
+        // The frame of this view includes the final offset of the bounding rect.
+        // We need to apply all the mutators to the view, which includes the mutation that leads to
+        // the final offset. We should reverse this final offset, both as a translate mutation and
+        // to all the clipping paths
+        Path pathCopy = new Path(path);
+        pathCopy.offset(-left, -top);
+        clippingPaths.add(pathCopy);
+      }
+    }
+    return clippingPaths;
+  }
+
   @Override
   public void dispatchDraw(Canvas canvas) {
     // Apply all the transforms on the child canvas.
@@ -135,6 +190,9 @@ public class FlutterMutatorView extends FrameLayout {
   }
 
   private Matrix getPlatformViewMatrix() {
+    if (platformViewMatrix != null) {
+      return platformViewMatrix;
+    }
     Matrix finalMatrix = new Matrix(mutatorsStack.getFinalMatrix());
 
     // Reverse scale based on screen scale.
@@ -154,6 +212,7 @@ public class FlutterMutatorView extends FrameLayout {
     // all the clipping paths
     finalMatrix.postTranslate(-left, -top);
 
+    platformViewMatrix = finalMatrix;
     return finalMatrix;
   }
 
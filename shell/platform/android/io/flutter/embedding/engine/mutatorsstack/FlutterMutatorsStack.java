@@ -12,6 +12,7 @@ import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -19,6 +20,10 @@ import java.util.List;
  *
  * <p>The mutators can be applied to a {@link io.flutter.plugin.platform.PlatformView} to perform a
  * series mutations. See {@link FlutterMutatorsStack.FlutterMutator} for informations on Mutators.
+ *
+ * <p>The engine builds a new stack for every frame, so two stacks are equal if they have the same
+ * mutators. This lets a view keep the paths and matrices it computed for a stack for as long as the
+ * stacks it receives are equal. The clipping paths are only computed when they are first needed.
  */
 @Keep
 public class FlutterMutatorsStack {
@@ -128,18 +133,63 @@ public class FlutterMutatorsStack {
     public Matrix getMatrix() {
       return matrix;
     }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof FlutterMutator)) {
+        return false;
+      }
+      final FlutterMutator other = (FlutterMutator) o;
+      // Paths can't be compared, so clip path mutators are only equal to themselves.
+      return type == other.type
+          && path == null
+          && other.path == null
+          && (rect == null ? other.rect == null : rect.equals(other.rect))
+          && Arrays.equals(radiis, other.radiis)
+          && (matrix == null ? other.matrix == null : matrix.equals(other.matrix));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = type.hashCode();
+      result = 31 * result + (rect == null ? 0 : rect.hashCode());
+      result = 31 * result + Arrays.hashCode(radiis);
+      if (matrix != null) {
+        // Matrix#hashCode is a constant.
+        final float[] values = new float[9];
+        matrix.getValues(values);
+        result = 31 * result + Arrays.hashCode(values);
+      }
+      return result;
+    }
   }
 
   private @NonNull List<FlutterMutator> mutators;
 
-  private List<Path> finalClippingPaths;
+  // The hash of the mutators, updated as they are pushed.
+  private int structuralHash = 1;
+
+  @Nullable private List<Path> finalClippingPaths;
   private Matrix finalMatrix;
 
+  // Whether every clip so far is a rect that stays a rect after its transform, in which case their
+  // intersection is finalClippingRect.
+  private boolean clipsAreRects = true;
+  @Nullable private RectF finalClippingRect;
+
   /** Initialize the mutator stack. */
   public FlutterMutatorsStack() {
     this.mutators = new ArrayList<FlutterMutator>();
     finalMatrix = new Matrix();
-    finalClippingPaths = new ArrayList<Path>();
+  }
+
+  private void addMutator(@NonNull FlutterMutator mutator) {
+    mutators.add(mutator);
+    structuralHash = 31 * structuralHash + mutator.hashCode();
+    finalClippingPaths = null;
   }
 
   /**
@@ -152,7 +202,7 @@ public class FlutterMutatorsStack {
     Matrix matrix = new Matrix();
     matrix.setValues(values);
     FlutterMutator mutator = new FlutterMutator(matrix);
-    mutators.add(mutator);
+    addMutator(mutator);
     finalMatrix.preConcat(mutator.getMatrix());
   }
 
@@ -160,11 +210,22 @@ public class FlutterMutatorsStack {
   public void pushClipRect(int left, int top, int right, int bottom) {
     Rect rect = new Rect(left, top, right, bottom);
     FlutterMutator mutator = new FlutterMutator(rect);
-    mutators.add(mutator);
-    Path path = new Path();
-    path.addRect(new RectF(rect), Path.Direction.CCW);
-    path.transform(finalMatrix);
-    finalClippingPaths.add(path);
+    addMutator(mutator);
+    if (!clipsAreRects) {
+      return;
+    }
+    if (!finalMatrix.rectStaysRect()) {
+      clipsAreRects = false;
+      finalClippingRect = null;
+      return;
+    }
+    final RectF clippingRect = new RectF(rect);
+    finalMatrix.mapRect(clippingRect);
+    if (finalClippingRect == null) {
+      finalClippingRect = clippingRect;
+    } else if (!finalClippingRect.intersect(clippingRect)) {
+      finalClippingRect.setEmpty();
+    }
   }
 
   /**
@@ -180,11 +241,9 @@ public class FlutterMutatorsStack {
   public void pushClipRRect(int left, int top, int right, int bottom, float[] radiis) {
     Rect rect = new Rect(left, top, right, bottom);
     FlutterMutator mutator = new FlutterMutator(rect, radiis);
-    mutators.add(mutator);
-    Path path = new Path();
-    path.addRoundRect(new RectF(rect), radiis, Path.Direction.CCW);
-    path.transform(finalMatrix);
-    finalClippingPaths.add(path);
+    addMutator(mutator);
+    clipsAreRects = false;
+    finalClippingRect = null;
   }
 
   /**
@@ -204,9 +263,53 @@ public class FlutterMutatorsStack {
    * <p>Clipping this list to the parent canvas of a view results the final clipping path.
    */
   public List<Path> getFinalClippingPaths() {
+    if (finalClippingPaths == null) {
+      finalClippingPaths = computeFinalClippingPaths();
+    }
     return finalClippingPaths;
   }
 
+  @NonNull
+  private List<Path> computeFinalClippingPaths() {
+    final List<Path> paths = new ArrayList<Path>();
+    final Matrix matrix = new Matrix();
+    for (FlutterMutator mutator : mutators) {
+      final Path path = new Path();
+      switch (mutator.getType()) {
+        case TRANSFORM:
+          matrix.preConcat(mutator.getMatrix());
+          continue;
+        case CLIP_RECT:
+          path.addRect(new RectF(mutator.getRect()), Path.Direction.CCW);
+          break;
+        case CLIP_RRECT:
+          path.addRoundRect(new RectF(mutator.getRect()), mutator.radiis, Path.Direction.CCW);
+          break;
+        case CLIP_PATH:
+          path.set(mutator.getPath());
+          break;
+        default:
+          continue;
+      }
+      path.transform(matrix);
+      paths.add(path);
+    }
+    return paths;
+  }
+
+  /**
+   * Get the intersection of all the clipping operations as a rect, if all of them are clip rects
+   * that stay axis-aligned after their transforms. Clipping to this rect has the same result as
+   * clipping to each of the {@link #getFinalClippingPaths()}, but is cheaper.
+   *
+   * @return the clipping rect, or null if the stack has no clipping operations or one that can't be
+   *     expressed as a rect.
+   */
+  @Nullable
+  public RectF getFinalClippingRect() {
+    return clipsAreRects ? finalClippingRect : null;
+  }
+
   /**
    * Returns the final matrix. Apply this matrix to the canvas of a view results the final
    * transformation of the view.
@@ -214,4 +317,21 @@ public class FlutterMutatorsStack {
   public Matrix getFinalMatrix() {
     return finalMatrix;
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof FlutterMutatorsStack)) {
+      return false;
+    }
+    final FlutterMutatorsStack other = (FlutterMutatorsStack) o;
+    return structuralHash == other.structuralHash && mutators.equals(other.mutators);
+  }
+
+  @Override
+  public int hashCode() {
+    return structuralHash;
+  }
 }
@@ -15,6 +15,7 @@ import android.view.Surface;
 import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
 import androidx.annotation.VisibleForTesting;
 import io.flutter.Log;
 import io.flutter.embedding.engine.FlutterJNI;
@@ -28,6 +29,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -57,6 +59,9 @@ public class FlutterRenderer implements TextureRegistry {
   private final Set<WeakReference<TextureRegistry.OnTrimMemoryListener>> onTrimMemoryListeners =
       new HashSet<>();
 
+  @NonNull
+  private final Set<FrameTimingListener> frameTimingListeners = new CopyOnWriteArraySet<>();
+
   @NonNull
   private final FlutterUiDisplayListener flutterUiDisplayListener =
       new FlutterUiDisplayListener() {
@@ -117,6 +122,54 @@ public class FlutterRenderer implements TextureRegistry {
     flutterJNI.removeIsDisplayingFlutterUiListener(listener);
   }
 
+  /**
+   * Adds a listener that is invoked with the timing of every vsync forwarded to Flutter, and when
+   * this {@code FlutterRenderer} starts, resizes or stops rendering to a surface.
+   *
+   * <p>Listeners must be removed with {@link #removeFrameTimingListener(FrameTimingListener)} once
+   * they are no longer needed, since vsync timings outlive any single engine.
+   */
+  public void addFrameTimingListener(@NonNull FrameTimingListener listener) {
+    if (frameTimingListeners.add(listener)) {
+      FrameTimingRecorder.getInstance().addListener(listener);
+    }
+  }
+
+  /** Removes a listener added with {@link #addFrameTimingListener(FrameTimingListener)}. */
+  public void removeFrameTimingListener(@NonNull FrameTimingListener listener) {
+    if (frameTimingListeners.remove(listener)) {
+      FrameTimingRecorder.getInstance().removeListener(listener);
+    }
+  }
+
+  /**
+   * Returns the vsync timings recorded since the process started.
+   *
+   * <p>Taking a snapshot is cheap, so this can be sampled periodically to monitor jank without
+   * registering a {@link FrameTimingListener}.
+   */
+  @NonNull
+  public FrameTimingStats getFrameTimingStats() {
+    return FrameTimingRecorder.getInstance().getStats();
+  }
+
+  /**
+   * Records the timing of a vsync that {@link io.flutter.view.VsyncWaiter} forwarded to Flutter.
+   *
+   * <p>This member is not intended for public use.
+   *
+   * @param vsyncDelayNanos how late the frame callback ran after the vsync it was for.
+   * @param refreshPeriodNanos the refresh period of the display at the time.
+   * @param schedulingLatencyNanos the time between Flutter asking for the vsync and the frame
+   *     callback running.
+   */
+  @UiThread
+  public static void onVsync(
+      long vsyncDelayNanos, long refreshPeriodNanos, long schedulingLatencyNanos) {
+    FrameTimingRecorder.getInstance()
+        .recordVsync(vsyncDelayNanos, refreshPeriodNanos, schedulingLatencyNanos);
+  }
+
   private void clearDeadListeners() {
     final Iterator<WeakReference<OnTrimMemoryListener>> iterator = onTrimMemoryListeners.iterator();
     while (iterator.hasNext()) {
@@ -441,6 +494,9 @@ public class FlutterRenderer implements TextureRegistry {
     this.surface = surface;
 
     flutterJNI.onSurfaceCreated(surface);
+    for (FrameTimingListener listener : frameTimingListeners) {
+      listener.onSurfaceCreated();
+    }
   }
 
   /**
@@ -465,6 +521,9 @@ public class FlutterRenderer implements TextureRegistry {
    */
   public void surfaceChanged(int width, int height) {
     flutterJNI.onSurfaceChanged(width, height);
+    for (FrameTimingListener listener : frameTimingListeners) {
+      listener.onSurfaceChanged(width, height);
+    }
   }
 
   /**
@@ -489,6 +548,10 @@ public class FlutterRenderer implements TextureRegistry {
 
       isDisplayingFlutterUi = false;
       surface = null;
+
+      for (FrameTimingListener listener : frameTimingListeners) {
+        listener.onSurfaceDestroyed();
+      }
     }
   }
 
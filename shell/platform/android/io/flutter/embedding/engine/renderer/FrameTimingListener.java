@@ -0,0 +1,37 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.renderer;
+
+/**
+ * Listener invoked with the timing of each vsync forwarded to Flutter, and with the lifecycle of
+ * the {@link android.view.Surface} a {@link FlutterRenderer} renders to.
+ *
+ * <p>All methods are invoked on the main thread. Listeners that only need aggregate numbers should
+ * sample {@link FlutterRenderer#getFrameTimingStats()} instead of doing work for every frame.
+ */
+public interface FrameTimingListener {
+  /**
+   * A vsync signal was forwarded to Flutter.
+   *
+   * <p>Vsync signals are shared by every engine in the process, so this is invoked for the frames
+   * of all engines.
+   *
+   * @param vsyncDelayNanos how late the frame callback ran after the vsync it was for.
+   * @param schedulingLatencyNanos the time between Flutter asking for the vsync and the frame
+   *     callback running.
+   * @param missedVsyncCount the number of whole refresh periods in {@code vsyncDelayNanos}, which
+   *     is the number of vsyncs missed before the frame callback ran.
+   */
+  default void onVsync(long vsyncDelayNanos, long schedulingLatencyNanos, int missedVsyncCount) {}
+
+  /** The {@link FlutterRenderer} started rendering to a new surface. */
+  default void onSurfaceCreated() {}
+
+  /** The surface the {@link FlutterRenderer} renders to changed size. */
+  default void onSurfaceChanged(int width, int height) {}
+
+  /** The {@link FlutterRenderer} stopped rendering to its surface. */
+  default void onSurfaceDestroyed() {}
+}
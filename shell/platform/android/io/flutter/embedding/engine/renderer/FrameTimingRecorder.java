@@ -0,0 +1,116 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.renderer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Records the timing of every vsync forwarded to Flutter by {@link io.flutter.view.VsyncWaiter}.
+ *
+ * <p>Recording a frame only updates a few counters, so it is always on. Per-frame {@link
+ * FrameTimingListener}s are only invoked once registered through {@link FlutterRenderer}. A
+ * listener can be registered through several renderers, and receives each vsync once until it is
+ * removed from all of them.
+ */
+final class FrameTimingRecorder {
+  // The upper bounds, in milliseconds, of all but the last histogram bucket.
+  private static final long[] BUCKET_BOUNDS_MS = {1, 2, 4, 8, 16, 32, 64, 128};
+
+  private static FrameTimingRecorder instance;
+
+  @NonNull
+  static synchronized FrameTimingRecorder getInstance() {
+    if (instance == null) {
+      instance = new FrameTimingRecorder();
+    }
+    return instance;
+  }
+
+  @NonNull private final Set<FrameTimingListener> listeners = new CopyOnWriteArraySet<>();
+  // The number of renderers each listener was added through. Guarded by listeners.
+  @NonNull private final Map<FrameTimingListener, Integer> listenerCounts = new HashMap<>();
+
+  // All guarded by this.
+  private long frameCount;
+  private long missedVsyncCount;
+  private long maxVsyncDelayNanos;
+  @NonNull private final long[] vsyncDelayHistogram = new long[BUCKET_BOUNDS_MS.length + 1];
+  @NonNull private final long[] schedulingLatencyHistogram = new long[BUCKET_BOUNDS_MS.length + 1];
+
+  @VisibleForTesting
+  FrameTimingRecorder() {}
+
+  /**
+   * Records a vsync forwarded to Flutter.
+   *
+   * @param vsyncDelayNanos how late the frame callback ran after the vsync it was for.
+   * @param refreshPeriodNanos the refresh period of the display at the time.
+   * @param schedulingLatencyNanos the time between Flutter asking for the vsync and the frame
+   *     callback running.
+   */
+  @UiThread
+  void recordVsync(long vsyncDelayNanos, long refreshPeriodNanos, long schedulingLatencyNanos) {
+    final int missedVsyncs =
+        refreshPeriodNanos > 0 ? (int) (vsyncDelayNanos / refreshPeriodNanos) : 0;
+    synchronized (this) {
+      frameCount++;
+      missedVsyncCount += missedVsyncs;
+      maxVsyncDelayNanos = Math.max(maxVsyncDelayNanos, vsyncDelayNanos);
+      vsyncDelayHistogram[bucketFor(vsyncDelayNanos)]++;
+      schedulingLatencyHistogram[bucketFor(schedulingLatencyNanos)]++;
+    }
+    for (FrameTimingListener listener : listeners) {
+      listener.onVsync(vsyncDelayNanos, schedulingLatencyNanos, missedVsyncs);
+    }
+  }
+
+  /** Returns a snapshot of the timings recorded so far. */
+  @NonNull
+  synchronized FrameTimingStats getStats() {
+    return new FrameTimingStats(
+        frameCount,
+        missedVsyncCount,
+        maxVsyncDelayNanos,
+        vsyncDelayHistogram.clone(),
+        schedulingLatencyHistogram.clone());
+  }
+
+  void addListener(@NonNull FrameTimingListener listener) {
+    synchronized (listeners) {
+      final Integer count = listenerCounts.get(listener);
+      listenerCounts.put(listener, count == null ? 1 : count + 1);
+      listeners.add(listener);
+    }
+  }
+
+  void removeListener(@NonNull FrameTimingListener listener) {
+    synchronized (listeners) {
+      final Integer count = listenerCounts.get(listener);
+      if (count == null) {
+        return;
+      }
+      if (count > 1) {
+        listenerCounts.put(listener, count - 1);
+      } else {
+        listenerCounts.remove(listener);
+        listeners.remove(listener);
+      }
+    }
+  }
+
+  private static int bucketFor(long nanos) {
+    int bucket = 0;
+    while (bucket < BUCKET_BOUNDS_MS.length && nanos > BUCKET_BOUNDS_MS[bucket] * 1000000) {
+      bucket++;
+    }
+    return bucket;
+  }
+}
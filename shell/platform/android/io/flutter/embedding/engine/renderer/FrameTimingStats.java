@@ -0,0 +1,69 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.embedding.engine.renderer;
+
+import androidx.annotation.NonNull;
+
+/**
+ * A snapshot of the vsync timings recorded since the process started, as returned by {@link
+ * FlutterRenderer#getFrameTimingStats()}.
+ *
+ * <p>Counts only ever grow, so the timings of a period are the difference between a snapshot taken
+ * at its end and one taken at its start.
+ *
+ * <p>Both histograms share the same buckets: entry {@code i} counts the frames whose value was at
+ * most {@code 2^i} milliseconds and more than the bound of the previous entry, for {@code i} up to
+ * 7 (128 ms). The last entry counts every frame above 128 ms.
+ */
+public final class FrameTimingStats {
+  private final long frameCount;
+  private final long missedVsyncCount;
+  private final long maxVsyncDelayNanos;
+  @NonNull private final long[] vsyncDelayHistogram;
+  @NonNull private final long[] schedulingLatencyHistogram;
+
+  FrameTimingStats(
+      long frameCount,
+      long missedVsyncCount,
+      long maxVsyncDelayNanos,
+      @NonNull long[] vsyncDelayHistogram,
+      @NonNull long[] schedulingLatencyHistogram) {
+    this.frameCount = frameCount;
+    this.missedVsyncCount = missedVsyncCount;
+    this.maxVsyncDelayNanos = maxVsyncDelayNanos;
+    this.vsyncDelayHistogram = vsyncDelayHistogram;
+    this.schedulingLatencyHistogram = schedulingLatencyHistogram;
+  }
+
+  /** Returns the number of vsync signals forwarded to Flutter. */
+  public long getFrameCount() {
+    return frameCount;
+  }
+
+  /** Returns the total number of vsyncs missed before frame callbacks ran. */
+  public long getMissedVsyncCount() {
+    return missedVsyncCount;
+  }
+
+  /** Returns the longest any frame callback ran after the vsync it was for. */
+  public long getMaxVsyncDelayNanos() {
+    return maxVsyncDelayNanos;
+  }
+
+  /** Returns the histogram of how late frame callbacks ran after their vsync. */
+  @NonNull
+  public long[] getVsyncDelayHistogram() {
+    return vsyncDelayHistogram.clone();
+  }
+
+  /**
+   * Returns the histogram of the time between Flutter asking for a vsync and the frame callback
+   * running.
+   */
+  @NonNull
+  public long[] getSchedulingLatencyHistogram() {
+    return schedulingLatencyHistogram.clone();
+  }
+}
@@ -7,10 +7,13 @@ package io.flutter.embedding.engine.systemchannels;
 import android.view.KeyEvent;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import io.flutter.Log;
 import io.flutter.plugin.common.BasicMessageChannel;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.JSONMessageCodec;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.HashMap;
 import java.util.Map;
 import org.json.JSONException;
@@ -21,9 +24,44 @@ import org.json.JSONObject;
  *
  * <p>Sends key up/down events to the framework, and receives asynchronous messages from the
  * framework about whether or not the key was handled.
+ *
+ * <p>Events are sent as JSON maps unless the framework asks for the binary encoding, by sending
+ * {@code {"type": "setEncoding", "encoding": "binary"}} on this channel. The engine acknowledges
+ * with {@code {"encoding": "binary"}}, and from then on sends every event as a fixed size message
+ * of {@link #BINARY_MESSAGE_FIELD_COUNT} little endian 32-bit integers, in this order:
+ *
+ * <ol>
+ *   <li>{@code type}: 0 for keydown, 1 for keyup.
+ *   <li>{@code flags}
+ *   <li>{@code plainCodePoint}
+ *   <li>{@code codePoint}
+ *   <li>{@code keyCode}
+ *   <li>{@code scanCode}
+ *   <li>{@code metaState}
+ *   <li>{@code character}: the UTF-16 code unit of the character, or -1 if there is none.
+ *   <li>{@code source}
+ *   <li>{@code deviceId}
+ *   <li>{@code repeatCount}
+ * </ol>
+ *
+ * <p>The {@code keymap} is always {@code "android"}, so it is not sent. The framework replies to
+ * binary events with a single byte, which is non-zero if the event was handled. Frameworks that
+ * never ask for the binary encoding, and engines that do not support it and therefore reply to
+ * {@code setEncoding} with null, keep using JSON. Sending {@code "encoding": "json"} switches back,
+ * and so does a hot restart, after which the framework negotiates the encoding again.
+ *
+ * <p>Only the channel that called {@link #setEncodingHandler()} answers {@code setEncoding}. There
+ * is one per messenger, owned by whatever resets it with {@link #resetEncoding()} on hot restart;
+ * other channels on the same messenger send JSON.
  */
 public class KeyEventChannel {
   private static final String TAG = "KeyEventChannel";
+  private static final String CHANNEL = "flutter/keyevent";
+
+  /** The number of 32-bit fields in a binary encoded key event. */
+  public static final int BINARY_MESSAGE_FIELD_COUNT = 11;
+
+  private static final int BYTES_PER_FIELD = 4;
 
   /** A handler of incoming key handling messages. */
   public interface EventResponseHandler {
@@ -43,17 +81,115 @@ public class KeyEventChannel {
    * @param binaryMessenger the binary messenger used to send messages on this channel.
    */
   public KeyEventChannel(@NonNull BinaryMessenger binaryMessenger) {
-    this.channel =
-        new BasicMessageChannel<>(binaryMessenger, "flutter/keyevent", JSONMessageCodec.INSTANCE);
+    this.binaryMessenger = binaryMessenger;
+    this.channel = new BasicMessageChannel<>(binaryMessenger, CHANNEL, JSONMessageCodec.INSTANCE);
   }
 
   @NonNull public final BasicMessageChannel<Object> channel;
 
+  @NonNull private final BinaryMessenger binaryMessenger;
+  private boolean isBinaryEncodingEnabled = false;
+
+  // The message every binary encoded event is written into. The messenger copies a message before
+  // `send` returns, so it can be reused for the next event.
+  @NonNull
+  private final ByteBuffer binaryMessage =
+      ByteBuffer.allocateDirect(BINARY_MESSAGE_FIELD_COUNT * BYTES_PER_FIELD)
+          .order(ByteOrder.LITTLE_ENDIAN);
+
+  /** Returns whether the framework asked for key events to be sent with the binary encoding. */
+  public boolean isBinaryEncodingEnabled() {
+    return isBinaryEncodingEnabled;
+  }
+
+  /**
+   * Handles the framework's requests to change the encoding of key events sent on this channel.
+   *
+   * <p>This replaces the message handler of the channel on the messenger, so only the channel owned
+   * by the engine calls it. This member is not intended for public use, and is only visible for the
+   * {@link io.flutter.embedding.engine.FlutterEngine} and {@link
+   * io.flutter.view.FlutterNativeView}.
+   */
+  public void setEncodingHandler() {
+    channel.setMessageHandler(
+        (message, reply) -> {
+          reply.reply(handleEncodingRequest(message));
+        });
+  }
+
+  /**
+   * Switches back to sending key events as JSON, which is what the framework expects until it asks
+   * for another encoding.
+   *
+   * <p>Called when the engine restarts, since the restarted framework has not negotiated an
+   * encoding yet. This member is not intended for public use, and is only visible for the {@link
+   * io.flutter.embedding.engine.FlutterEngine} and {@link io.flutter.view.FlutterNativeView}.
+   */
+  public void resetEncoding() {
+    isBinaryEncodingEnabled = false;
+  }
+
   public void sendFlutterKeyEvent(
       @NonNull FlutterKeyEvent keyEvent,
       boolean isKeyUp,
       @NonNull EventResponseHandler responseHandler) {
-    channel.send(encodeKeyEvent(keyEvent, isKeyUp), createReplyHandler(responseHandler));
+    if (isBinaryEncodingEnabled) {
+      binaryMessenger.send(
+          CHANNEL,
+          encodeKeyEventBinary(keyEvent, isKeyUp),
+          createBinaryReplyHandler(responseHandler));
+    } else {
+      channel.send(encodeKeyEvent(keyEvent, isKeyUp), createReplyHandler(responseHandler));
+    }
+  }
+
+  // Returns the acknowledgement of a setEncoding request, or null if the message is not one, or
+  // asks for an unknown encoding.
+  @Nullable
+  private Map<String, Object> handleEncodingRequest(@Nullable Object message) {
+    if (!(message instanceof JSONObject)) {
+      return null;
+    }
+    final JSONObject request = (JSONObject) message;
+    if (!"setEncoding".equals(request.optString("type"))) {
+      return null;
+    }
+    final String encoding = request.optString("encoding");
+    switch (encoding) {
+      case "binary":
+        isBinaryEncodingEnabled = true;
+        break;
+      case "json":
+        isBinaryEncodingEnabled = false;
+        break;
+      default:
+        Log.w(TAG, "Unknown key event encoding: " + encoding);
+        return null;
+    }
+    final Map<String, Object> acknowledgement = new HashMap<>();
+    acknowledgement.put("encoding", encoding);
+    return acknowledgement;
+  }
+
+  // Writes the event into `binaryMessage`, and returns it.
+  @VisibleForTesting
+  @NonNull
+  ByteBuffer encodeKeyEventBinary(@NonNull FlutterKeyEvent keyEvent, boolean isKeyUp) {
+    final KeyEvent event = keyEvent.event;
+    final ByteBuffer message = binaryMessage;
+    message.clear();
+    message.putInt(isKeyUp ? 1 : 0);
+    message.putInt(event.getFlags());
+    message.putInt(event.getUnicodeChar(0x0));
+    message.putInt(event.getUnicodeChar());
+    message.putInt(event.getKeyCode());
+    message.putInt(event.getScanCode());
+    message.putInt(event.getMetaState());
+    message.putInt(keyEvent.complexCharacter != null ? keyEvent.complexCharacter : -1);
+    message.putInt(event.getSource());
+    message.putInt(event.getDeviceId());
+    message.putInt(event.getRepeatCount());
+    return message;
   }
 
   private Map<String, Object> encodeKeyEvent(@NonNull FlutterKeyEvent keyEvent, boolean isKeyUp) {
@@ -96,6 +232,25 @@ public class KeyEventChannel {
     };
   }
 
+  /**
+   * Creates a reply handler for the given binary encoded key event.
+   *
+   * @param responseHandler the completion handler to call when the framework responds.
+   */
+  private static BinaryMessenger.BinaryReply createBinaryReplyHandler(
+      @NonNull EventResponseHandler responseHandler) {
+    return message -> {
+      boolean isEventHandled = false;
+      if (message != null) {
+        message.rewind();
+        if (message.hasRemaining()) {
+          isEventHandled = message.get() != 0;
+        }
+      }
+      responseHandler.onFrameworkResponse(isEventHandled);
+    };
+  }
+
   /** A key event as defined by Flutter. */
   public static class FlutterKeyEvent {
     /**
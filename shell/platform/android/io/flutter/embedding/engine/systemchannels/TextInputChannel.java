@@ -12,6 +12,7 @@ import io.flutter.embedding.engine.dart.DartExecutor;
 import io.flutter.plugin.common.JSONMethodCodec;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
+import io.flutter.plugin.common.StandardMethodCodec;
 import io.flutter.plugin.editing.TextEditingDelta;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -38,11 +39,41 @@ import org.json.JSONObject;
  * io.flutter.plugin.common.MethodChannel.MethodCallHandler} that parses incoming messages from
  * Flutter. Register a {@link TextInputMethodHandler} to respond to standard Flutter text input
  * messages.
+ *
+ * <p>Editing state updates are sent as JSON unless the framework asks for the binary encoding, by
+ * invoking {@code TextInput.setEncoding} with the argument {@code "binary"}. The engine replies
+ * with {@code "binary"}, and from then on sends {@code TextInputClient.updateEditingState} and
+ * {@code TextInputClient.updateEditingStateWithDeltas} on {@link #BINARY_CHANNEL} with the {@link
+ * StandardMethodCodec}, with these arguments:
+ *
+ * <ul>
+ *   <li>{@code updateEditingState}: the client id, the text, and an {@code Int32List} of the
+ *       selection base and extent and the composing base and extent.
+ *   <li>{@code updateEditingStateWithDeltas}: the client id, a list of two strings per delta, its
+ *       old text and its delta text, and an {@code Int32List} of six integers per delta, its delta
+ *       start and end, selection base and extent and composing base and extent. The old text is
+ *       null when it is the same as the old text of the previous delta, which is common while
+ *       composing.
+ * </ul>
+ *
+ * <p>All other messages keep using JSON on this channel. Frameworks that never ask for the binary
+ * encoding, and engines that do not support it and therefore reply that {@code
+ * TextInput.setEncoding} is not implemented, keep using JSON. Invoking it with {@code "json"}
+ * switches back, and so does a hot restart, after which the framework negotiates the encoding
+ * again.
  */
 public class TextInputChannel {
   private static final String TAG = "TextInputChannel";
 
+  /** The channel binary encoded editing state updates are sent on. */
+  public static final String BINARY_CHANNEL = "flutter/textinput/binary";
+
+  // The number of integers per delta in a binary encoded updateEditingStateWithDeltas.
+  private static final int BINARY_DELTA_INT_COUNT = 6;
+
   @NonNull public final MethodChannel channel;
+  @NonNull private final MethodChannel binaryChannel;
+  private boolean isBinaryEncodingEnabled = false;
   @Nullable private TextInputMethodHandler textInputMethodHandler;
 
   @NonNull @VisibleForTesting
@@ -50,6 +81,10 @@ public class TextInputChannel {
       new MethodChannel.MethodCallHandler() {
         @Override
         public void onMethodCall(@NonNull MethodCall call, @NonNull MethodChannel.Result result) {
+          if ("TextInput.setEncoding".equals(call.method)) {
+            setEncoding(call.arguments, result);
+            return;
+          }
           if (textInputMethodHandler == null) {
             // If no explicit TextInputMethodHandler has been registered then we don't
             // need to forward this call to an API. Return.
@@ -165,9 +200,40 @@ public class TextInputChannel {
    */
   public TextInputChannel(@NonNull DartExecutor dartExecutor) {
     this.channel = new MethodChannel(dartExecutor, "flutter/textinput", JSONMethodCodec.INSTANCE);
+    this.binaryChannel =
+        new MethodChannel(dartExecutor, BINARY_CHANNEL, StandardMethodCodec.INSTANCE);
     channel.setMethodCallHandler(parsingMethodHandler);
   }
 
+  /** Returns whether the framework asked for editing state updates to be binary encoded. */
+  public boolean isBinaryEncodingEnabled() {
+    return isBinaryEncodingEnabled;
+  }
+
+  /**
+   * Switches back to sending editing state updates as JSON, which is what the framework expects
+   * until it asks for another encoding.
+   *
+   * <p>Called when the engine restarts, since the restarted framework has not negotiated an
+   * encoding yet. This member is not intended for public use, and is only visible for the {@link
+   * io.flutter.embedding.engine.FlutterEngine}.
+   */
+  public void resetEncoding() {
+    isBinaryEncodingEnabled = false;
+  }
+
+  private void setEncoding(@Nullable Object encoding, @NonNull MethodChannel.Result result) {
+    if ("binary".equals(encoding)) {
+      isBinaryEncodingEnabled = true;
+    } else if ("json".equals(encoding)) {
+      isBinaryEncodingEnabled = false;
+    } else {
+      result.error("error", "Unknown text input encoding: " + encoding, null);
+      return;
+    }
+    result.success(encoding);
+  }
+
   /**
    * Instructs Flutter to reattach the last active text input client, if any.
    *
@@ -201,6 +267,32 @@ public class TextInputChannel {
     state.put("deltas", deltas);
     return state;
   }
+
+  @VisibleForTesting
+  @NonNull
+  static List<Object> createEditingDeltaBinaryArguments(
+      int inputClientId, @NonNull List<TextEditingDelta> batchDeltas) {
+    final ArrayList<String> texts = new ArrayList<>(2 * batchDeltas.size());
+    final int[] ranges = new int[BINARY_DELTA_INT_COUNT * batchDeltas.size()];
+    CharSequence previousOldText = null;
+    int i = 0;
+    for (TextEditingDelta delta : batchDeltas) {
+      final CharSequence oldText = delta.getOldText();
+      // The editing state hands consecutive deltas the same old text instance while the text does
+      // not change, so this check is cheap and catches the repeats.
+      texts.add(oldText == previousOldText ? null : oldText.toString());
+      texts.add(delta.getDeltaText().toString());
+      previousOldText = oldText;
+      ranges[i++] = delta.getDeltaStart();
+      ranges[i++] = delta.getDeltaEnd();
+      ranges[i++] = delta.getNewSelectionStart();
+      ranges[i++] = delta.getNewSelectionEnd();
+      ranges[i++] = delta.getNewComposingStart();
+      ranges[i++] = delta.getNewComposingEnd();
+    }
+    return Arrays.asList(inputClientId, texts, ranges);
+  }
+
   /**
    * Instructs Flutter to update its text input editing state to reflect the given configuration.
    */
@@ -229,6 +321,16 @@ public class TextInputChannel {
             + "Composing end: "
             + composingEnd);
 
+    if (isBinaryEncodingEnabled) {
+      binaryChannel.invokeMethod(
+          "TextInputClient.updateEditingState",
+          Arrays.asList(
+              inputClientId,
+              text,
+              new int[] {selectionStart, selectionEnd, composingStart, composingEnd}));
+      return;
+    }
+
     final HashMap<Object, Object> state =
         createEditingStateJSON(text, selectionStart, selectionEnd, composingStart, composingEnd);
 
@@ -244,6 +346,13 @@ public class TextInputChannel {
             + "Number of deltas: "
             + batchDeltas.size());
 
+    if (isBinaryEncodingEnabled) {
+      binaryChannel.invokeMethod(
+          "TextInputClient.updateEditingStateWithDeltas",
+          createEditingDeltaBinaryArguments(inputClientId, batchDeltas));
+      return;
+    }
+
     final HashMap<Object, Object> state = createEditingDeltaJSON(batchDeltas);
 
     channel.invokeMethod(
@@ -38,7 +38,28 @@ public interface BinaryMessenger {
 
   /** Options that control how a TaskQueue should operate and be created. */
   public static class TaskQueueOptions {
+    /**
+     * The scheduling priority of the threads that run a TaskQueue's tasks.
+     *
+     * <p>TaskQueues of different priorities never share threads, so a burst of work on a {@link
+     * #LOW} priority queue cannot hold up a {@link #HIGH} priority one.
+     */
+    public enum Priority {
+      /** For latency-critical channels, such as input or camera control. */
+      HIGH,
+      /** The default; tasks run on the same threads as other Flutter background work. */
+      NORMAL,
+      /** For bulk channels that can tolerate delays, such as analytics upload or sync. */
+      LOW,
+    }
+
+    /** The default value of the `batchBudget` property. */
+    public static final int DEFAULT_BATCH_BUDGET = 16;
+
     private boolean isSerial = true;
+    private int batchBudget = DEFAULT_BATCH_BUDGET;
+    @NonNull private Priority priority = Priority.NORMAL;
+    private int dedicatedThreadCount = 0;
 
     public boolean getIsSerial() {
       return isSerial;
@@ -54,6 +75,66 @@ public interface BinaryMessenger {
       this.isSerial = isSerial;
       return this;
     }
+
+    public int getBatchBudget() {
+      return batchBudget;
+    }
+
+    /**
+     * Setter for `batchBudget` property.
+     *
+     * <p>A serial TaskQueue runs up to this many queued tasks each time it is scheduled on a
+     * background thread before yielding the thread to other work. Larger values reduce scheduling
+     * overhead for channels that receive bursts of messages, while smaller values let other task
+     * queues sharing the same threads run sooner. Has no effect on concurrent TaskQueues.
+     *
+     * @throws IllegalArgumentException if {@code batchBudget} is less than 1.
+     */
+    public TaskQueueOptions setBatchBudget(int batchBudget) {
+      if (batchBudget < 1) {
+        throw new IllegalArgumentException("batchBudget must be at least 1, was " + batchBudget);
+      }
+      this.batchBudget = batchBudget;
+      return this;
+    }
+
+    @NonNull
+    public Priority getPriority() {
+      return priority;
+    }
+
+    /**
+     * Setter for `priority` property.
+     *
+     * <p>Controls the scheduling priority of the threads the TaskQueue's tasks run on. Defaults to
+     * {@link Priority#NORMAL}.
+     */
+    public TaskQueueOptions setPriority(@NonNull Priority priority) {
+      this.priority = priority;
+      return this;
+    }
+
+    public int getDedicatedThreadCount() {
+      return dedicatedThreadCount;
+    }
+
+    /**
+     * Setter for `dedicatedThreadCount` property.
+     *
+     * <p>When this is greater than 0, the TaskQueue runs its tasks on a pool of up to this many
+     * threads of its own instead of threads shared with other TaskQueues of the same priority. Idle
+     * threads of the pool are stopped after a timeout. Defaults to 0.
+     *
+     * @throws IllegalArgumentException if {@code dedicatedThreadCount} is negative.
+     */
+    public TaskQueueOptions setDedicatedThreadCount(int dedicatedThreadCount) {
+      if (dedicatedThreadCount < 0) {
+        throw new IllegalArgumentException(
+            "dedicatedThreadCount must not be negative, was " + dedicatedThreadCount);
+      }
+      this.dedicatedThreadCount = dedicatedThreadCount;
+      return this;
+    }
   }
 
   /**
@@ -84,6 +165,10 @@ public interface BinaryMessenger {
   /**
    * Sends a binary message to the Flutter application.
    *
+   * <p>The message bytes are copied before this method returns, so the caller may reuse {@code
+   * message} right away. Implementations that keep the bytes, for example to send them later or
+   * from another thread, must copy them.
+   *
    * @param channel the name {@link String} of the logical channel used for the message.
    * @param message the message payload, a direct-allocated {@link ByteBuffer} with the message
    *     bytes between position zero and current position, or null.
@@ -96,6 +181,9 @@ public interface BinaryMessenger {
    *
    * <p>Any uncaught exception thrown by the reply callback will be caught and logged.
    *
+   * <p>As with {@link #send(String, ByteBuffer)}, the message bytes are copied before this method
+   * returns.
+   *
    * @param channel the name {@link String} of the logical channel used for the message.
    * @param message the message payload, a direct-allocated {@link ByteBuffer} with the message
    *     bytes between position zero and current position, or null.
@@ -0,0 +1,76 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugin.common;
+
+import androidx.annotation.NonNull;
+import java.nio.Buffer;
+import java.util.ArrayList;
+
+/**
+ * Tracks buffer views that alias the memory of an incoming platform message, so that they can be
+ * invalidated once the message is no longer valid.
+ *
+ * <p>Messages from Dart are delivered in direct {@link java.nio.ByteBuffer}s whose memory is
+ * released as soon as the handler for the message returns. Codecs that decode a message into views
+ * over that memory instead of copies, such as {@link ZeroCopyStandardMessageCodec}, register each
+ * view with {@link #track(Buffer)}. The embedding opens a scope around each handler invocation with
+ * {@link #begin()} and closes it with {@link #end(int)}, at which point every view tracked on that
+ * thread within the scope has its limit set to 0, so that a view retained past the handler fails
+ * deterministically instead of reading freed memory.
+ *
+ * <p>Views created while no scope is open on the current thread are not tracked; their lifetime is
+ * the lifetime of the buffer they were decoded from.
+ */
+public final class BorrowedBufferViews {
+  private static final ThreadLocal<Scope> scope =
+      new ThreadLocal<Scope>() {
+        @Override
+        protected Scope initialValue() {
+          return new Scope();
+        }
+      };
+
+  private static final class Scope {
+    @NonNull final ArrayList<Buffer> views = new ArrayList<>();
+    int depth;
+  }
+
+  private BorrowedBufferViews() {}
+
+  /**
+   * Opens a scope on the current thread.
+   *
+   * @return a mark to pass to the matching {@link #end(int)} call.
+   */
+  public static int begin() {
+    final Scope current = scope.get();
+    current.depth++;
+    return current.views.size();
+  }
+
+  /**
+   * Closes the scope opened by the {@link #begin()} call that returned {@code mark}, invalidating
+   * every view tracked since then.
+   */
+  public static void end(int mark) {
+    final Scope current = scope.get();
+    final ArrayList<Buffer> views = current.views;
+    for (int i = views.size() - 1; i >= mark; i--) {
+      views.remove(i).limit(0);
+    }
+    current.depth--;
+  }
+
+  /**
+   * Registers {@code view} to be invalidated when the innermost open scope on the current thread
+   * closes. Does nothing if no scope is open.
+   */
+  public static void track(@NonNull Buffer view) {
+    final Scope current = scope.get();
+    if (current.depth > 0) {
+      current.views.add(view);
+    }
+  }
+}
@@ -0,0 +1,266 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugin.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * A {@link ByteArrayOutputStream} that writes into a growable, pooled direct {@link ByteBuffer} in
+ * native byte order instead of a heap array.
+ *
+ * <p>This is the stream handed to {@link StandardMessageCodec#writeValue} by the encoding entry
+ * points of {@link StandardMessageCodec} and {@link StandardMethodCodec}. It extends {@link
+ * ByteArrayOutputStream} so that codec subclasses overriding {@code writeValue} keep working
+ * unchanged, while the codec's own static write helpers detect it and use bulk {@code put}
+ * operations instead of writing a byte at a time.
+ *
+ * <p>Backing buffers are taken from power-of-two size classes between {@link #MIN_CAPACITY} and
+ * {@link #MAX_POOLED_CAPACITY} bytes and returned to a small process-wide pool by {@link
+ * #release()}. Larger buffers are allocated on demand and left to the garbage collector. Either way
+ * the backing buffer at least doubles whenever it grows, so writing a large message a byte at a
+ * time copies it a logarithmic number of times.
+ *
+ * <p>Instances are not thread-safe, and must not be used after {@link #release()} is called.
+ */
+final class DirectByteBufferOutputStream extends ByteArrayOutputStream {
+  @VisibleForTesting static final int MIN_CAPACITY = 256;
+  @VisibleForTesting static final int MAX_POOLED_CAPACITY = 1 << 20;
+  private static final int MIN_SIZE_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+  private static final int SIZE_CLASS_COUNT =
+      Integer.numberOfTrailingZeros(MAX_POOLED_CAPACITY) - MIN_SIZE_CLASS_SHIFT + 1;
+  private static final int MAX_POOLED_BUFFERS_PER_SIZE_CLASS = 4;
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static final ArrayDeque<ByteBuffer>[] pool = new ArrayDeque[SIZE_CLASS_COUNT];
+
+  static {
+    for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+      pool[i] = new ArrayDeque<>(MAX_POOLED_BUFFERS_PER_SIZE_CLASS);
+    }
+  }
+
+  @NonNull private ByteBuffer buffer;
+  private int growCount;
+
+  /** Returns a new, empty stream backed by a buffer from the pool. */
+  @NonNull
+  static DirectByteBufferOutputStream obtain() {
+    return new DirectByteBufferOutputStream(acquire(MIN_CAPACITY));
+  }
+
+  private DirectByteBufferOutputStream(@NonNull ByteBuffer buffer) {
+    // Avoid allocating the superclass' heap array; none of its state is used.
+    super(0);
+    this.buffer = buffer;
+  }
+
+  /**
+   * Returns the smallest size class that can hold {@code minCapacity} bytes, or {@code minCapacity}
+   * itself if it exceeds the largest pooled size class.
+   */
+  @VisibleForTesting
+  static int capacityFor(int minCapacity) {
+    if (minCapacity <= MIN_CAPACITY) {
+      return MIN_CAPACITY;
+    }
+    if (minCapacity > MAX_POOLED_CAPACITY) {
+      return minCapacity;
+    }
+    return Integer.highestOneBit(minCapacity - 1) << 1;
+  }
+
+  private static int sizeClassIndex(int capacity) {
+    if (capacity > MAX_POOLED_CAPACITY || Integer.bitCount(capacity) != 1) {
+      return -1;
+    }
+    return Integer.numberOfTrailingZeros(capacity) - MIN_SIZE_CLASS_SHIFT;
+  }
+
+  @NonNull
+  private static ByteBuffer acquire(int minCapacity) {
+    final int capacity = capacityFor(minCapacity);
+    final int index = sizeClassIndex(capacity);
+    ByteBuffer pooled = null;
+    if (index >= 0) {
+      synchronized (pool) {
+        pooled = pool[index].pollFirst();
+      }
+    }
+    if (pooled == null) {
+      pooled = ByteBuffer.allocateDirect(capacity);
+    }
+    pooled.clear();
+    pooled.order(ByteOrder.nativeOrder());
+    return pooled;
+  }
+
+  private static void recycle(@NonNull ByteBuffer buffer) {
+    final int index = sizeClassIndex(buffer.capacity());
+    if (index < 0) {
+      return;
+    }
+    synchronized (pool) {
+      if (pool[index].size() < MAX_POOLED_BUFFERS_PER_SIZE_CLASS) {
+        pool[index].addFirst(buffer);
+      }
+    }
+  }
+
+  private void ensureRemaining(int count) {
+    if (buffer.remaining() >= count) {
+      return;
+    }
+    final int required = buffer.position() + count;
+    if (required < 0) {
+      throw new OutOfMemoryError("Message exceeds the maximum buffer size");
+    }
+    // Double the capacity, unless that overflows, or isn't enough.
+    final int doubled = buffer.capacity() << 1;
+    final ByteBuffer grown = acquire(doubled < 0 ? required : Math.max(required, doubled));
+    growCount++;
+    buffer.flip();
+    grown.put(buffer);
+    recycle(buffer);
+    buffer = grown;
+  }
+
+  @Override
+  public void write(int b) {
+    ensureRemaining(1);
+    buffer.put((byte) b);
+  }
+
+  @Override
+  public void write(@NonNull byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || off > b.length - len) {
+      throw new IndexOutOfBoundsException();
+    }
+    ensureRemaining(len);
+    buffer.put(b, off, len);
+  }
+
+  /** Writes the least significant two bytes of {@code value} in native byte order. */
+  void putChar(int value) {
+    ensureRemaining(2);
+    buffer.putChar((char) value);
+  }
+
+  /** Writes {@code value} as 4 bytes in native byte order. */
+  void putInt(int value) {
+    ensureRemaining(4);
+    buffer.putInt(value);
+  }
+
+  /** Writes {@code value} as 8 bytes in native byte order. */
+  void putLong(long value) {
+    ensureRemaining(8);
+    buffer.putLong(value);
+  }
+
+  /** Writes {@code value} as 4 bytes in native byte order. */
+  void putFloat(float value) {
+    ensureRemaining(4);
+    buffer.putFloat(value);
+  }
+
+  /** Writes {@code value} as 8 bytes in native byte order. */
+  void putDouble(double value) {
+    ensureRemaining(8);
+    buffer.putDouble(value);
+  }
+
+  /** Writes every element of {@code array} as 4 bytes in native byte order. */
+  void putInts(@NonNull int[] array) {
+    ensureRemaining(4 * array.length);
+    buffer.asIntBuffer().put(array);
+    buffer.position(buffer.position() + 4 * array.length);
+  }
+
+  /** Writes every element of {@code array} as 8 bytes in native byte order. */
+  void putLongs(@NonNull long[] array) {
+    ensureRemaining(8 * array.length);
+    buffer.asLongBuffer().put(array);
+    buffer.position(buffer.position() + 8 * array.length);
+  }
+
+  /** Writes every element of {@code array} as 4 bytes in native byte order. */
+  void putFloats(@NonNull float[] array) {
+    ensureRemaining(4 * array.length);
+    buffer.asFloatBuffer().put(array);
+    buffer.position(buffer.position() + 4 * array.length);
+  }
+
+  /** Writes every element of {@code array} as 8 bytes in native byte order. */
+  void putDoubles(@NonNull double[] array) {
+    ensureRemaining(8 * array.length);
+    buffer.asDoubleBuffer().put(array);
+    buffer.position(buffer.position() + 8 * array.length);
+  }
+
+  /** Returns the number of times the backing buffer was replaced by a larger one. */
+  @VisibleForTesting
+  int getGrowCount() {
+    return growCount;
+  }
+
+  @Override
+  public int size() {
+    return buffer.position();
+  }
+
+  @Override
+  public void reset() {
+    buffer.clear();
+  }
+
+  @Override
+  @NonNull
+  public byte[] toByteArray() {
+    final byte[] bytes = new byte[buffer.position()];
+    final ByteBuffer written = buffer.duplicate();
+    written.flip();
+    written.get(bytes);
+    return bytes;
+  }
+
+  @Override
+  public void writeTo(@NonNull OutputStream out) throws IOException {
+    out.write(toByteArray());
+  }
+
+  @Override
+  @NonNull
+  public String toString() {
+    return new String(toByteArray());
+  }
+
+  /**
+   * Copies the bytes written so far into a new direct {@link ByteBuffer} of exactly that size.
+   *
+   * <p>The returned buffer is owned by the caller and remains valid after {@link #release()}. Its
+   * position is set to its limit, matching what {@link MessageCodec#encodeMessage} has always
+   * returned.
+   */
+  @NonNull
+  ByteBuffer toDirectByteBuffer() {
+    final ByteBuffer result = ByteBuffer.allocateDirect(buffer.position());
+    final ByteBuffer written = buffer.duplicate();
+    written.flip();
+    result.put(written);
+    return result;
+  }
+
+  /** Returns the backing buffer to the pool. The stream must not be used afterwards. */
+  void release() {
+    recycle(buffer);
+  }
+}
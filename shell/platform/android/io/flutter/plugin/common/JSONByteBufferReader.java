@@ -0,0 +1,382 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugin.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Parses UTF-8 encoded JSON directly from a {@link ByteBuffer} into the {@code org.json} object
+ * model, without decoding the message into an intermediate {@link String}.
+ *
+ * <p>Only strict JSON, as produced by {@code dart:convert}, is accepted. The values produced are
+ * exactly those {@link org.json.JSONTokener} produces for the same input: objects and arrays become
+ * {@link JSONObject} and {@link JSONArray}, integers become {@link Integer} or {@link Long} when
+ * they fit, other numbers become {@link Double}, and {@code null} becomes {@link JSONObject#NULL}.
+ * For anything else, including the lenient syntax {@link org.json.JSONTokener} tolerates and
+ * malformed UTF-8, {@link #read(ByteBuffer)} returns null so that the caller can fall back to it.
+ */
+final class JSONByteBufferReader {
+  /** Unwinds the parser when the input is not strict JSON. */
+  private static final class UnsupportedSyntaxException extends Exception {
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      // Thrown routinely as a signal, not an error.
+      return this;
+    }
+  }
+
+  private static final UnsupportedSyntaxException UNSUPPORTED = new UnsupportedSyntaxException();
+
+  // Integers with at most this many digits cannot overflow a long.
+  private static final int MAX_SAFE_LONG_DIGITS = 18;
+
+  @NonNull private final ByteBuffer buffer;
+  private final int limit;
+  private int position;
+  @NonNull private char[] chars = new char[64];
+
+  private JSONByteBufferReader(@NonNull ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.position = buffer.position();
+    this.limit = buffer.limit();
+  }
+
+  /**
+   * Parses the remaining bytes of {@code message} as a single JSON value.
+   *
+   * <p>On success the message is consumed and the value is returned. If the message is not strict
+   * JSON, null is returned and the message is left untouched.
+   *
+   * @throws JSONException if the {@code org.json} model rejects a value, as it would when built by
+   *     {@link org.json.JSONTokener}.
+   */
+  @Nullable
+  static Object read(@NonNull ByteBuffer message) throws JSONException {
+    final JSONByteBufferReader reader = new JSONByteBufferReader(message);
+    try {
+      reader.skipWhitespace();
+      final Object value = reader.readValue();
+      if (reader.position != reader.limit) {
+        // JSONTokener rejects trailing content, including whitespace.
+        return null;
+      }
+      message.position(reader.limit);
+      return value;
+    } catch (UnsupportedSyntaxException e) {
+      return null;
+    }
+  }
+
+  private int peek() throws UnsupportedSyntaxException {
+    if (position >= limit) {
+      throw UNSUPPORTED;
+    }
+    return buffer.get(position) & 0xff;
+  }
+
+  private void expect(char c) throws UnsupportedSyntaxException {
+    if (peek() != c) {
+      throw UNSUPPORTED;
+    }
+    position++;
+  }
+
+  private void skipWhitespace() {
+    while (position < limit) {
+      final byte b = buffer.get(position);
+      if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+        return;
+      }
+      position++;
+    }
+  }
+
+  /** Ensures that the value just read is followed by a delimiter, as JSONTokener requires. */
+  private void expectDelimiter() throws UnsupportedSyntaxException {
+    if (position == limit) {
+      return;
+    }
+    final byte b = buffer.get(position);
+    if (b != ',' && b != ']' && b != '}' && b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+      throw UNSUPPORTED;
+    }
+  }
+
+  @NonNull
+  private Object readValue() throws UnsupportedSyntaxException, JSONException {
+    switch (peek()) {
+      case '{':
+        return readObject();
+      case '[':
+        return readArray();
+      case '"':
+        return readString();
+      case 't':
+        readKeyword("true");
+        return Boolean.TRUE;
+      case 'f':
+        readKeyword("false");
+        return Boolean.FALSE;
+      case 'n':
+        readKeyword("null");
+        return JSONObject.NULL;
+      default:
+        return readNumber();
+    }
+  }
+
+  @NonNull
+  private JSONObject readObject() throws UnsupportedSyntaxException, JSONException {
+    final JSONObject result = new JSONObject();
+    position++;
+    skipWhitespace();
+    if (peek() == '}') {
+      position++;
+      return result;
+    }
+    while (true) {
+      if (peek() != '"') {
+        throw UNSUPPORTED;
+      }
+      final String name = readString();
+      skipWhitespace();
+      expect(':');
+      skipWhitespace();
+      result.put(name, readValue());
+      skipWhitespace();
+      final int next = peek();
+      position++;
+      if (next == '}') {
+        return result;
+      } else if (next != ',') {
+        throw UNSUPPORTED;
+      }
+      skipWhitespace();
+    }
+  }
+
+  @NonNull
+  private JSONArray readArray() throws UnsupportedSyntaxException, JSONException {
+    final JSONArray result = new JSONArray();
+    position++;
+    skipWhitespace();
+    if (peek() == ']') {
+      position++;
+      return result;
+    }
+    while (true) {
+      result.put(readValue());
+      skipWhitespace();
+      final int next = peek();
+      position++;
+      if (next == ']') {
+        return result;
+      } else if (next != ',') {
+        throw UNSUPPORTED;
+      }
+      skipWhitespace();
+    }
+  }
+
+  private void readKeyword(@NonNull String keyword) throws UnsupportedSyntaxException {
+    for (int i = 0; i < keyword.length(); i++) {
+      expect(keyword.charAt(i));
+    }
+    expectDelimiter();
+  }
+
+  @NonNull
+  private Object readNumber() throws UnsupportedSyntaxException {
+    final int start = position;
+    final boolean negative = peek() == '-';
+    if (negative) {
+      position++;
+    }
+    final int integerStart = position;
+    if (peek() == '0') {
+      position++;
+    } else {
+      skipDigits();
+    }
+    final int integerDigits = position - integerStart;
+    boolean isIntegral = true;
+    if (position < limit && buffer.get(position) == '.') {
+      isIntegral = false;
+      position++;
+      skipDigits();
+    }
+    if (position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+      isIntegral = false;
+      position++;
+      if (position < limit && (buffer.get(position) == '+' || buffer.get(position) == '-')) {
+        position++;
+      }
+      skipDigits();
+    }
+    expectDelimiter();
+
+    if (isIntegral && integerDigits <= MAX_SAFE_LONG_DIGITS) {
+      long value = 0;
+      for (int i = integerStart; i < position; i++) {
+        value = value * 10 + (buffer.get(i) - '0');
+      }
+      return boxIntegral(negative ? -value : value);
+    }
+    final String literal = readAscii(start, position);
+    if (isIntegral) {
+      try {
+        return boxIntegral(Long.parseLong(literal));
+      } catch (NumberFormatException e) {
+        // Too large for a long; JSONTokener reads these as doubles.
+      }
+    }
+    return Double.valueOf(literal);
+  }
+
+  /** Boxes {@code value} the way JSONTokener does: as an Integer when it fits. */
+  @NonNull
+  private static Object boxIntegral(long value) {
+    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+      return (int) value;
+    }
+    return value;
+  }
+
+  /** Skips one or more decimal digits. */
+  private void skipDigits() throws UnsupportedSyntaxException {
+    final int start = position;
+    while (position < limit) {
+      final byte b = buffer.get(position);
+      if (b < '0' || b > '9') {
+        break;
+      }
+      position++;
+    }
+    if (position == start) {
+      throw UNSUPPORTED;
+    }
+  }
+
+  @NonNull
+  private String readAscii(int start, int end) {
+    ensureChars(end - start);
+    for (int i = start; i < end; i++) {
+      chars[i - start] = (char) buffer.get(i);
+    }
+    return new String(chars, 0, end - start);
+  }
+
+  private void ensureChars(int count) {
+    if (chars.length < count) {
+      chars = Arrays.copyOf(chars, Math.max(count, 2 * chars.length));
+    }
+  }
+
+  /** Reads a string, decoding escapes and UTF-8 directly into the reader's char buffer. */
+  @NonNull
+  private String readString() throws UnsupportedSyntaxException {
+    position++;
+    int length = 0;
+    while (true) {
+      final int b = peek();
+      position++;
+      // Each byte decodes to at most one char, except 4-byte sequences, which decode to two.
+      ensureChars(length + 2);
+      if (b == '"') {
+        return new String(chars, 0, length);
+      } else if (b == '\\') {
+        chars[length++] = readEscape();
+      } else if (b < 0x20) {
+        // Strict JSON does not allow unescaped control characters.
+        throw UNSUPPORTED;
+      } else if (b < 0x80) {
+        chars[length++] = (char) b;
+      } else if (b < 0xc2) {
+        // Continuation byte or overlong encoding.
+        throw UNSUPPORTED;
+      } else if (b < 0xe0) {
+        chars[length++] = (char) (((b & 0x1f) << 6) | readContinuation());
+      } else if (b < 0xf0) {
+        final int codePoint = ((b & 0x0f) << 12) | (readContinuation() << 6) | readContinuation();
+        if (codePoint < 0x800 || (codePoint >= 0xd800 && codePoint <= 0xdfff)) {
+          throw UNSUPPORTED;
+        }
+        chars[length++] = (char) codePoint;
+      } else if (b < 0xf5) {
+        final int codePoint =
+            ((b & 0x07) << 18)
+                | (readContinuation() << 12)
+                | (readContinuation() << 6)
+                | readContinuation();
+        if (codePoint < 0x10000 || codePoint > Character.MAX_CODE_POINT) {
+          throw UNSUPPORTED;
+        }
+        final int supplementary = codePoint - 0x10000;
+        chars[length++] = (char) (0xd800 | (supplementary >>> 10));
+        chars[length++] = (char) (0xdc00 | (supplementary & 0x3ff));
+      } else {
+        throw UNSUPPORTED;
+      }
+    }
+  }
+
+  private int readContinuation() throws UnsupportedSyntaxException {
+    final int b = peek();
+    if ((b & 0xc0) != 0x80) {
+      throw UNSUPPORTED;
+    }
+    position++;
+    return b & 0x3f;
+  }
+
+  private char readEscape() throws UnsupportedSyntaxException {
+    final int c = peek();
+    position++;
+    switch (c) {
+      case '"':
+      case '\\':
+      case '/':
+        return (char) c;
+      case 'b':
+        return '\b';
+      case 'f':
+        return '\f';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 't':
+        return '\t';
+      case 'u':
+        {
+          int value = 0;
+          for (int i = 0; i < 4; i++) {
+            value = (value << 4) | hexDigit(peek());
+            position++;
+          }
+          return (char) value;
+        }
+      default:
+        throw UNSUPPORTED;
+    }
+  }
+
+  private static int hexDigit(int c) throws UnsupportedSyntaxException {
+    if (c >= '0' && c <= '9') {
+      return c - '0';
+    } else if (c >= 'a' && c <= 'f') {
+      return c - 'a' + 10;
+    } else if (c >= 'A' && c <= 'F') {
+      return c - 'A' + 10;
+    }
+    throw UNSUPPORTED;
+  }
+}
@@ -0,0 +1,204 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugin.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Serializes the {@code org.json} object model directly into UTF-8 encoded bytes, without building
+ * an intermediate {@link String}.
+ *
+ * <p>The bytes written are exactly those of {@link JSONObject#toString()} and {@link
+ * JSONArray#toString()} (or {@link JSONObject#quote(String)} for strings) encoded as UTF-8. For
+ * values whose encoding would differ, such as strings containing unpaired surrogates or numbers
+ * that {@code org.json} refuses to serialize, {@link #write(Object)} returns null so that the
+ * caller can fall back to those methods.
+ */
+final class JSONByteBufferWriter {
+  private static final byte[] HEX_DIGITS = {
+    '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'
+  };
+  private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+  private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+  private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+  /** Unwinds the writer when a value cannot be encoded exactly like org.json would. */
+  private static final class UnsupportedValueException extends Exception {
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      // Thrown routinely as a signal, not an error.
+      return this;
+    }
+  }
+
+  private static final UnsupportedValueException UNSUPPORTED = new UnsupportedValueException();
+
+  @NonNull private final DirectByteBufferOutputStream stream;
+
+  private JSONByteBufferWriter(@NonNull DirectByteBufferOutputStream stream) {
+    this.stream = stream;
+  }
+
+  /**
+   * Encodes {@code value}, a {@link JSONObject}, {@link JSONArray} or {@link String} as returned by
+   * {@link JSONUtil#wrap(Object)}, into a new direct buffer positioned at its end.
+   *
+   * <p>Returns null if {@code value} is of any other type, or cannot be encoded exactly like
+   * org.json would.
+   */
+  @Nullable
+  static ByteBuffer write(@Nullable Object value) {
+    if (!(value instanceof JSONObject || value instanceof JSONArray || value instanceof String)) {
+      // org.json serializes top-level scalars differently from nested ones; leave them to it.
+      return null;
+    }
+    final DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    try {
+      new JSONByteBufferWriter(stream).writeValue(value);
+      return stream.toDirectByteBuffer();
+    } catch (JSONException | UnsupportedValueException e) {
+      return null;
+    } finally {
+      stream.release();
+    }
+  }
+
+  /** Mirrors {@code JSONStringer.value(Object)}. */
+  private void writeValue(@NonNull Object value) throws JSONException, UnsupportedValueException {
+    if (value instanceof JSONObject) {
+      writeObject((JSONObject) value);
+    } else if (value instanceof JSONArray) {
+      writeArray((JSONArray) value);
+    } else if (value instanceof String) {
+      writeString((String) value);
+    } else if (value == JSONObject.NULL) {
+      stream.write(NULL, 0, NULL.length);
+    } else if (value instanceof Boolean) {
+      final byte[] bytes = ((Boolean) value) ? TRUE : FALSE;
+      stream.write(bytes, 0, bytes.length);
+    } else if (value instanceof Number) {
+      writeAscii(JSONObject.numberToString((Number) value));
+    } else {
+      writeString(value.toString());
+    }
+  }
+
+  private void writeObject(@NonNull JSONObject object)
+      throws JSONException, UnsupportedValueException {
+    stream.write('{');
+    final Iterator<String> names = object.keys();
+    boolean first = true;
+    while (names.hasNext()) {
+      if (!first) {
+        stream.write(',');
+      }
+      first = false;
+      final String name = names.next();
+      writeString(name);
+      stream.write(':');
+      writeValue(object.get(name));
+    }
+    stream.write('}');
+  }
+
+  private void writeArray(@NonNull JSONArray array)
+      throws JSONException, UnsupportedValueException {
+    stream.write('[');
+    final int length = array.length();
+    for (int i = 0; i < length; i++) {
+      if (i > 0) {
+        stream.write(',');
+      }
+      final Object element = array.opt(i);
+      if (element == null) {
+        stream.write(NULL, 0, NULL.length);
+      } else {
+        writeValue(element);
+      }
+    }
+    stream.write(']');
+  }
+
+  private void writeAscii(@NonNull String value) {
+    for (int i = 0; i < value.length(); i++) {
+      stream.write(value.charAt(i));
+    }
+  }
+
+  /** Mirrors {@code JSONStringer.string(String)}, followed by UTF-8 encoding. */
+  private void writeString(@NonNull String value) throws UnsupportedValueException {
+    stream.write('"');
+    final int length = value.length();
+    for (int i = 0; i < length; i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '"':
+        case '\\':
+        case '/':
+          stream.write('\\');
+          stream.write(c);
+          break;
+        case '\t':
+          stream.write('\\');
+          stream.write('t');
+          break;
+        case '\b':
+          stream.write('\\');
+          stream.write('b');
+          break;
+        case '\n':
+          stream.write('\\');
+          stream.write('n');
+          break;
+        case '\r':
+          stream.write('\\');
+          stream.write('r');
+          break;
+        case '\f':
+          stream.write('\\');
+          stream.write('f');
+          break;
+        default:
+          if (c <= 0x1f) {
+            stream.write('\\');
+            stream.write('u');
+            stream.write('0');
+            stream.write('0');
+            stream.write(HEX_DIGITS[c >> 4]);
+            stream.write(HEX_DIGITS[c & 0xf]);
+          } else if (c < 0x80) {
+            stream.write(c);
+          } else if (c < 0x800) {
+            stream.write(0xc0 | (c >> 6));
+            stream.write(0x80 | (c & 0x3f));
+          } else if (c < 0xd800 || c > 0xdfff) {
+            stream.write(0xe0 | (c >> 12));
+            stream.write(0x80 | ((c >> 6) & 0x3f));
+            stream.write(0x80 | (c & 0x3f));
+          } else {
+            final char low = i + 1 < length ? value.charAt(i + 1) : 0;
+            if (c > 0xdbff || low < 0xdc00 || low > 0xdfff) {
+              // Unpaired surrogate; leave the replacement to String.getBytes.
+              throw UNSUPPORTED;
+            }
+            final int codePoint = 0x10000 + (((c & 0x3ff) << 10) | (low & 0x3ff));
+            stream.write(0xf0 | (codePoint >> 18));
+            stream.write(0x80 | ((codePoint >> 12) & 0x3f));
+            stream.write(0x80 | ((codePoint >> 6) & 0x3f));
+            stream.write(0x80 | (codePoint & 0x3f));
+            i++;
+          }
+          break;
+      }
+    }
+    stream.write('"');
+  }
+}
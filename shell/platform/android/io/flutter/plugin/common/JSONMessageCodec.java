@@ -19,6 +19,10 @@ import org.json.JSONTokener;
  *
  * <p>Supports the same Java values as {@link JSONObject#wrap(Object)}.
  *
+ * <p>Messages are parsed from and serialized to UTF-8 directly, without an intermediate {@link
+ * String}. Decoding falls back to {@link JSONTokener} for input that is not strict JSON, so the
+ * values produced are the same as if the message had been parsed with it.
+ *
  * <p>On the Dart side, JSON messages are handled by the JSON facilities of the <a
  * href="https://api.dartlang.org/stable/dart-convert/JSON-constant.html">dart:convert</a> package.
  */
@@ -35,6 +39,10 @@ public final class JSONMessageCodec implements MessageCodec<Object> {
       return null;
     }
     final Object wrapped = JSONUtil.wrap(message);
+    final ByteBuffer encoded = JSONByteBufferWriter.write(wrapped);
+    if (encoded != null) {
+      return encoded;
+    }
     if (wrapped instanceof String) {
       return StringCodec.INSTANCE.encodeMessage(JSONObject.quote((String) wrapped));
     } else {
@@ -49,6 +57,11 @@ public final class JSONMessageCodec implements MessageCodec<Object> {
       return null;
     }
     try {
+      final Object parsed = JSONByteBufferReader.read(message);
+      if (parsed != null) {
+        return parsed;
+      }
+      // Not strict JSON; let JSONTokener handle or reject it.
       final String json = StringCodec.INSTANCE.decodeMessage(message);
       final JSONTokener tokener = new JSONTokener(json);
       final Object value = tokener.nextValue();
@@ -61,6 +61,11 @@ import java.util.Map.Entry;
  * integer's value.
  *
  * <p>To extend the codec, overwrite the writeValue and readValueOfType methods.
+ *
+ * <p>Messages are written into a pooled direct buffer that grows as needed. Because the caller owns
+ * the returned buffer, each call to {@link #encodeMessage(Object)} still allocates a new direct
+ * buffer of exactly the message's size and copies the message into it. {@link StandardMethodCodec}
+ * encodes method calls and envelopes the same way.
  */
 public class StandardMessageCodec implements MessageCodec<Object> {
   private static final String TAG = "StandardMessageCodec#";
@@ -72,11 +77,13 @@ public class StandardMessageCodec implements MessageCodec<Object> {
     if (message == null) {
       return null;
     }
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    writeValue(stream, message);
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
+    final DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    try {
+      writeValue(stream, message);
+      return stream.toDirectByteBuffer();
+    } finally {
+      stream.release();
+    }
   }
 
   @Override
@@ -94,7 +101,7 @@ public class StandardMessageCodec implements MessageCodec<Object> {
   }
 
   private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
-  private static final Charset UTF8 = Charset.forName("UTF8");
+  static final Charset UTF8 = Charset.forName("UTF8");
   private static final byte NULL = 0;
   private static final byte TRUE = 1;
   private static final byte FALSE = 2;
@@ -102,14 +109,14 @@ public class StandardMessageCodec implements MessageCodec<Object> {
   private static final byte LONG = 4;
   private static final byte BIGINT = 5;
   private static final byte DOUBLE = 6;
-  private static final byte STRING = 7;
-  private static final byte BYTE_ARRAY = 8;
-  private static final byte INT_ARRAY = 9;
-  private static final byte LONG_ARRAY = 10;
-  private static final byte DOUBLE_ARRAY = 11;
+  static final byte STRING = 7;
+  static final byte BYTE_ARRAY = 8;
+  static final byte INT_ARRAY = 9;
+  static final byte LONG_ARRAY = 10;
+  static final byte DOUBLE_ARRAY = 11;
   private static final byte LIST = 12;
   private static final byte MAP = 13;
-  private static final byte FLOAT_ARRAY = 14;
+  static final byte FLOAT_ARRAY = 14;
 
   /**
    * Writes an int representing a size to the specified stream. Uses an expanding code of 1 to 5
@@ -132,7 +139,9 @@ public class StandardMessageCodec implements MessageCodec<Object> {
 
   /** Writes the least significant two bytes of the specified int to the specified stream. */
   protected static final void writeChar(@NonNull ByteArrayOutputStream stream, int value) {
-    if (LITTLE_ENDIAN) {
+    if (stream instanceof DirectByteBufferOutputStream) {
+      ((DirectByteBufferOutputStream) stream).putChar(value);
+    } else if (LITTLE_ENDIAN) {
       stream.write(value);
       stream.write(value >>> 8);
     } else {
@@ -143,7 +152,9 @@ public class StandardMessageCodec implements MessageCodec<Object> {
 
   /** Writes the specified int as 4 bytes to the specified stream. */
   protected static final void writeInt(@NonNull ByteArrayOutputStream stream, int value) {
-    if (LITTLE_ENDIAN) {
+    if (stream instanceof DirectByteBufferOutputStream) {
+      ((DirectByteBufferOutputStream) stream).putInt(value);
+    } else if (LITTLE_ENDIAN) {
       stream.write(value);
       stream.write(value >>> 8);
       stream.write(value >>> 16);
@@ -158,7 +169,9 @@ public class StandardMessageCodec implements MessageCodec<Object> {
 
   /** Writes the specified long as 8 bytes to the specified stream. */
   protected static final void writeLong(@NonNull ByteArrayOutputStream stream, long value) {
-    if (LITTLE_ENDIAN) {
+    if (stream instanceof DirectByteBufferOutputStream) {
+      ((DirectByteBufferOutputStream) stream).putLong(value);
+    } else if (LITTLE_ENDIAN) {
       stream.write((byte) value);
       stream.write((byte) (value >>> 8));
       stream.write((byte) (value >>> 16));
@@ -181,12 +194,20 @@ public class StandardMessageCodec implements MessageCodec<Object> {
 
   /** Writes the specified double as 4 bytes to the specified stream */
   protected static final void writeFloat(@NonNull ByteArrayOutputStream stream, float value) {
-    writeInt(stream, Float.floatToIntBits(value));
+    if (stream instanceof DirectByteBufferOutputStream) {
+      ((DirectByteBufferOutputStream) stream).putFloat(value);
+    } else {
+      writeInt(stream, Float.floatToIntBits(value));
+    }
   }
 
   /** Writes the specified double as 8 bytes to the specified stream. */
   protected static final void writeDouble(@NonNull ByteArrayOutputStream stream, double value) {
-    writeLong(stream, Double.doubleToLongBits(value));
+    if (stream instanceof DirectByteBufferOutputStream) {
+      ((DirectByteBufferOutputStream) stream).putDouble(value);
+    } else {
+      writeLong(stream, Double.doubleToLongBits(value));
+    }
   }
 
   /** Writes the length and then the actual bytes of the specified array to the specified stream. */
@@ -250,24 +271,36 @@ public class StandardMessageCodec implements MessageCodec<Object> {
       final int[] array = (int[]) value;
       writeSize(stream, array.length);
       writeAlignment(stream, 4);
-      for (final int n : array) {
-        writeInt(stream, n);
+      if (stream instanceof DirectByteBufferOutputStream) {
+        ((DirectByteBufferOutputStream) stream).putInts(array);
+      } else {
+        for (final int n : array) {
+          writeInt(stream, n);
+        }
       }
     } else if (value instanceof long[]) {
       stream.write(LONG_ARRAY);
       final long[] array = (long[]) value;
       writeSize(stream, array.length);
       writeAlignment(stream, 8);
-      for (final long n : array) {
-        writeLong(stream, n);
+      if (stream instanceof DirectByteBufferOutputStream) {
+        ((DirectByteBufferOutputStream) stream).putLongs(array);
+      } else {
+        for (final long n : array) {
+          writeLong(stream, n);
+        }
       }
     } else if (value instanceof double[]) {
       stream.write(DOUBLE_ARRAY);
       final double[] array = (double[]) value;
       writeSize(stream, array.length);
       writeAlignment(stream, 8);
-      for (final double d : array) {
-        writeDouble(stream, d);
+      if (stream instanceof DirectByteBufferOutputStream) {
+        ((DirectByteBufferOutputStream) stream).putDoubles(array);
+      } else {
+        for (final double d : array) {
+          writeDouble(stream, d);
+        }
       }
     } else if (value instanceof List) {
       stream.write(LIST);
@@ -289,8 +322,12 @@ public class StandardMessageCodec implements MessageCodec<Object> {
       final float[] array = (float[]) value;
       writeSize(stream, array.length);
       writeAlignment(stream, 4);
-      for (final float f : array) {
-        writeFloat(stream, f);
+      if (stream instanceof DirectByteBufferOutputStream) {
+        ((DirectByteBufferOutputStream) stream).putFloats(array);
+      } else {
+        for (final float f : array) {
+          writeFloat(stream, f);
+        }
       }
     } else {
       throw new IllegalArgumentException(
@@ -451,10 +488,4 @@ public class StandardMessageCodec implements MessageCodec<Object> {
     }
     return result;
   }
-
-  static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
-    byte[] buffer() {
-      return buf;
-    }
-  }
 }
@@ -6,7 +6,6 @@ package io.flutter.plugin.common;
 
 import androidx.annotation.NonNull;
 import io.flutter.Log;
-import io.flutter.plugin.common.StandardMessageCodec.ExposedByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -33,12 +32,14 @@ public final class StandardMethodCodec implements MethodCodec {
   @Override
   @NonNull
   public ByteBuffer encodeMethodCall(@NonNull MethodCall methodCall) {
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    messageCodec.writeValue(stream, methodCall.method);
-    messageCodec.writeValue(stream, methodCall.arguments);
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
+    final DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    try {
+      messageCodec.writeValue(stream, methodCall.method);
+      messageCodec.writeValue(stream, methodCall.arguments);
+      return stream.toDirectByteBuffer();
+    } finally {
+      stream.release();
+    }
   }
 
   @Override
@@ -56,30 +57,34 @@ public final class StandardMethodCodec implements MethodCodec {
   @Override
   @NonNull
   public ByteBuffer encodeSuccessEnvelope(@NonNull Object result) {
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    stream.write(0);
-    messageCodec.writeValue(stream, result);
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
+    final DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    try {
+      stream.write(0);
+      messageCodec.writeValue(stream, result);
+      return stream.toDirectByteBuffer();
+    } finally {
+      stream.release();
+    }
   }
 
   @Override
   @NonNull
   public ByteBuffer encodeErrorEnvelope(
       @NonNull String errorCode, @NonNull String errorMessage, @NonNull Object errorDetails) {
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    stream.write(1);
-    messageCodec.writeValue(stream, errorCode);
-    messageCodec.writeValue(stream, errorMessage);
-    if (errorDetails instanceof Throwable) {
-      messageCodec.writeValue(stream, Log.getStackTraceString((Throwable) errorDetails));
-    } else {
-      messageCodec.writeValue(stream, errorDetails);
+    final DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    try {
+      stream.write(1);
+      messageCodec.writeValue(stream, errorCode);
+      messageCodec.writeValue(stream, errorMessage);
+      if (errorDetails instanceof Throwable) {
+        messageCodec.writeValue(stream, Log.getStackTraceString((Throwable) errorDetails));
+      } else {
+        messageCodec.writeValue(stream, errorDetails);
+      }
+      return stream.toDirectByteBuffer();
+    } finally {
+      stream.release();
     }
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
   }
 
   @Override
@@ -89,19 +94,21 @@ public final class StandardMethodCodec implements MethodCodec {
       @NonNull String errorMessage,
       @NonNull Object errorDetails,
       @NonNull String errorStacktrace) {
-    final ExposedByteArrayOutputStream stream = new ExposedByteArrayOutputStream();
-    stream.write(1);
-    messageCodec.writeValue(stream, errorCode);
-    messageCodec.writeValue(stream, errorMessage);
-    if (errorDetails instanceof Throwable) {
-      messageCodec.writeValue(stream, Log.getStackTraceString((Throwable) errorDetails));
-    } else {
-      messageCodec.writeValue(stream, errorDetails);
+    final DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    try {
+      stream.write(1);
+      messageCodec.writeValue(stream, errorCode);
+      messageCodec.writeValue(stream, errorMessage);
+      if (errorDetails instanceof Throwable) {
+        messageCodec.writeValue(stream, Log.getStackTraceString((Throwable) errorDetails));
+      } else {
+        messageCodec.writeValue(stream, errorDetails);
+      }
+      messageCodec.writeValue(stream, errorStacktrace);
+      return stream.toDirectByteBuffer();
+    } finally {
+      stream.release();
     }
-    messageCodec.writeValue(stream, errorStacktrace);
-    final ByteBuffer buffer = ByteBuffer.allocateDirect(stream.size());
-    buffer.put(stream.buffer(), 0, stream.size());
-    return buffer;
   }
 
   @Override
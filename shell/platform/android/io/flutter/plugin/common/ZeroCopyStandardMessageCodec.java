@@ -0,0 +1,179 @@
+// Copyright 2013 The Flutter Authors. All rights reserved.
+// Use of this source code is governed by a BSD-style license that can be
+// found in the LICENSE file.
+
+package io.flutter.plugin.common;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A {@link StandardMessageCodec} that decodes typed data into read-only views over the incoming
+ * message instead of copying it into new Java arrays.
+ *
+ * <p>Values are decoded as follows, and are otherwise identical to {@link StandardMessageCodec}:
+ *
+ * <ul>
+ *   <li>Uint8List: read-only {@link ByteBuffer}
+ *   <li>Int32List: read-only {@link IntBuffer}
+ *   <li>Int64List: read-only {@link LongBuffer}
+ *   <li>Float32List: read-only {@link FloatBuffer}
+ *   <li>Float64List: read-only {@link DoubleBuffer}
+ *   <li>String: {@link String}, decoded without an intermediate byte array
+ * </ul>
+ *
+ * <p>The views share memory with the message they were decoded from. A message received from Dart
+ * through a {@link BinaryMessenger} is only valid for the duration of the handler invocation that
+ * receives it, so views decoded from it must not be used once that handler returns. Views decoded
+ * on the handler's thread during that invocation are invalidated automatically when it returns (see
+ * {@link BorrowedBufferViews}); any data needed afterwards must be copied out first.
+ *
+ * <p>The view types above are also accepted by the encoder, so decoded values can be sent back to
+ * Dart unchanged.
+ */
+public class ZeroCopyStandardMessageCodec extends StandardMessageCodec {
+  public static final ZeroCopyStandardMessageCodec INSTANCE = new ZeroCopyStandardMessageCodec();
+
+  private static final int MAX_STRING_SCRATCH_SIZE = 16 * 1024;
+  private static final ThreadLocal<byte[]> stringScratch = new ThreadLocal<>();
+
+  @Override
+  protected void writeValue(@NonNull ByteArrayOutputStream stream, @Nullable Object value) {
+    if (value instanceof ByteBuffer) {
+      final ByteBuffer buffer = (ByteBuffer) value;
+      stream.write(BYTE_ARRAY);
+      writeSize(stream, buffer.remaining());
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        stream.write(buffer.get(i));
+      }
+    } else if (value instanceof IntBuffer) {
+      final IntBuffer buffer = (IntBuffer) value;
+      stream.write(INT_ARRAY);
+      writeSize(stream, buffer.remaining());
+      writeAlignment(stream, 4);
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        writeInt(stream, buffer.get(i));
+      }
+    } else if (value instanceof LongBuffer) {
+      final LongBuffer buffer = (LongBuffer) value;
+      stream.write(LONG_ARRAY);
+      writeSize(stream, buffer.remaining());
+      writeAlignment(stream, 8);
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        writeLong(stream, buffer.get(i));
+      }
+    } else if (value instanceof DoubleBuffer) {
+      final DoubleBuffer buffer = (DoubleBuffer) value;
+      stream.write(DOUBLE_ARRAY);
+      writeSize(stream, buffer.remaining());
+      writeAlignment(stream, 8);
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        writeDouble(stream, buffer.get(i));
+      }
+    } else if (value instanceof FloatBuffer) {
+      final FloatBuffer buffer = (FloatBuffer) value;
+      stream.write(FLOAT_ARRAY);
+      writeSize(stream, buffer.remaining());
+      writeAlignment(stream, 4);
+      for (int i = buffer.position(); i < buffer.limit(); i++) {
+        writeFloat(stream, buffer.get(i));
+      }
+    } else {
+      super.writeValue(stream, value);
+    }
+  }
+
+  @Override
+  @Nullable
+  protected Object readValueOfType(byte type, @NonNull ByteBuffer buffer) {
+    switch (type) {
+      case STRING:
+        return readString(buffer);
+      case BYTE_ARRAY:
+        {
+          final int length = readSize(buffer);
+          return track(slice(buffer, length));
+        }
+      case INT_ARRAY:
+        {
+          final int length = readSize(buffer);
+          readAlignment(buffer, 4);
+          return track(slice(buffer, 4 * length).asIntBuffer());
+        }
+      case LONG_ARRAY:
+        {
+          final int length = readSize(buffer);
+          readAlignment(buffer, 8);
+          return track(slice(buffer, 8 * length).asLongBuffer());
+        }
+      case DOUBLE_ARRAY:
+        {
+          final int length = readSize(buffer);
+          readAlignment(buffer, 8);
+          return track(slice(buffer, 8 * length).asDoubleBuffer());
+        }
+      case FLOAT_ARRAY:
+        {
+          final int length = readSize(buffer);
+          readAlignment(buffer, 4);
+          return track(slice(buffer, 4 * length).asFloatBuffer());
+        }
+      default:
+        return super.readValueOfType(type, buffer);
+    }
+  }
+
+  /**
+   * Returns a read-only, native-order view of the next {@code byteCount} bytes of {@code buffer}
+   * and advances its position past them.
+   */
+  @NonNull
+  private static ByteBuffer slice(@NonNull ByteBuffer buffer, int byteCount) {
+    if (byteCount < 0 || byteCount > buffer.remaining()) {
+      throw new IllegalArgumentException("Message corrupted");
+    }
+    final ByteBuffer view = buffer.slice();
+    view.limit(byteCount);
+    buffer.position(buffer.position() + byteCount);
+    return view.asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+  }
+
+  @NonNull
+  private static <T extends Buffer> T track(@NonNull T view) {
+    BorrowedBufferViews.track(view);
+    return view;
+  }
+
+  @NonNull
+  private static String readString(@NonNull ByteBuffer buffer) {
+    final int length = readSize(buffer);
+    if (length > buffer.remaining()) {
+      throw new IllegalArgumentException("Message corrupted");
+    }
+    if (buffer.hasArray()) {
+      final String result =
+          new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF8);
+      buffer.position(buffer.position() + length);
+      return result;
+    }
+    // Direct buffers have no accessible array; decode through a per-thread scratch array that is
+    // reused across strings rather than allocating one per string.
+    byte[] scratch = stringScratch.get();
+    if (scratch == null || scratch.length < length) {
+      scratch = new byte[Math.max(length, 64)];
+      if (length <= MAX_STRING_SCRATCH_SIZE) {
+        stringScratch.set(scratch);
+      }
+    }
+    buffer.get(scratch, 0, length);
+    return new String(scratch, 0, length, UTF8);
+  }
+}
@@ -44,8 +44,10 @@ class ListenableEditingState extends SpannableStringBuilder {
   private ArrayList<EditingStateWatcher> mListeners = new ArrayList<>();
   private ArrayList<EditingStateWatcher> mPendingListeners = new ArrayList<>();
   private ArrayList<TextEditingDelta> mBatchTextEditingDeltas = new ArrayList<>();
+  private boolean mDeltaRecordingEnabled = true;
 
   private String mToStringCache;
+  private long mTextVersion = 0;
 
   private String mTextWhenBeginBatchEdit;
   private int mSelectionStartWhenBeginBatchEdit;
@@ -86,6 +88,27 @@ class ListenableEditingState extends SpannableStringBuilder {
     mBatchTextEditingDeltas.clear();
   }
 
+  /// Whether text editing deltas are recorded for extractBatchTextEditingDeltas.
+  ///
+  /// Each delta holds the text before the change, so recording them costs a copy of the text per
+  /// change. Listeners that do not use deltas should disable recording. Enabled by default.
+  public void setDeltaRecordingEnabled(boolean enabled) {
+    mDeltaRecordingEnabled = enabled;
+    if (!enabled) {
+      mBatchTextEditingDeltas.clear();
+    }
+  }
+
+  /// A number that changes every time the text changes, but not when only the selection or the
+  /// composing region changes.
+  ///
+  /// Comparing versions is a cheap way to tell whether the text is still the same as when it was
+  /// last seen, without comparing the text itself. Different versions do not imply different text,
+  /// since an edit can be undone by a later one.
+  public long getTextVersion() {
+    return mTextVersion;
+  }
+
   /// Starts a new batch edit during which change notifications will be put on hold until all batch
   /// edits end.
   ///
@@ -201,7 +224,7 @@ class ListenableEditingState extends SpannableStringBuilder {
       Log.e(TAG, "editing state should not be changed in a listener callback");
     }
 
-    final CharSequence oldText = toString();
+    final CharSequence oldText = mDeltaRecordingEnabled ? toString() : null;
 
     boolean textChanged = end - start != tbend - tbstart;
     for (int i = 0; i < end - start && !textChanged; i++) {
@@ -209,6 +232,7 @@ class ListenableEditingState extends SpannableStringBuilder {
     }
     if (textChanged) {
       mToStringCache = null;
+      mTextVersion++;
     }
 
     final int selectionStart = getSelectionStart();
@@ -217,16 +241,18 @@ class ListenableEditingState extends SpannableStringBuilder {
     final int composingEnd = getComposingEnd();
 
     final SpannableStringBuilder editable = super.replace(start, end, tb, tbstart, tbend);
-    mBatchTextEditingDeltas.add(
-        new TextEditingDelta(
-            oldText,
-            start,
-            end,
-            tb,
-            getSelectionStart(),
-            getSelectionEnd(),
-            getComposingStart(),
-            getComposingEnd()));
+    if (mDeltaRecordingEnabled) {
+      mBatchTextEditingDeltas.add(
+          new TextEditingDelta(
+              oldText,
+              start,
+              end,
+              tb,
+              getSelectionStart(),
+              getSelectionEnd(),
+              getComposingStart(),
+              getComposingEnd()));
+    }
 
     if (mBatchEditNestDepth > 0) {
       return editable;
@@ -278,6 +304,9 @@ class ListenableEditingState extends SpannableStringBuilder {
   @Override
   public void setSpan(Object what, int start, int end, int flags) {
     super.setSpan(what, start, end, flags);
+    if (!mDeltaRecordingEnabled) {
+      return;
+    }
     // Setting a span does not involve mutating the text value in the editing state. Here we create
     // a non text update delta with any updated selection and composing regions.
     mBatchTextEditingDeltas.add(
@@ -53,6 +53,10 @@ public class TextInputPlugin implements ListenableEditingState.EditingStateWatch
 
   // Initialize the "last seen" text editing values to a non-null value.
   private TextEditState mLastKnownFrameworkTextEditingState;
+  // The text version of mEditable when its text was last known to match the text of
+  // mLastKnownFrameworkTextEditingState, or -1. Comparing versions instead of the text keeps
+  // selection-only changes and other no-op updates cheap in large documents.
+  private long mLastKnownFrameworkTextVersion = -1;
 
   // When true following calls to createInputConnection will return the cached lastInputConnection
   // if the input
@@ -430,6 +434,8 @@ public class TextInputPlugin implements ListenableEditingState.EditingStateWatch
     mEditable =
         new ListenableEditingState(
             configuration.autofill != null ? configuration.autofill.editState : null, mView);
+    mEditable.setDeltaRecordingEnabled(configuration.enableDeltaModel);
+    mLastKnownFrameworkTextVersion = -1;
     updateAutofillConfigurationIfNeeded(configuration);
 
     // setTextInputClient will be followed by a call to setTextInputEditingState.
@@ -491,6 +497,7 @@ public class TextInputPlugin implements ListenableEditingState.EditingStateWatch
 
     mLastKnownFrameworkTextEditingState = state;
     mEditable.setEditingState(state);
+    mLastKnownFrameworkTextVersion = mEditable.getTextVersion();
 
     // Restart if needed. Restarting will also update the selection.
     if (mRestartInputPending) {
@@ -620,9 +627,11 @@ public class TextInputPlugin implements ListenableEditingState.EditingStateWatch
   @Override
   public void didChangeEditingState(
       boolean textChanged, boolean selectionChanged, boolean composingRegionChanged) {
+    final String text = mEditable.toString();
+    final long textVersion = mEditable.getTextVersion();
     if (textChanged) {
       // Notify the autofill manager of the value change.
-      notifyValueChanged(mEditable.toString());
+      notifyValueChanged(text);
     }
 
     final int selectionStart = mEditable.getSelectionStart();
@@ -635,35 +644,45 @@ public class TextInputPlugin implements ListenableEditingState.EditingStateWatch
     final boolean skipFrameworkUpdate =
         // The framework needs to send its editing state first.
         mLastKnownFrameworkTextEditingState == null
-            || (mEditable.toString().equals(mLastKnownFrameworkTextEditingState.text)
-                && selectionStart == mLastKnownFrameworkTextEditingState.selectionStart
+            || (selectionStart == mLastKnownFrameworkTextEditingState.selectionStart
                 && selectionEnd == mLastKnownFrameworkTextEditingState.selectionEnd
                 && composingStart == mLastKnownFrameworkTextEditingState.composingStart
-                && composingEnd == mLastKnownFrameworkTextEditingState.composingEnd);
+                && composingEnd == mLastKnownFrameworkTextEditingState.composingEnd
+                && textMatchesFramework(text, textVersion));
     if (!skipFrameworkUpdate) {
-      Log.v(TAG, "send EditingState to flutter: " + mEditable.toString());
+      // Only log the length, building a message with the whole text is expensive for large
+      // documents.
+      Log.v(TAG, "send EditingState to flutter, text length: " + text.length());
 
       if (configuration.enableDeltaModel) {
         textInputChannel.updateEditingStateWithDeltas(inputTarget.id, batchTextEditingDeltas);
         mEditable.clearBatchDeltas();
       } else {
         textInputChannel.updateEditingState(
-            inputTarget.id,
-            mEditable.toString(),
-            selectionStart,
-            selectionEnd,
-            composingStart,
-            composingEnd);
+            inputTarget.id, text, selectionStart, selectionEnd, composingStart, composingEnd);
       }
       mLastKnownFrameworkTextEditingState =
-          new TextEditState(
-              mEditable.toString(), selectionStart, selectionEnd, composingStart, composingEnd);
+          new TextEditState(text, selectionStart, selectionEnd, composingStart, composingEnd);
+      mLastKnownFrameworkTextVersion = textVersion;
     } else {
       // Don't accumulate deltas if they are not sent to the framework.
       mEditable.clearBatchDeltas();
     }
   }
 
+  // Whether text, at textVersion, is the text of mLastKnownFrameworkTextEditingState. The text is
+  // only compared when it has changed since it last matched.
+  private boolean textMatchesFramework(@NonNull String text, long textVersion) {
+    if (textVersion == mLastKnownFrameworkTextVersion) {
+      return true;
+    }
+    if (!text.equals(mLastKnownFrameworkTextEditingState.text)) {
+      return false;
+    }
+    mLastKnownFrameworkTextVersion = textVersion;
+    return true;
+  }
+
   // -------- End: ListenableEditingState watcher implementation -------
 
   // -------- Start: Autofill -------
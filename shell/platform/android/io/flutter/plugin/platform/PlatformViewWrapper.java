@@ -35,11 +35,19 @@ import io.flutter.util.ViewUtils;
  *
  * <p>Since the view is in the Android view hierarchy, keyboard and accessibility interactions
  * behave normally.
+ *
+ * <p>The render target is a surface that can only be drawn with a hardware canvas, whose buffers
+ * have to be redrawn in full. Instead, the wrapper tracks which of its areas descendants
+ * invalidate, and only updates the render target when an invalidated area is visible. How many
+ * pixels that damages and redraws is reported by {@link #getDamagedPixelCount()}, {@link
+ * #getRedrawnPixelCount()} and {@link #getRedrawnPixelsPerSecond()}.
  */
 @TargetApi(23)
 public class PlatformViewWrapper extends FrameLayout {
   private static final String TAG = "PlatformViewWrapper";
 
+  private static final long NANOS_PER_SECOND = 1000000000L;
+
   private int prevLeft;
   private int prevTop;
   private int left;
@@ -49,6 +57,26 @@ public class PlatformViewWrapper extends FrameLayout {
 
   private ViewTreeObserver.OnGlobalFocusChangeListener activeFocusListener;
 
+  // The visible area that descendants invalidated since the render target was last updated.
+  @NonNull private final Rect damage = new Rect();
+
+  private long minUpdateIntervalNanos;
+  private long lastUpdateTimeNanos;
+  // Whether `postedUpdate` is pending.
+  private boolean isUpdatePosted;
+  private final Runnable postedUpdate =
+      () -> {
+        isUpdatePosted = false;
+        invalidate();
+      };
+
+  private long textureUpdateCount;
+  private long damagedPixelCount;
+  private long redrawnPixelCount;
+  private long windowStartTimeNanos = System.nanoTime();
+  private long windowRedrawnPixelCount;
+  private long lastWindowRedrawnPixelCount;
+
   public PlatformViewWrapper(@NonNull Context context) {
     super(context);
     setWillNotDraw(false);
@@ -101,6 +129,79 @@ public class PlatformViewWrapper extends FrameLayout {
     return 0;
   }
 
+  /**
+   * Sets the minimum time between two updates of the render target caused by descendants.
+   *
+   * <p>Descendants that invalidate this view sooner than that after the previous update don't
+   * invalidate it right away. Instead, a single update is posted for when the interval has passed,
+   * and every invalidation until then is drawn by it. For example, an interval of two refresh
+   * periods halves the rate at which a view that animates every frame updates its texture. Defaults
+   * to 0, which updates the render target in the frame after every invalidation.
+   *
+   * @throws IllegalArgumentException if {@code minUpdateIntervalMillis} is negative.
+   */
+  public void setMinUpdateIntervalMillis(long minUpdateIntervalMillis) {
+    if (minUpdateIntervalMillis < 0) {
+      throw new IllegalArgumentException(
+          "minUpdateIntervalMillis must not be negative, was " + minUpdateIntervalMillis);
+    }
+    minUpdateIntervalNanos = minUpdateIntervalMillis * 1000000;
+  }
+
+  /** Returns the number of times the render target was updated. */
+  public long getTextureUpdateCount() {
+    return textureUpdateCount;
+  }
+
+  /**
+   * Returns the number of pixels that were invalidated when the render target was updated, summed
+   * over all updates.
+   */
+  public long getDamagedPixelCount() {
+    return damagedPixelCount;
+  }
+
+  /**
+   * Returns the number of pixels redrawn into the render target, summed over all updates. Every
+   * update redraws the whole render target.
+   */
+  public long getRedrawnPixelCount() {
+    return redrawnPixelCount;
+  }
+
+  /** Returns the number of pixels redrawn into the render target in the last second. */
+  public long getRedrawnPixelsPerSecond() {
+    return getRedrawnPixelsPerSecond(System.nanoTime());
+  }
+
+  @VisibleForTesting
+  long getRedrawnPixelsPerSecond(long nowNanos) {
+    final long elapsedNanos = nowNanos - windowStartTimeNanos;
+    if (elapsedNanos >= 2 * NANOS_PER_SECOND) {
+      return 0;
+    }
+    if (elapsedNanos >= NANOS_PER_SECOND) {
+      return windowRedrawnPixelCount;
+    }
+    return lastWindowRedrawnPixelCount;
+  }
+
+  @VisibleForTesting
+  void recordTextureUpdate(long nowNanos, long damagedPixels, long redrawnPixels) {
+    final long elapsedNanos = nowNanos - windowStartTimeNanos;
+    if (elapsedNanos >= NANOS_PER_SECOND) {
+      lastWindowRedrawnPixelCount =
+          elapsedNanos < 2 * NANOS_PER_SECOND ? windowRedrawnPixelCount : 0;
+      windowStartTimeNanos = nowNanos;
+      windowRedrawnPixelCount = 0;
+    }
+    windowRedrawnPixelCount += redrawnPixels;
+    textureUpdateCount++;
+    damagedPixelCount += damagedPixels;
+    redrawnPixelCount += redrawnPixels;
+    lastUpdateTimeNanos = nowNanos;
+  }
+
   /** Releases resources. */
   public void release() {
     if (renderTarget != null) {
@@ -134,15 +235,66 @@ public class PlatformViewWrapper extends FrameLayout {
   @Override
   public void onDescendantInvalidated(@NonNull View child, @NonNull View target) {
     super.onDescendantInvalidated(child, target);
-    invalidate();
+    final Rect targetRect = new Rect(0, 0, target.getWidth(), target.getHeight());
+    View view = target;
+    while (view != this) {
+      final ViewParent parent = view.getParent();
+      if (!view.getMatrix().isIdentity() || !(parent instanceof View)) {
+        // Transformed and detached views are assumed to invalidate everything.
+        addDamage(null);
+        return;
+      }
+      final View parentView = (View) parent;
+      targetRect.offset(
+          view.getLeft() - parentView.getScrollX(), view.getTop() - parentView.getScrollY());
+      view = parentView;
+    }
+    addDamage(targetRect);
   }
 
   @Override
   public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
-    invalidate();
+    if (location == null || dirty == null) {
+      addDamage(null);
+    } else {
+      final Rect childRect = new Rect(dirty);
+      childRect.offset(location[0] - getScrollX(), location[1] - getScrollY());
+      addDamage(childRect);
+    }
     return super.invalidateChildInParent(location, dirty);
   }
 
+  /**
+   * Records that {@code rect}, in the coordinates of this view, was invalidated, and invalidates
+   * this view if any of it is visible. A null {@code rect} invalidates everything.
+   */
+  private void addDamage(@Nullable Rect rect) {
+    if (rect == null) {
+      damage.set(0, 0, getWidth(), getHeight());
+    } else if (getClipChildren() && !rect.intersect(0, 0, getWidth(), getHeight())) {
+      // Descendants are clipped to the bounds of this view, so they can't change the render target.
+      return;
+    } else {
+      damage.union(rect);
+    }
+    if (isUpdatePosted) {
+      return;
+    }
+    final long waitNanos = lastUpdateTimeNanos + minUpdateIntervalNanos - System.nanoTime();
+    if (minUpdateIntervalNanos == 0 || textureUpdateCount == 0 || waitNanos <= 0) {
+      invalidate();
+      return;
+    }
+    isUpdatePosted = true;
+    postOnAnimationDelayed(postedUpdate, (waitNanos + 999999) / 1000000);
+  }
+
+  @Override
+  protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+    super.onSizeChanged(width, height, oldWidth, oldHeight);
+    damage.set(0, 0, width, height);
+  }
+
   @Override
   @SuppressLint("NewApi")
   public void draw(Canvas canvas) {
@@ -151,6 +303,11 @@ public class PlatformViewWrapper extends FrameLayout {
       Log.e(TAG, "Platform view cannot be composed without a RenderTarget.");
       return;
     }
+    if (isUpdatePosted) {
+      // This draw includes the damage the posted update was for.
+      removeCallbacks(postedUpdate);
+      isUpdatePosted = false;
+    }
     final Canvas targetCanvas = renderTarget.lockHardwareCanvas();
     if (targetCanvas == null) {
       // Cannot render right now.
@@ -167,6 +324,15 @@ public class PlatformViewWrapper extends FrameLayout {
     } finally {
       renderTarget.unlockCanvasAndPost(targetCanvas);
     }
+    final long redrawnPixels = (long) renderTarget.getWidth() * renderTarget.getHeight();
+    // The view can also be drawn because it was invalidated itself, for example when it is laid
+    // out, in which case everything is damaged.
+    final long damagedPixels =
+        damage.isEmpty()
+            ? redrawnPixels
+            : Math.min((long) damage.width() * damage.height(), redrawnPixels);
+    damage.setEmpty();
+    recordTextureUpdate(System.nanoTime(), damagedPixels, redrawnPixels);
   }
 
   @Override
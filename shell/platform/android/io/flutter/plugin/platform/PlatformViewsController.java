@@ -141,12 +141,19 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
   // Platform view IDs that were displayed since the start of the current frame.
   private final HashSet<Integer> currentFrameUsedPlatformViewIds;
 
+  // Platform view parents and overlay views displayed since the start of the current frame, from
+  // bottom to top.
+  private final ArrayList<View> currentFrameDisplayOrder;
+
   // Used to acquire the original motion events using the motionEventIds.
   private final MotionEventTracker motionEventTracker;
 
   // Whether software rendering is used.
   private boolean usesSoftwareRendering = false;
 
+  // The minimum time between two updates of the render target of a platform view.
+  private long platformViewMinUpdateIntervalMillis = 0;
+
   private static boolean enableHardwareBufferRenderingTarget = false;
 
   private final PlatformViewsChannel.PlatformViewsHandler channelHandler =
@@ -616,6 +623,7 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
       textureId = renderTarget.getId();
     }
     viewWrapper.setTouchProcessor(androidTouchProcessor);
+    viewWrapper.setMinUpdateIntervalMillis(platformViewMinUpdateIntervalMillis);
     viewWrapper.resizeRenderTarget(physicalWidth, physicalHeight);
 
     final FrameLayout.LayoutParams viewWrapperLayoutParams =
@@ -682,21 +690,27 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
             .toArray(new PointerCoords[touch.pointerCount]);
 
     if (!usingVirtualDiplay && trackedEvent != null) {
-      return MotionEvent.obtain(
-          trackedEvent.getDownTime(),
-          trackedEvent.getEventTime(),
-          touch.action,
-          touch.pointerCount,
-          pointerProperties,
-          pointerCoords,
-          trackedEvent.getMetaState(),
-          trackedEvent.getButtonState(),
-          trackedEvent.getXPrecision(),
-          trackedEvent.getYPrecision(),
-          trackedEvent.getDeviceId(),
-          trackedEvent.getEdgeFlags(),
-          trackedEvent.getSource(),
-          trackedEvent.getFlags());
+      final MotionEvent event =
+          MotionEvent.obtain(
+              trackedEvent.getDownTime(),
+              trackedEvent.getEventTime(),
+              touch.action,
+              touch.pointerCount,
+              pointerProperties,
+              pointerCoords,
+              trackedEvent.getMetaState(),
+              trackedEvent.getButtonState(),
+              trackedEvent.getXPrecision(),
+              trackedEvent.getYPrecision(),
+              trackedEvent.getDeviceId(),
+              trackedEvent.getEdgeFlags(),
+              trackedEvent.getSource(),
+              trackedEvent.getFlags());
+      trackedEvent.recycle();
+      return event;
+    }
+    if (trackedEvent != null) {
+      trackedEvent.recycle();
     }
 
     // TODO (kaushikiska) : warn that we are potentially using an untracked
@@ -726,6 +740,7 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
     overlayLayerViews = new SparseArray<>();
     currentFrameUsedOverlayLayerIds = new HashSet<>();
     currentFrameUsedPlatformViewIds = new HashSet<>();
+    currentFrameDisplayOrder = new ArrayList<>();
     viewWrappers = new SparseArray<>();
     platformViews = new SparseArray<>();
     platformViewParent = new SparseArray<>();
@@ -773,6 +788,38 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
     usesSoftwareRendering = useSoftwareRendering;
   }
 
+  /**
+   * Sets the minimum time between two updates of the textures of platform views hosted in the view
+   * hierarchy. Applies to existing and new platform views. Defaults to 0, which doesn't limit
+   * updates.
+   *
+   * <p>See {@link PlatformViewWrapper#setMinUpdateIntervalMillis(long)}.
+   *
+   * @throws IllegalArgumentException if {@code minUpdateIntervalMillis} is negative.
+   */
+  public void setPlatformViewMinUpdateIntervalMillis(long minUpdateIntervalMillis) {
+    if (minUpdateIntervalMillis < 0) {
+      throw new IllegalArgumentException(
+          "minUpdateIntervalMillis must not be negative, was " + minUpdateIntervalMillis);
+    }
+    platformViewMinUpdateIntervalMillis = minUpdateIntervalMillis;
+    for (int index = 0; index < viewWrappers.size(); index++) {
+      viewWrappers.valueAt(index).setMinUpdateIntervalMillis(minUpdateIntervalMillis);
+    }
+  }
+
+  /**
+   * Returns the number of pixels redrawn into the textures of platform views hosted in the view
+   * hierarchy in the last second.
+   */
+  public long getPlatformViewRedrawnPixelsPerSecond() {
+    long pixels = 0;
+    for (int index = 0; index < viewWrappers.size(); index++) {
+      pixels += viewWrappers.valueAt(index).getRedrawnPixelsPerSecond();
+    }
+    return pixels;
+  }
+
   /**
    * Detaches this platform views controller.
    *
@@ -1154,16 +1201,13 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
     final FlutterMutatorView parentView = platformViewParent.get(viewId);
     parentView.readyToDisplay(mutatorsStack, x, y, width, height);
     parentView.setVisibility(View.VISIBLE);
-    parentView.bringToFront();
 
-    final FrameLayout.LayoutParams layoutParams =
-        new FrameLayout.LayoutParams(viewWidth, viewHeight);
     final View view = platformViews.get(viewId).getView();
     if (view != null) {
-      view.setLayoutParams(layoutParams);
-      view.bringToFront();
+      setFrameIfChanged(view, 0, 0, viewWidth, viewHeight);
     }
     currentFrameUsedPlatformViewIds.add(viewId);
+    currentFrameDisplayOrder.add(parentView);
   }
 
   /**
@@ -1187,18 +1231,36 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
       flutterView.addView(overlayView);
     }
 
-    FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams((int) width, (int) height);
-    layoutParams.leftMargin = (int) x;
-    layoutParams.topMargin = (int) y;
-    overlayView.setLayoutParams(layoutParams);
+    setFrameIfChanged(overlayView, x, y, width, height);
     overlayView.setVisibility(View.VISIBLE);
-    overlayView.bringToFront();
     currentFrameUsedOverlayLayerIds.add(id);
+    currentFrameDisplayOrder.add(overlayView);
+  }
+
+  // Sets the frame of a view in a FrameLayout, unless it already has this frame. Setting layout
+  // params requests a layout pass even if they are equal to the current ones.
+  private static void setFrameIfChanged(
+      @NonNull View view, int left, int top, int width, int height) {
+    final ViewGroup.LayoutParams currentLayoutParams = view.getLayoutParams();
+    if (currentLayoutParams instanceof FrameLayout.LayoutParams) {
+      final FrameLayout.LayoutParams current = (FrameLayout.LayoutParams) currentLayoutParams;
+      if (current.width == width
+          && current.height == height
+          && current.leftMargin == left
+          && current.topMargin == top) {
+        return;
+      }
+    }
+    final FrameLayout.LayoutParams layoutParams = new FrameLayout.LayoutParams(width, height);
+    layoutParams.leftMargin = left;
+    layoutParams.topMargin = top;
+    view.setLayoutParams(layoutParams);
   }
 
   public void onBeginFrame() {
     currentFrameUsedOverlayLayerIds.clear();
     currentFrameUsedPlatformViewIds.clear();
+    currentFrameDisplayOrder.clear();
   }
 
   /**
@@ -1252,7 +1314,12 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
         }
         // Hide overlay surfaces that aren't rendered in the current frame.
         overlayView.setVisibility(View.GONE);
-        flutterView.removeView(overlayView);
+        // While platform views are displayed, keep the overlay surface in the view hierarchy. The
+        // engine keeps it in its surface pool, so it is likely to be displayed again in one of the
+        // next frames, and removing and adding it back would lay out the Flutter view each time.
+        if (!flutterViewConvertedToImageView) {
+          flutterView.removeView(overlayView);
+        }
       }
     }
 
@@ -1276,6 +1343,36 @@ public class PlatformViewsController implements PlatformViewsAccessibilityDelega
         parentView.setVisibility(View.GONE);
       }
     }
+
+    if (!isDisplayOrderCurrent()) {
+      for (final View view : currentFrameDisplayOrder) {
+        view.bringToFront();
+      }
+    }
+  }
+
+  // Whether the views displayed in the current frame are already on top of the other visible
+  // children of the Flutter view, in the order they were displayed. Bringing a view to the front
+  // requests a layout pass, so the views are only reordered when the order changed.
+  private boolean isDisplayOrderCurrent() {
+    if (currentFrameDisplayOrder.isEmpty()) {
+      return true;
+    }
+    int next = currentFrameDisplayOrder.size() - 1;
+    for (int i = flutterView.getChildCount() - 1; i >= 0 && next >= 0; i--) {
+      final View child = flutterView.getChildAt(i);
+      if (child == currentFrameDisplayOrder.get(next)) {
+        next--;
+      } else if (!isHiddenInCurrentFrame(child)) {
+        return false;
+      }
+    }
+    return next < 0;
+  }
+
+  private boolean isHiddenInCurrentFrame(@NonNull View child) {
+    return (child instanceof FlutterMutatorView || child instanceof PlatformOverlayView)
+        && !currentFrameDisplayOrder.contains(child);
   }
 
   /**
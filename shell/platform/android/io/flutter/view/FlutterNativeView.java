@@ -14,6 +14,7 @@ import io.flutter.embedding.engine.FlutterEngine.EngineLifecycleListener;
 import io.flutter.embedding.engine.FlutterJNI;
 import io.flutter.embedding.engine.dart.DartExecutor;
 import io.flutter.embedding.engine.renderer.FlutterUiDisplayListener;
+import io.flutter.embedding.engine.systemchannels.KeyEventChannel;
 import io.flutter.plugin.common.*;
 import java.nio.ByteBuffer;
 
@@ -30,6 +31,7 @@ public class FlutterNativeView implements BinaryMessenger {
   private FlutterView mFlutterView;
   private final FlutterJNI mFlutterJNI;
   private final Context mContext;
+  private final KeyEventChannel keyEventChannel;
   private boolean applicationIsRunning;
 
   private final FlutterUiDisplayListener flutterUiDisplayListener =
@@ -61,6 +63,8 @@ public class FlutterNativeView implements BinaryMessenger {
     mFlutterJNI = new FlutterJNI();
     mFlutterJNI.addIsDisplayingFlutterUiListener(flutterUiDisplayListener);
     this.dartExecutor = new DartExecutor(mFlutterJNI, context.getAssets());
+    keyEventChannel = new KeyEventChannel(dartExecutor);
+    keyEventChannel.setEncodingHandler();
     mFlutterJNI.addEngineLifecycleListener(new EngineLifecycleListenerImpl());
     attach(this);
     assertAttached();
@@ -85,6 +89,12 @@ public class FlutterNativeView implements BinaryMessenger {
     return dartExecutor;
   }
 
+  /** The channel that sends key events to Flutter. */
+  @NonNull
+  public KeyEventChannel getKeyEventChannel() {
+    return keyEventChannel;
+  }
+
   @NonNull
   public FlutterPluginRegistry getPluginRegistry() {
     return mPluginRegistry;
@@ -187,6 +197,7 @@ public class FlutterNativeView implements BinaryMessenger {
     // Called by native to notify right before the engine is restarted (cold reload).
     @SuppressWarnings("unused")
     public void onPreEngineRestart() {
+      keyEventChannel.resetEncoding();
       if (mFlutterView != null) {
         mFlutterView.resetAccessibilityTree();
       }
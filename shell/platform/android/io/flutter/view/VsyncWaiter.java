@@ -11,8 +11,20 @@ import android.view.Display;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 import io.flutter.embedding.engine.FlutterJNI;
-
-// TODO(mattcarroll): add javadoc.
+import io.flutter.embedding.engine.renderer.FlutterRenderer;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Forwards vsync signals from the {@link Choreographer} to the engine, along with the refresh
+ * period of the display Flutter is being rendered on.
+ *
+ * <p>The engine keeps a single refresh rate for the whole process. On API 17+, that is the refresh
+ * rate of the display the most recently attached {@code FlutterView} is on, or of the default
+ * display when no view is attached. It is updated whenever that display's refresh rate changes, or
+ * when views are attached to and detached from displays, as reported by {@link
+ * #onViewAttachedToDisplay(int)} and {@link #onViewDetachedFromDisplay(int)}.
+ */
 public class VsyncWaiter {
   @TargetApi(17)
   class DisplayListener implements DisplayManager.DisplayListener {
@@ -30,17 +42,30 @@ public class VsyncWaiter {
     public void onDisplayAdded(int displayId) {}
 
     @Override
-    public void onDisplayRemoved(int displayId) {}
+    public void onDisplayRemoved(int displayId) {
+      final int previousDisplayId = getCurrentDisplayId();
+      attachedDisplayIds.removeAll(Collections.singleton(displayId));
+      if (getCurrentDisplayId() != previousDisplayId) {
+        updateRefreshRate();
+      }
+    }
 
     @Override
     public void onDisplayChanged(int displayId) {
-      if (displayId == Display.DEFAULT_DISPLAY) {
-        final Display primaryDisplay = displayManager.getDisplay(Display.DEFAULT_DISPLAY);
-        float fps = primaryDisplay.getRefreshRate();
-        VsyncWaiter.this.refreshPeriodNanos = (long) (1000000000.0 / fps);
-        VsyncWaiter.this.flutterJNI.setRefreshRateFPS(fps);
+      if (displayId == getCurrentDisplayId()) {
+        updateRefreshRate();
       }
     }
+
+    void updateRefreshRate() {
+      final Display display = displayManager.getDisplay(getCurrentDisplayId());
+      if (display == null) {
+        return;
+      }
+      float fps = display.getRefreshRate();
+      VsyncWaiter.this.refreshPeriodNanos = (long) (1000000000.0 / fps);
+      VsyncWaiter.this.flutterJNI.setRefreshRateFPS(fps);
+    }
   }
 
   private static VsyncWaiter instance;
@@ -48,6 +73,9 @@ public class VsyncWaiter {
   private long refreshPeriodNanos = -1;
   private FlutterJNI flutterJNI;
   private FrameCallback frameCallback = new FrameCallback(0);
+  // The IDs of the displays FlutterViews are attached to, in the order they were attached. A
+  // display appears once for each view attached to it.
+  private final ArrayList<Integer> attachedDisplayIds = new ArrayList<>();
 
   @NonNull
   public static VsyncWaiter getInstance(float fps, @NonNull FlutterJNI flutterJNI) {
@@ -79,6 +107,50 @@ public class VsyncWaiter {
     return instance;
   }
 
+  /**
+   * Notifies the vsync waiter that a {@code FlutterView} was attached to the display with the given
+   * ID, so that the engine is given that display's refresh rate.
+   *
+   * <p>Does nothing before the vsync waiter is initialized, or below API 17.
+   */
+  public static void onViewAttachedToDisplay(int displayId) {
+    if (instance == null || listener == null) {
+      return;
+    }
+    final int previousDisplayId = instance.getCurrentDisplayId();
+    instance.attachedDisplayIds.add(displayId);
+    if (displayId != previousDisplayId) {
+      listener.updateRefreshRate();
+    }
+  }
+
+  /**
+   * Notifies the vsync waiter that a {@code FlutterView} attached to the display with the given ID,
+   * as reported by {@link #onViewAttachedToDisplay(int)}, was detached from it.
+   */
+  public static void onViewDetachedFromDisplay(int displayId) {
+    if (instance == null || listener == null) {
+      return;
+    }
+    // The display may have been removed already.
+    final int index = instance.attachedDisplayIds.lastIndexOf(displayId);
+    if (index == -1) {
+      return;
+    }
+    final int previousDisplayId = instance.getCurrentDisplayId();
+    instance.attachedDisplayIds.remove(index);
+    if (instance.getCurrentDisplayId() != previousDisplayId) {
+      listener.updateRefreshRate();
+    }
+  }
+
+  // The display whose refresh rate is given to the engine.
+  private int getCurrentDisplayId() {
+    return attachedDisplayIds.isEmpty()
+        ? Display.DEFAULT_DISPLAY
+        : attachedDisplayIds.get(attachedDisplayIds.size() - 1);
+  }
+
   // For tests, to reset the singleton between tests.
   @VisibleForTesting
   public static void reset() {
@@ -89,6 +161,8 @@ public class VsyncWaiter {
   private class FrameCallback implements Choreographer.FrameCallback {
 
     private long cookie;
+    // When the callback was posted to the Choreographer, in System.nanoTime() time base.
+    private long postTimeNanos;
 
     FrameCallback(long cookie) {
       this.cookie = cookie;
@@ -96,11 +170,13 @@ public class VsyncWaiter {
 
     @Override
     public void doFrame(long frameTimeNanos) {
-      long delay = System.nanoTime() - frameTimeNanos;
+      final long now = System.nanoTime();
+      long delay = now - frameTimeNanos;
       if (delay < 0) {
         delay = 0;
       }
       flutterJNI.onVsync(delay, refreshPeriodNanos, cookie);
+      FlutterRenderer.onVsync(delay, refreshPeriodNanos, now - postTimeNanos);
       frameCallback = this;
     }
   }
@@ -108,7 +184,7 @@ public class VsyncWaiter {
   private final FlutterJNI.AsyncWaitForVsyncDelegate asyncWaitForVsyncDelegate =
       new FlutterJNI.AsyncWaitForVsyncDelegate() {
 
-        private Choreographer.FrameCallback obtainFrameCallback(final long cookie) {
+        private FrameCallback obtainFrameCallback(final long cookie) {
           if (frameCallback != null) {
             frameCallback.cookie = cookie;
             FrameCallback ret = frameCallback;
@@ -120,7 +196,9 @@ public class VsyncWaiter {
 
         @Override
         public void asyncWaitForVsync(long cookie) {
-          Choreographer.getInstance().postFrameCallback(obtainFrameCallback(cookie));
+          final FrameCallback callback = obtainFrameCallback(cookie);
+          callback.postTimeNanos = System.nanoTime();
+          Choreographer.getInstance().postFrameCallback(callback);
         }
       };
 
@@ -79,6 +79,20 @@ public class FlutterInjectorTest {
     }
   }
 
+  @Test
+  public void canConfigureTheDefaultExecutor() {
+    FlutterInjector.setInstance(
+        new FlutterInjector.Builder()
+            .setWorkerExecutorOptions(
+                new FlutterWorkerExecutor.Options().setCorePoolSize(3).setMaximumPoolSize(5))
+            .build());
+    FlutterInjector injector = FlutterInjector.instance();
+    assertTrue(injector.executorService() instanceof FlutterWorkerExecutor);
+    FlutterWorkerExecutor executor = (FlutterWorkerExecutor) injector.executorService();
+    assertEquals(3, executor.getCorePoolSize());
+    assertEquals(5, executor.getMaximumPoolSize());
+  }
+
   @Test
   public void canPartiallyOverride() {
     FlutterInjector.setInstance(
@@ -0,0 +1,184 @@
+package io.flutter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class FlutterWorkerExecutorTest {
+  private static long sum(long[] histogram) {
+    long sum = 0;
+    for (long count : histogram) {
+      sum += count;
+    }
+    return sum;
+  }
+
+  @Test
+  public void queuesTasksOnceEveryCoreThreadIsBusy() throws InterruptedException {
+    final FlutterWorkerExecutor executor =
+        new FlutterWorkerExecutor(new FlutterWorkerExecutor.Options().setCorePoolSize(2));
+    final CountDownLatch started = new CountDownLatch(2);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch finished = new CountDownLatch(10);
+    for (int i = 0; i < 10; i++) {
+      executor.execute(
+          () -> {
+            started.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+          });
+    }
+
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertEquals(2, executor.getPoolSize());
+    assertEquals(2, executor.getActiveCount());
+    assertEquals(8, executor.getQueueDepth());
+
+    release.countDown();
+    assertTrue(finished.await(5, TimeUnit.SECONDS));
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(2, executor.getLargestPoolSize());
+    assertEquals(0, executor.getRejectedTaskCount());
+    assertEquals(10, sum(executor.getQueueLatencyHistogram()));
+    assertEquals(10, sum(executor.getRunTimeHistogram()));
+  }
+
+  @Test
+  public void growsAndThenRejectsOnceABoundedQueueIsFull() throws InterruptedException {
+    final FlutterWorkerExecutor executor =
+        new FlutterWorkerExecutor(
+            new FlutterWorkerExecutor.Options()
+                .setCorePoolSize(1)
+                .setMaximumPoolSize(2)
+                .setQueueCapacity(1)
+                .setRejectionPolicy(FlutterWorkerExecutor.RejectionPolicy.ABORT));
+    final CountDownLatch release = new CountDownLatch(1);
+    final Runnable blocker =
+        () -> {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        };
+    executor.execute(blocker); // Runs on the core thread.
+    executor.execute(blocker); // Queued.
+    executor.execute(blocker); // Runs on a second thread.
+    assertEquals(2, executor.getPoolSize());
+
+    assertThrows(RejectedExecutionException.class, () -> executor.execute(blocker));
+    assertEquals(1, executor.getRejectedTaskCount());
+
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void runsRejectedTasksOnTheCallerByDefault() throws InterruptedException {
+    final FlutterWorkerExecutor executor =
+        new FlutterWorkerExecutor(
+            new FlutterWorkerExecutor.Options()
+                .setCorePoolSize(1)
+                .setMaximumPoolSize(1)
+                .setQueueCapacity(0));
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.execute(
+        () -> {
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+
+    final AtomicReference<Thread> ranOn = new AtomicReference<>();
+    executor.execute(() -> ranOn.set(Thread.currentThread()));
+    assertSame(Thread.currentThread(), ranOn.get());
+    assertEquals(1, executor.getRejectedTaskCount());
+
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void queuesTheCallersTasks() throws InterruptedException {
+    final FlutterWorkerExecutor executor =
+        new FlutterWorkerExecutor(new FlutterWorkerExecutor.Options().setCorePoolSize(1));
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.execute(
+        () -> {
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    final Runnable removed = () -> {};
+    final Runnable dropped = () -> {};
+    executor.execute(removed);
+    executor.execute(dropped);
+    assertEquals(Arrays.asList(removed, dropped), new ArrayList<>(executor.getQueue()));
+
+    assertTrue(executor.remove(removed));
+    assertEquals(Collections.singletonList(dropped), executor.shutdownNow());
+    assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    // Only the task that ran is counted.
+    assertEquals(1, sum(executor.getQueueLatencyHistogram()));
+    assertEquals(1, sum(executor.getRunTimeHistogram()));
+  }
+
+  @Test
+  public void countsLatenciesInPowerOfTwoMillisecondBuckets() {
+    assertEquals(0, FlutterWorkerExecutor.getLatencyBucket(0));
+    assertEquals(0, FlutterWorkerExecutor.getLatencyBucket(TimeUnit.MICROSECONDS.toNanos(1999)));
+    assertEquals(1, FlutterWorkerExecutor.getLatencyBucket(TimeUnit.MILLISECONDS.toNanos(2)));
+    assertEquals(2, FlutterWorkerExecutor.getLatencyBucket(TimeUnit.MILLISECONDS.toNanos(3)));
+    assertEquals(2, FlutterWorkerExecutor.getLatencyBucket(TimeUnit.MILLISECONDS.toNanos(4)));
+    assertEquals(10, FlutterWorkerExecutor.getLatencyBucket(TimeUnit.MILLISECONDS.toNanos(1024)));
+    assertEquals(11, FlutterWorkerExecutor.getLatencyBucket(TimeUnit.MILLISECONDS.toNanos(1025)));
+    assertEquals(11, FlutterWorkerExecutor.getLatencyBucket(TimeUnit.MINUTES.toNanos(1)));
+    final FlutterWorkerExecutor executor =
+        new FlutterWorkerExecutor(new FlutterWorkerExecutor.Options());
+    assertEquals(12, executor.getQueueLatencyHistogram().length);
+    assertEquals(12, executor.getRunTimeHistogram().length);
+    executor.shutdown();
+  }
+
+  @Test
+  public void rejectsInvalidOptions() {
+    final FlutterWorkerExecutor.Options options = new FlutterWorkerExecutor.Options();
+    assertThrows(IllegalArgumentException.class, () -> options.setCorePoolSize(0));
+    assertThrows(IllegalArgumentException.class, () -> options.setMaximumPoolSize(0));
+    assertThrows(IllegalArgumentException.class, () -> options.setQueueCapacity(-1));
+    assertThrows(IllegalArgumentException.class, () -> options.setKeepAliveMillis(0));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new FlutterWorkerExecutor(options.setCorePoolSize(4).setMaximumPoolSize(2)));
+  }
+}
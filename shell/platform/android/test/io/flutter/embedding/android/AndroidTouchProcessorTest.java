@@ -1,9 +1,11 @@
 package io.flutter.embedding.android;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -49,6 +51,18 @@ public class AndroidTouchProcessorTest {
     touchProcessor = new AndroidTouchProcessor(mockRenderer, false);
   }
 
+  private static final int BYTES_PER_POINTER = 35 * AndroidTouchProcessor.BYTES_PER_FIELD;
+
+  private ByteBuffer slicePointer(ByteBuffer packet, int index) {
+    ByteBuffer pointer = packet.duplicate();
+    pointer.position(index * BYTES_PER_POINTER);
+    return pointer.slice().order(packet.order());
+  }
+
+  private long readPlatformData(ByteBuffer buffer) {
+    return buffer.getLong(26 * AndroidTouchProcessor.BYTES_PER_FIELD);
+  }
+
   private long readTimeStamp(ByteBuffer buffer) {
     return buffer.getLong(1 * AndroidTouchProcessor.BYTES_PER_FIELD);
   }
@@ -256,6 +270,135 @@ public class AndroidTouchProcessorTest {
     inOrder.verifyNoMoreInteractions();
   }
 
+  // Asserts that no bytes of an earlier event are left in `packet` after the current one.
+  private static void assertZeroFrom(int size, ByteBuffer packet) {
+    for (int index = size; index < packet.capacity(); index++) {
+      assertEquals(0, packet.get(index));
+    }
+  }
+
+  @Test
+  public void sendsEachEventWhenReusingThePacket() {
+    MotionEventMocker mocker =
+        new MotionEventMocker(0, InputDevice.SOURCE_TOUCHSCREEN, MotionEvent.TOOL_TYPE_FINGER);
+    touchProcessor.setForwardsHistoricalSamples(true);
+    InOrder inOrder = inOrder(mockRenderer);
+    touchProcessor.onTouchEvent(mocker.mockEvent(MotionEvent.ACTION_DOWN, 0.0f, 0.0f, 0));
+    inOrder
+        .verify(mockRenderer)
+        .dispatchPointerDataPacket(packetCaptor.capture(), packetSizeCaptor.capture());
+    ByteBuffer firstPacket = packetCaptor.getValue();
+
+    // The number of samples goes up and down, so each packet is written over a longer or a shorter
+    // one. The engine reads the packet during the call, so check it before the next event.
+    for (int i = 1; i <= 30; i++) {
+      final int historySize = i % 3;
+      MotionEvent event = mocker.mockEvent(MotionEvent.ACTION_MOVE, 10.0f * i, -10.0f * i, 0);
+      when(event.getHistorySize()).thenReturn(historySize);
+      for (int h = 0; h < historySize; h++) {
+        when(event.getHistoricalX(0, h)).thenReturn(10.0f * i - 3 + h);
+        when(event.getHistoricalY(0, h)).thenReturn(-10.0f * i + 3 - h);
+        when(event.getHistoricalPressure(0, h)).thenReturn(0.5f);
+      }
+      touchProcessor.onTouchEvent(event);
+      inOrder
+          .verify(mockRenderer)
+          .dispatchPointerDataPacket(packetCaptor.capture(), packetSizeCaptor.capture());
+      ByteBuffer packet = packetCaptor.getValue();
+      assertSame(firstPacket, packet);
+      assertEquals((historySize + 1) * BYTES_PER_POINTER, (int) packetSizeCaptor.getValue());
+      assertZeroFrom((historySize + 1) * BYTES_PER_POINTER, packet);
+      for (int h = 0; h < historySize; h++) {
+        ByteBuffer sample = slicePointer(packet, h);
+        assertEquals(AndroidTouchProcessor.PointerChange.MOVE, readPointerChange(sample));
+        assertEquals(10.0 * i - 3 + h, readPointerPhysicalX(sample));
+        assertEquals(-10.0 * i + 3 - h, readPointerPhysicalY(sample));
+        assertEquals(0.5, readPressure(sample));
+        // Flagged as batched.
+        assertEquals(1, readPlatformData(sample));
+      }
+      ByteBuffer current = slicePointer(packet, historySize);
+      assertEquals(AndroidTouchProcessor.PointerChange.MOVE, readPointerChange(current));
+      assertEquals(10.0 * i, readPointerPhysicalX(current));
+      assertEquals(-10.0 * i, readPointerPhysicalY(current));
+      assertEquals((double) pressure, readPressure(current));
+      assertEquals(0, readPlatformData(current));
+    }
+
+    // More pointers than the packet holds grow it, and the grown packet is reused after.
+    MotionEvent manyPointers = mocker.mockEvent(MotionEvent.ACTION_MOVE, 1.0f, 2.0f, 0);
+    when(manyPointers.getPointerCount()).thenReturn(16);
+    touchProcessor.onTouchEvent(manyPointers);
+    inOrder
+        .verify(mockRenderer)
+        .dispatchPointerDataPacket(packetCaptor.capture(), packetSizeCaptor.capture());
+    ByteBuffer grownPacket = packetCaptor.getValue();
+    assertEquals(16 * BYTES_PER_POINTER, (int) packetSizeCaptor.getValue());
+    assertEquals(1.0, readPointerPhysicalX(grownPacket));
+    assertEquals(2.0, readPointerPhysicalY(grownPacket));
+
+    touchProcessor.onTouchEvent(mocker.mockEvent(MotionEvent.ACTION_UP, 5.0f, 6.0f, 0));
+    inOrder
+        .verify(mockRenderer)
+        .dispatchPointerDataPacket(packetCaptor.capture(), packetSizeCaptor.capture());
+    ByteBuffer packet = packetCaptor.getValue();
+    assertSame(grownPacket, packet);
+    assertEquals(BYTES_PER_POINTER, (int) packetSizeCaptor.getValue());
+    assertZeroFrom(BYTES_PER_POINTER, packet);
+    assertEquals(AndroidTouchProcessor.PointerChange.UP, readPointerChange(packet));
+    assertEquals(5.0, readPointerPhysicalX(packet));
+    assertEquals(6.0, readPointerPhysicalY(packet));
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  public void forwardsHistoricalSamplesWhenEnabled() {
+    MotionEventMocker mocker =
+        new MotionEventMocker(0, InputDevice.SOURCE_TOUCHSCREEN, MotionEvent.TOOL_TYPE_FINGER);
+    MotionEvent event = mocker.mockEvent(MotionEvent.ACTION_MOVE, 10.0f, 20.0f, 0);
+    when(event.getHistorySize()).thenReturn(2);
+    for (int h = 0; h < 2; h++) {
+      when(event.getHistoricalX(0, h)).thenReturn(h + 1.0f);
+      when(event.getHistoricalY(0, h)).thenReturn(h + 2.0f);
+      when(event.getHistoricalEventTime(h)).thenReturn(eventTimeMilliseconds - 2 + h);
+      when(event.getHistoricalPressure(0, h)).thenReturn(0.5f);
+    }
+
+    touchProcessor.onTouchEvent(event);
+    verify(mockRenderer)
+        .dispatchPointerDataPacket(packetCaptor.capture(), packetSizeCaptor.capture());
+    assertEquals(BYTES_PER_POINTER, (int) packetSizeCaptor.getValue());
+
+    touchProcessor.setForwardsHistoricalSamples(true);
+    touchProcessor.onTouchEvent(event);
+    verify(mockRenderer, times(2))
+        .dispatchPointerDataPacket(packetCaptor.capture(), packetSizeCaptor.capture());
+    assertEquals(3 * BYTES_PER_POINTER, (int) packetSizeCaptor.getValue());
+    ByteBuffer packet = packetCaptor.getValue();
+    for (int h = 0; h < 2; h++) {
+      ByteBuffer sample = slicePointer(packet, h);
+      assertEquals(AndroidTouchProcessor.PointerChange.MOVE, readPointerChange(sample));
+      assertEquals((eventTimeMilliseconds - 2 + h) * 1000, readTimeStamp(sample));
+      assertEquals(h + 1.0, readPointerPhysicalX(sample));
+      assertEquals(h + 2.0, readPointerPhysicalY(sample));
+      assertEquals(0.5, readPressure(sample));
+      assertEquals(1, readPlatformData(sample));
+    }
+    ByteBuffer current = slicePointer(packet, 2);
+    assertEquals(eventTimeMilliseconds * 1000, readTimeStamp(current));
+    assertEquals(10.0, readPointerPhysicalX(current));
+    assertEquals(20.0, readPointerPhysicalY(current));
+    assertEquals(0, readPlatformData(current));
+
+    // Only move events carry history.
+    MotionEvent up = mocker.mockEvent(MotionEvent.ACTION_UP, 10.0f, 20.0f, 0);
+    when(up.getHistorySize()).thenReturn(2);
+    touchProcessor.onTouchEvent(up);
+    verify(mockRenderer, times(3))
+        .dispatchPointerDataPacket(packetCaptor.capture(), packetSizeCaptor.capture());
+    assertEquals(BYTES_PER_POINTER, (int) packetSizeCaptor.getValue());
+  }
+
   @Test
   public void trackpadGesture() {
     MotionEventMocker mocker =
@@ -0,0 +1,55 @@
+package io.flutter.embedding.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class KeyDataPacketPoolTest {
+  @Test
+  public void recycledPacketsAreReused() {
+    final KeyDataPacketPool pool = new KeyDataPacketPool();
+    final ByteBuffer first = pool.obtain(48);
+    assertTrue(first.isDirect());
+    assertEquals(KeyDataPacketPool.MIN_CAPACITY, first.capacity());
+    pool.recycle(first);
+
+    for (int i = 0; i < 100; i++) {
+      final ByteBuffer packet = pool.obtain(52);
+      assertSame(first, packet);
+      pool.recycle(packet);
+    }
+    assertEquals(1, pool.getAllocationCount());
+  }
+
+  @Test
+  public void packetsInUseAreNotHandedOutTwice() {
+    final KeyDataPacketPool pool = new KeyDataPacketPool();
+    final ByteBuffer outer = pool.obtain(48);
+    final ByteBuffer nested = pool.obtain(48);
+    assertNotSame(outer, nested);
+    pool.recycle(nested);
+    pool.recycle(outer);
+    assertEquals(2, pool.getAllocationCount());
+  }
+
+  @Test
+  public void largePacketsAreNotPooled() {
+    final KeyDataPacketPool pool = new KeyDataPacketPool();
+    final ByteBuffer large = pool.obtain(100);
+    assertEquals(128, large.capacity());
+    pool.recycle(large);
+
+    assertNotSame(large, pool.obtain(100));
+    assertEquals(KeyDataPacketPool.MIN_CAPACITY, pool.obtain(48).capacity());
+    assertEquals(3, pool.getAllocationCount());
+  }
+}
@@ -0,0 +1,96 @@
+package io.flutter.embedding.android;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class KeyDataTest {
+  private static final String[] CHARACTERS = {
+    null,
+    "",
+    "a",
+    "\u00e9",
+    "\u20ac",
+    "\ud83d\ude00",
+    "a\u0301",
+    "\ud83d",
+    "x\ude00y",
+    "\ud83d\ud83d"
+  };
+
+  private static KeyData keyData(String character) {
+    final KeyData data = new KeyData();
+    data.timestamp = 0x0102030405060708L;
+    data.type = KeyData.Type.kRepeat;
+    data.physicalKey = 0x70004L;
+    data.logicalKey = 0x1100000041L;
+    data.synthesized = true;
+    data.character = character;
+    return data;
+  }
+
+  // The encoding KeyData used before it could be written in place.
+  private static byte[] legacyEncoding(KeyData data) throws UnsupportedEncodingException {
+    final byte[] charBytes = data.character == null ? null : data.character.getBytes("UTF-8");
+    final int charSize = charBytes == null ? 0 : charBytes.length;
+    final ByteBuffer packet = ByteBuffer.allocate(6 * 8 + charSize);
+    packet.order(ByteOrder.LITTLE_ENDIAN);
+    packet.putLong(charSize);
+    packet.putLong(data.timestamp);
+    packet.putLong(data.type.getValue());
+    packet.putLong(data.physicalKey);
+    packet.putLong(data.logicalKey);
+    packet.putLong(data.synthesized ? 1L : 0L);
+    if (charBytes != null) {
+      packet.put(charBytes);
+    }
+    return packet.array();
+  }
+
+  private static byte[] written(ByteBuffer packet) {
+    final byte[] bytes = new byte[packet.position()];
+    packet.rewind();
+    packet.get(bytes);
+    return bytes;
+  }
+
+  @Test
+  public void writeToMatchesTheLegacyEncoding() throws UnsupportedEncodingException {
+    final ByteBuffer packet = ByteBuffer.allocateDirect(128);
+    for (String character : CHARACTERS) {
+      final KeyData data = keyData(character);
+      final byte[] expected = legacyEncoding(data);
+      assertEquals(expected.length, data.getPacketSize());
+
+      data.writeTo(packet);
+      assertEquals(expected.length, packet.limit());
+      assertArrayEquals(expected, written(packet));
+      assertArrayEquals(expected, written(data.toBytes()));
+    }
+  }
+
+  @Test
+  public void writtenPacketsCanBeUnmarshalled() {
+    final ByteBuffer packet = ByteBuffer.allocateDirect(128);
+    for (String character : new String[] {null, "a", "\u20ac", "\ud83d\ude00"}) {
+      keyData(character).writeTo(packet);
+      packet.rewind();
+      final KeyData decoded = new KeyData(packet);
+      assertEquals(0x0102030405060708L, decoded.timestamp);
+      assertEquals(KeyData.Type.kRepeat, decoded.type);
+      assertEquals(0x70004L, decoded.physicalKey);
+      assertEquals(0x1100000041L, decoded.logicalKey);
+      assertEquals(true, decoded.synthesized);
+      assertEquals(character, decoded.character);
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package io.flutter.embedding.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.view.KeyEvent;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import io.flutter.plugin.common.BinaryMessenger;
+import io.flutter.util.FakeKeyEvent;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class KeyEmbedderResponderTest {
+  // A messenger that replies to every event synchronously, without allocating.
+  private static class ReplyingMessenger implements BinaryMessenger {
+    final ByteBuffer handledReply = ByteBuffer.allocateDirect(1).put(0, (byte) 1);
+    int sentCount = 0;
+
+    @Override
+    public void send(@NonNull String channel, @Nullable ByteBuffer message) {
+      send(channel, message, null);
+    }
+
+    @Override
+    public void send(
+        @NonNull String channel, @Nullable ByteBuffer message, @Nullable BinaryReply callback) {
+      sentCount++;
+      if (callback != null) {
+        callback.reply(handledReply);
+      }
+    }
+
+    @Override
+    public void setMessageHandler(
+        @NonNull String channel, @Nullable BinaryMessageHandler handler) {}
+  }
+
+  @Test
+  public void pressingAndReleasingKeysOnlyAllocatesTheReply() {
+    final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+    assumeTrue(allocations.isThreadAllocatedMemorySupported());
+    allocations.setThreadAllocatedMemoryEnabled(true);
+
+    final ReplyingMessenger messenger = new ReplyingMessenger();
+    final KeyEmbedderResponder responder = new KeyEmbedderResponder(messenger);
+    final KeyEvent down =
+        new FakeKeyEvent(KeyEvent.ACTION_DOWN, 0x1e, KeyEvent.KEYCODE_A, 0, 'a', 0);
+    final KeyEvent up = new FakeKeyEvent(KeyEvent.ACTION_UP, 0x1e, KeyEvent.KEYCODE_A, 0, 'a', 0);
+    final int[] handledCount = new int[1];
+    final KeyboardManager.Responder.OnKeyEventHandledCallback callback =
+        canHandleEvent -> {
+          if (canHandleEvent) {
+            handledCount[0]++;
+          }
+        };
+    final long threadId = Thread.currentThread().getId();
+    final int iterations = 10000;
+
+    pressAndRelease(responder, down, up, callback, iterations);
+    final long before = allocations.getThreadAllocatedBytes(threadId);
+    pressAndRelease(responder, down, up, callback, iterations);
+    final long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+
+    assertEquals(4 * iterations, messenger.sentCount);
+    assertEquals(4 * iterations, handledCount[0]);
+    // Each event allocates the reply that forwards the framework's response to `callback`, which
+    // is a small object. The scratch state of an event used to take hundreds of bytes.
+    final int events = 2 * iterations;
+    assertTrue("Allocated " + allocated + " bytes", allocated < events * 32L);
+  }
+
+  private static void pressAndRelease(
+      KeyEmbedderResponder responder,
+      KeyEvent down,
+      KeyEvent up,
+      KeyboardManager.Responder.OnKeyEventHandledCallback callback,
+      int iterations) {
+    for (int i = 0; i < iterations; i++) {
+      responder.handleEvent(down, callback);
+      responder.handleEvent(up, callback);
+    }
+  }
+}
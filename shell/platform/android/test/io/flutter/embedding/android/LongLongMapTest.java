@@ -0,0 +1,63 @@
+package io.flutter.embedding.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class LongLongMapTest {
+  private static final long PHYSICAL_KEY_A = 0x00070004L;
+  private static final long LOGICAL_KEY_A = 0x00000000061L;
+
+  @Test
+  public void putIfAbsentGetAndRemove() {
+    final LongLongMap map = new LongLongMap();
+
+    assertFalse(map.containsKey(PHYSICAL_KEY_A));
+    assertEquals(-1, map.get(PHYSICAL_KEY_A, -1));
+
+    assertTrue(map.putIfAbsent(PHYSICAL_KEY_A, LOGICAL_KEY_A));
+    assertFalse(map.putIfAbsent(PHYSICAL_KEY_A, 0));
+    assertTrue(map.containsKey(PHYSICAL_KEY_A));
+    assertEquals(LOGICAL_KEY_A, map.get(PHYSICAL_KEY_A, -1));
+    assertEquals(1, map.size());
+
+    assertTrue(map.remove(PHYSICAL_KEY_A));
+    assertFalse(map.remove(PHYSICAL_KEY_A));
+    assertEquals(0, map.size());
+  }
+
+  @Test
+  public void behavesLikeAHashMap() {
+    final LongLongMap map = new LongLongMap();
+    final HashMap<Long, Long> expected = new HashMap<>();
+    final Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      // Few distinct keys, so that entries are removed as often as they are added.
+      final long key = 0x00070000L + random.nextInt(64);
+      if (random.nextBoolean()) {
+        assertEquals(!expected.containsKey(key), map.putIfAbsent(key, i));
+        expected.putIfAbsent(key, (long) i);
+      } else {
+        assertEquals(expected.remove(key) != null, map.remove(key));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (long key = 0x00070000L; key < 0x00070000L + 64; key++) {
+      final Long value = expected.get(key);
+      assertEquals(value != null, map.containsKey(key));
+      assertEquals(value == null ? -1 : value, map.get(key, -1));
+    }
+    final Map<Long, Long> snapshot = map.toMap();
+    assertEquals(expected, snapshot);
+  }
+}
@@ -0,0 +1,107 @@
+package io.flutter.embedding.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+
+import android.view.MotionEvent;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class MotionEventTrackerTest {
+  private static MotionEvent eventAt(long eventTime) {
+    return MotionEvent.obtain(0, eventTime, MotionEvent.ACTION_MOVE, 0, 0, 0);
+  }
+
+  @Test
+  public void popReturnsACopyOfTheTrackedEvent() {
+    final MotionEventTracker tracker = new MotionEventTracker(4);
+    final MotionEvent original = eventAt(42);
+    final MotionEventTracker.MotionEventId id = tracker.track(original);
+
+    final MotionEvent popped = tracker.pop(id);
+    assertNotNull(popped);
+    assertEquals(42, popped.getEventTime());
+
+    // An event can only be popped once.
+    assertNull(tracker.pop(id));
+    assertEquals(1, tracker.getMissCount());
+  }
+
+  @Test
+  public void popDiscardsOlderEvents() {
+    final MotionEventTracker tracker = new MotionEventTracker(4);
+    final MotionEventTracker.MotionEventId first = tracker.track(eventAt(1));
+    final MotionEventTracker.MotionEventId second = tracker.track(eventAt(2));
+    final MotionEventTracker.MotionEventId third = tracker.track(eventAt(3));
+
+    assertEquals(2, tracker.pop(second).getEventTime());
+    assertNull(tracker.pop(first));
+    assertEquals(3, tracker.pop(third).getEventTime());
+    assertEquals(1, tracker.getMissCount());
+    assertEquals(0, tracker.getEvictionCount());
+  }
+
+  @Test
+  public void trackEvictsTheOldestEventWhenFull() {
+    final MotionEventTracker tracker = new MotionEventTracker(4);
+    final MotionEventTracker.MotionEventId[] ids = new MotionEventTracker.MotionEventId[6];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = tracker.track(eventAt(i));
+    }
+    assertEquals(2, tracker.getEvictionCount());
+
+    assertNull(tracker.pop(ids[0]));
+    assertNull(tracker.pop(ids[1]));
+    for (int i = 2; i < ids.length; i++) {
+      assertEquals(i, tracker.pop(ids[i]).getEventTime());
+    }
+    assertEquals(2, tracker.getMissCount());
+  }
+
+  @Test
+  public void popDiscardsOlderEventsAfterAGapLargerThanTheCapacity() {
+    final MotionEventTracker tracker = new MotionEventTracker(4);
+    final MotionEventTracker.MotionEventId stale = tracker.track(eventAt(1));
+    final MotionEventTracker.MotionEventId id = tracker.track(eventAt(2));
+    // IDs handed out elsewhere leave a gap larger than the capacity.
+    for (int i = 0; i < 10; i++) {
+      MotionEventTracker.MotionEventId.createUnique();
+    }
+    final MotionEventTracker.MotionEventId latest = tracker.track(eventAt(3));
+
+    assertEquals(3, tracker.pop(latest).getEventTime());
+    assertNull(tracker.pop(id));
+    assertNull(tracker.pop(stale));
+  }
+
+  @Test
+  public void setCapacityKeepsTheNewestEvents() {
+    final MotionEventTracker tracker = new MotionEventTracker(8);
+    final MotionEventTracker.MotionEventId[] ids = new MotionEventTracker.MotionEventId[6];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = tracker.track(eventAt(i));
+    }
+
+    tracker.setCapacity(2);
+    assertEquals(2, tracker.getCapacity());
+    assertEquals(4, tracker.getEvictionCount());
+    assertEquals(4, tracker.pop(ids[4]).getEventTime());
+    assertEquals(5, tracker.pop(ids[5]).getEventTime());
+
+    tracker.setCapacity(16);
+    final MotionEventTracker.MotionEventId next = tracker.track(eventAt(6));
+    assertEquals(6, tracker.pop(next).getEventTime());
+  }
+
+  @Test
+  public void setCapacityRejectsEmptyBuffers() {
+    final MotionEventTracker tracker = new MotionEventTracker(4);
+    assertThrows(IllegalArgumentException.class, () -> tracker.setCapacity(0));
+  }
+}
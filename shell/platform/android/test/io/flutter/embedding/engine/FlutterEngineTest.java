@@ -1,6 +1,7 @@
 package test.io.flutter.embedding.engine;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
@@ -28,12 +29,19 @@ import io.flutter.embedding.engine.FlutterEngine;
 import io.flutter.embedding.engine.FlutterEngine.EngineLifecycleListener;
 import io.flutter.embedding.engine.FlutterEngineGroup;
 import io.flutter.embedding.engine.FlutterJNI;
+import io.flutter.embedding.engine.dart.PlatformMessageHandler;
 import io.flutter.embedding.engine.loader.FlutterLoader;
 import io.flutter.embedding.engine.plugins.FlutterPlugin;
 import io.flutter.embedding.engine.plugins.PluginRegistry;
+import io.flutter.plugin.common.JSONMessageCodec;
+import io.flutter.plugin.common.JSONMethodCodec;
+import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.platform.PlatformViewsController;
 import io.flutter.plugins.GeneratedPluginRegistrant;
+import java.nio.ByteBuffer;
 import java.util.List;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -221,6 +229,52 @@ public class FlutterEngineTest {
     verify(platformViewsController, times(1)).onPreEngineRestart();
   }
 
+  @Test
+  public void itResetsNegotiatedEncodingsWhenDevHotRestart() throws JSONException {
+    FlutterJNI mockFlutterJNI = mock(FlutterJNI.class);
+    when(mockFlutterJNI.isAttached()).thenReturn(true);
+
+    FlutterEngine engine =
+        new FlutterEngine(
+            ctx,
+            mock(FlutterLoader.class),
+            mockFlutterJNI,
+            /*dartVmArgs=*/ new String[] {},
+            /*automaticallyRegisterPlugins=*/ false);
+
+    // Have the framework ask for the binary key event and text input encodings.
+    ArgumentCaptor<PlatformMessageHandler> platformMessageHandlerArgumentCaptor =
+        ArgumentCaptor.forClass(PlatformMessageHandler.class);
+    verify(mockFlutterJNI)
+        .setPlatformMessageHandler(platformMessageHandlerArgumentCaptor.capture());
+    PlatformMessageHandler platformMessageHandler = platformMessageHandlerArgumentCaptor.getValue();
+    JSONObject request = new JSONObject();
+    request.put("type", "setEncoding");
+    request.put("encoding", "binary");
+    ByteBuffer message = JSONMessageCodec.INSTANCE.encodeMessage(request);
+    message.rewind();
+    platformMessageHandler.handleMessageFromDart(
+        "flutter/keyevent", message, /*replyId=*/ 1, /*messageData=*/ 0);
+    message =
+        JSONMethodCodec.INSTANCE.encodeMethodCall(
+            new MethodCall("TextInput.setEncoding", "binary"));
+    message.rewind();
+    platformMessageHandler.handleMessageFromDart(
+        "flutter/textinput", message, /*replyId=*/ 2, /*messageData=*/ 0);
+    assertTrue(engine.getKeyEventChannel().isBinaryEncodingEnabled());
+    assertTrue(engine.getTextInputChannel().isBinaryEncodingEnabled());
+
+    ArgumentCaptor<FlutterEngine.EngineLifecycleListener> engineLifecycleListenerArgumentCaptor =
+        ArgumentCaptor.forClass(FlutterEngine.EngineLifecycleListener.class);
+    verify(mockFlutterJNI)
+        .addEngineLifecycleListener(engineLifecycleListenerArgumentCaptor.capture());
+    engineLifecycleListenerArgumentCaptor.getValue().onPreEngineRestart();
+
+    // The restarted framework has to ask for the binary encodings again.
+    assertFalse(engine.getKeyEventChannel().isBinaryEncodingEnabled());
+    assertFalse(engine.getTextInputChannel().isBinaryEncodingEnabled());
+  }
+
   @Test
   public void itNotifiesPlatformViewsControllerAboutJNILifecycle() {
     PlatformViewsController platformViewsController = mock(PlatformViewsController.class);
@@ -1,6 +1,7 @@
 package io.flutter.embedding.engine;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -13,6 +14,7 @@ import android.content.Context;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.LocaleList;
+import android.util.Size;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import io.flutter.embedding.engine.dart.DartExecutor;
 import io.flutter.embedding.engine.mutatorsstack.FlutterMutatorsStack;
@@ -280,4 +282,34 @@ public class FlutterJNITest {
     // --- Verify Results ---
     assertTrue(times[0] == 1L && times[1] == 2L && times[2] == 3L);
   }
+
+  @Test
+  public void decodedImageSizeIsUnboundedByDefault() {
+    FlutterJNI.setMaxDecodedImageSize(0, 0);
+
+    assertEquals(new Size(4000, 3000), FlutterJNI.getDecodedImageSize(4000, 3000));
+  }
+
+  @Test
+  public void decodedImageSizeIsDownsampledToFitKeepingAspectRatio() {
+    try {
+      FlutterJNI.setMaxDecodedImageSize(1000, 1000);
+      assertEquals(new Size(1000, 750), FlutterJNI.getDecodedImageSize(4000, 3000));
+      assertEquals(new Size(250, 1000), FlutterJNI.getDecodedImageSize(1000, 4000));
+      // Images that already fit are decoded at their own size.
+      assertEquals(new Size(640, 480), FlutterJNI.getDecodedImageSize(640, 480));
+      // Extreme aspect ratios never round down to an empty image.
+      assertEquals(new Size(1000, 1), FlutterJNI.getDecodedImageSize(100000, 1));
+
+      FlutterJNI.setMaxDecodedImageSize(0, 500);
+      assertEquals(new Size(2000, 500), FlutterJNI.getDecodedImageSize(4000, 1000));
+    } finally {
+      FlutterJNI.setMaxDecodedImageSize(0, 0);
+    }
+  }
+
+  @Test
+  public void setMaxDecodedImageSizeRejectsNegativeBounds() {
+    assertThrows(IllegalArgumentException.class, () -> FlutterJNI.setMaxDecodedImageSize(-1, 0));
+  }
 }
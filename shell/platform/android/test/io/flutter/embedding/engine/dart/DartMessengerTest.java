@@ -4,10 +4,12 @@ import static android.os.Looper.getMainLooper;
 import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertNotNull;
 import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
 import static org.junit.Assert.assertArrayEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -19,12 +21,19 @@ import io.flutter.embedding.engine.FlutterJNI;
 import io.flutter.embedding.engine.dart.DartMessenger.DartMessengerTaskQueue;
 import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.BinaryMessenger.BinaryMessageHandler;
+import io.flutter.plugin.common.StandardMessageCodec;
+import io.flutter.plugin.common.ZeroCopyStandardMessageCodec;
 import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
@@ -130,6 +139,27 @@ public class DartMessengerTest {
     assertEquals(0, byteBuffers[0].limit());
   }
 
+  @Test
+  public void zeroCopyViewsLimitZeroAfterUsage() {
+    final FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final DartMessenger messenger =
+        new DartMessenger(fakeFlutterJni, (options) -> synchronousTaskQueue);
+    final String channel = "foobar";
+    final IntBuffer[] views = {null};
+    final BinaryMessenger.BinaryMessageHandler handler =
+        (message, reply) -> {
+          views[0] = (IntBuffer) ZeroCopyStandardMessageCodec.INSTANCE.decodeMessage(message);
+          assertEquals(3, views[0].limit());
+        };
+    BinaryMessenger.TaskQueue taskQueue = messenger.makeBackgroundTaskQueue();
+    messenger.setMessageHandler(channel, handler, taskQueue);
+    final ByteBuffer message = StandardMessageCodec.INSTANCE.encodeMessage(new int[] {1, 2, 3});
+    message.flip();
+    messenger.handleMessageFromDart(channel, message, /*replyId=*/ 123, 0);
+    assertNotNull(views[0]);
+    assertEquals(0, views[0].limit());
+  }
+
   @Test
   public void directByteBufferLimitZeroAfterReply() {
     // Setup test.
@@ -311,6 +341,118 @@ public class DartMessengerTest {
     verify(fakeFlutterJni).invokePlatformMessageEmptyResponseCallback(replyId);
   }
 
+  @Test
+  public void handlesConcurrentMessagesWhileHandlersAreRegistered() throws InterruptedException {
+    final FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final DartMessenger messenger =
+        new DartMessenger(fakeFlutterJni, (options) -> synchronousTaskQueue);
+    final BinaryMessenger.TaskQueue taskQueue = messenger.makeBackgroundTaskQueue();
+    final int channelCount = 16;
+    final int senderCount = 4;
+    final int messagesPerSender = 2000;
+    final AtomicInteger handled = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService senders = Executors.newFixedThreadPool(senderCount);
+
+    messenger.enableBufferingIncomingMessages();
+    for (int sender = 0; sender < senderCount; sender++) {
+      senders.execute(
+          () -> {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            for (int i = 0; i < messagesPerSender; i++) {
+              messenger.handleMessageFromDart(
+                  "channel" + (i % channelCount), ByteBuffer.allocate(0), i, 0);
+            }
+          });
+    }
+    start.countDown();
+    for (int channel = 0; channel < channelCount; channel++) {
+      messenger.setMessageHandler(
+          "channel" + channel, (message, reply) -> handled.incrementAndGet(), taskQueue);
+    }
+    senders.shutdown();
+    assertTrue(senders.awaitTermination(10, TimeUnit.SECONDS));
+
+    // With buffering enabled, every message reaches a handler exactly once whether it arrived
+    // before or after its channel's handler was registered.
+    assertEquals(senderCount * messagesPerSender, handled.get());
+    verify(fakeFlutterJni, never()).invokePlatformMessageEmptyResponseCallback(anyInt());
+  }
+
+  @Test
+  public void sendIsSafeFromAnyThread() throws InterruptedException {
+    final FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    final int senderCount = 4;
+    final int messagesPerSender = 1000;
+    final int total = senderCount * messagesPerSender;
+    final AtomicInteger replies = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService senders = Executors.newFixedThreadPool(senderCount);
+
+    for (int sender = 0; sender < senderCount; sender++) {
+      senders.execute(
+          () -> {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            for (int i = 0; i < messagesPerSender; i++) {
+              messenger.send("test", null, (reply) -> replies.incrementAndGet());
+            }
+          });
+    }
+    start.countDown();
+    senders.shutdown();
+    assertTrue(senders.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(total, messenger.getPendingChannelResponseCount());
+
+    // Sends from background threads reach the engine on the platform thread.
+    shadowOf(getMainLooper()).idle();
+    final ArgumentCaptor<Integer> replyIds = ArgumentCaptor.forClass(Integer.class);
+    verify(fakeFlutterJni, times(total))
+        .dispatchEmptyPlatformMessage(eq("test"), replyIds.capture());
+    final HashSet<Integer> uniqueReplyIds = new HashSet<>(replyIds.getAllValues());
+    assertEquals(total, uniqueReplyIds.size());
+
+    final ExecutorService responders = Executors.newFixedThreadPool(senderCount);
+    for (final int replyId : uniqueReplyIds) {
+      responders.execute(() -> messenger.handlePlatformMessageResponse(replyId, null));
+    }
+    responders.shutdown();
+    assertTrue(responders.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(total, replies.get());
+    assertEquals(0, messenger.getPendingChannelResponseCount());
+  }
+
+  @Test
+  public void sendFromBackgroundThreadCopiesTheMessage() throws InterruptedException {
+    final FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    final ByteBuffer message = ByteBuffer.allocateDirect(4);
+
+    // The sender reuses its buffer as soon as send returns, as BinaryMessenger#send allows.
+    final Thread sender =
+        new Thread(
+            () -> {
+              message.put((byte) 1);
+              messenger.send("test", message, null);
+              message.put(0, (byte) 2);
+            });
+    sender.start();
+    sender.join();
+
+    shadowOf(getMainLooper()).idle();
+    final ArgumentCaptor<ByteBuffer> sent = ArgumentCaptor.forClass(ByteBuffer.class);
+    verify(fakeFlutterJni).dispatchPlatformMessage(eq("test"), sent.capture(), eq(1), anyInt());
+    assertEquals(1, sent.getValue().get(0));
+  }
+
   @Test
   public void testSerialTaskQueue() throws InterruptedException {
     final FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
@@ -352,4 +494,142 @@ public class DartMessengerTest {
       assertEquals((int) ints.get(i), (int) (ints.get(i + 1)) - 1);
     }
   }
+
+  @Test
+  public void serialTaskQueueRecoversFromRejectedDrain() {
+    final ExecutorService executor = mock(ExecutorService.class);
+    doThrow(new RejectedExecutionException())
+        .doNothing()
+        .when(executor)
+        .execute(any(Runnable.class));
+    final DartMessengerTaskQueue taskQueue = new DartMessenger.SerialTaskQueue(executor);
+    final LinkedList<Integer> ints = new LinkedList<>();
+
+    try {
+      taskQueue.dispatch(() -> ints.add(1));
+      fail("Expected the rejection to be rethrown");
+    } catch (RejectedExecutionException e) {
+      // Expected.
+    }
+
+    // The next task schedules a drain of its own, and the rejected one is not run.
+    taskQueue.dispatch(() -> ints.add(2));
+    final ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor, times(2)).execute(drain.capture());
+    drain.getValue().run();
+    assertEquals(1, ints.size());
+    assertEquals(2, (int) ints.get(0));
+  }
+
+  @Test
+  public void serialTaskQueueDrainsInBatches() {
+    final ExecutorService executor = mock(ExecutorService.class);
+    final int batchBudget = 16;
+    final DartMessengerTaskQueue taskQueue =
+        new DartMessenger.SerialTaskQueue(executor, batchBudget);
+    final int count = 100;
+    final LinkedList<Integer> ints = new LinkedList<>();
+    for (int i = 0; i < count; ++i) {
+      final int value = i;
+      taskQueue.dispatch(() -> ints.add(value));
+    }
+
+    // The whole burst is handled by a single scheduled drain, which runs at most batchBudget
+    // tasks before rescheduling itself.
+    final ArgumentCaptor<Runnable> drains = ArgumentCaptor.forClass(Runnable.class);
+    int scheduled = 0;
+    while (ints.size() < count) {
+      verify(executor, times(scheduled + 1)).execute(drains.capture());
+      final int before = ints.size();
+      drains.getValue().run();
+      assertEquals(Math.min(batchBudget, count - before), ints.size() - before);
+      scheduled++;
+    }
+    assertEquals((count + batchBudget - 1) / batchBudget, scheduled);
+    verify(executor, times(scheduled)).execute(any(Runnable.class));
+    for (int i = 0; i < count; ++i) {
+      assertEquals(i, (int) ints.get(i));
+    }
+  }
+
+  @Test
+  public void makeBackgroundTaskQueueUsesBatchBudget() {
+    final FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final ExecutorService executor = mock(ExecutorService.class);
+    final DartMessenger messenger =
+        new DartMessenger(
+            fakeFlutterJni,
+            (options) -> new DartMessenger.SerialTaskQueue(executor, options.getBatchBudget()));
+    final BinaryMessenger.TaskQueue taskQueue =
+        messenger.makeBackgroundTaskQueue(new BinaryMessenger.TaskQueueOptions().setBatchBudget(1));
+    final AtomicInteger handled = new AtomicInteger();
+    messenger.setMessageHandler("test", (message, reply) -> handled.incrementAndGet(), taskQueue);
+    messenger.handleMessageFromDart("test", ByteBuffer.allocateDirect(0), 1, 0);
+    messenger.handleMessageFromDart("test", ByteBuffer.allocateDirect(0), 2, 0);
+
+    final ArgumentCaptor<Runnable> drain = ArgumentCaptor.forClass(Runnable.class);
+    verify(executor, times(1)).execute(drain.capture());
+    drain.getValue().run();
+    assertEquals(1, handled.get());
+  }
+
+  @Test
+  public void busyLowPriorityQueueDoesNotDelayHighPriorityQueue() throws InterruptedException {
+    final FlutterJNI fakeFlutterJni = mock(FlutterJNI.class);
+    final DartMessenger messenger = new DartMessenger(fakeFlutterJni);
+    final BinaryMessenger.TaskQueue bulkQueue =
+        messenger.makeBackgroundTaskQueue(
+            new BinaryMessenger.TaskQueueOptions()
+                .setPriority(BinaryMessenger.TaskQueueOptions.Priority.LOW)
+                .setDedicatedThreadCount(1));
+    final BinaryMessenger.TaskQueue criticalQueue =
+        messenger.makeBackgroundTaskQueue(
+            new BinaryMessenger.TaskQueueOptions()
+                .setPriority(BinaryMessenger.TaskQueueOptions.Priority.HIGH));
+    final CountDownLatch releaseBulk = new CountDownLatch(1);
+    final CountDownLatch bulkDone = new CountDownLatch(2);
+    final CountDownLatch criticalDone = new CountDownLatch(1);
+    final String[] threadNames = new String[2];
+    messenger.setMessageHandler(
+        "bulk",
+        (message, reply) -> {
+          threadNames[0] = Thread.currentThread().getName();
+          try {
+            releaseBulk.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          bulkDone.countDown();
+        },
+        bulkQueue);
+    messenger.setMessageHandler(
+        "critical",
+        (message, reply) -> {
+          threadNames[1] = Thread.currentThread().getName();
+          criticalDone.countDown();
+        },
+        criticalQueue);
+
+    messenger.handleMessageFromDart("bulk", ByteBuffer.allocateDirect(0), 1, 0);
+    messenger.handleMessageFromDart("bulk", ByteBuffer.allocateDirect(0), 2, 0);
+    messenger.handleMessageFromDart("critical", ByteBuffer.allocateDirect(0), 3, 0);
+
+    // The critical message is handled while the bulk queue is still blocked.
+    assertTrue(criticalDone.await(10, TimeUnit.SECONDS));
+    assertEquals(2, bulkDone.getCount());
+    releaseBulk.countDown();
+    assertTrue(bulkDone.await(10, TimeUnit.SECONDS));
+    assertTrue(threadNames[0].startsWith("flutter-low-worker-"));
+    assertTrue(threadNames[1].startsWith("flutter-high-worker-"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void taskQueueOptionsRejectsNegativeDedicatedThreadCount() {
+    new BinaryMessenger.TaskQueueOptions().setDedicatedThreadCount(-1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void taskQueueOptionsRejectsEmptyBatchBudget() {
+    new BinaryMessenger.TaskQueueOptions().setBatchBudget(0);
+  }
 }
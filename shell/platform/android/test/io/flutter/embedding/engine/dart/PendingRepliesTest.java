@@ -0,0 +1,88 @@
+package io.flutter.embedding.engine.dart;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import io.flutter.plugin.common.BinaryMessenger;
+import java.util.HashSet;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class PendingRepliesTest {
+  @Test
+  public void removesWhatWasPut() {
+    final PendingReplies pendingReplies = new PendingReplies();
+    final BinaryMessenger.BinaryReply reply = mock(BinaryMessenger.BinaryReply.class);
+    final int replyId = pendingReplies.nextReplyId();
+    pendingReplies.put(replyId, reply);
+    assertEquals(1, pendingReplies.size());
+    assertSame(reply, pendingReplies.remove(replyId));
+    assertNull(pendingReplies.remove(replyId));
+    assertEquals(0, pendingReplies.size());
+  }
+
+  @Test
+  public void handsOutUniqueNonZeroIds() {
+    final PendingReplies pendingReplies = new PendingReplies();
+    final HashSet<Integer> ids = new HashSet<>();
+    for (int i = 0; i < 1000; i++) {
+      final int replyId = pendingReplies.nextReplyId();
+      assertTrue(replyId != 0);
+      assertTrue(ids.add(replyId));
+    }
+  }
+
+  @Test
+  public void survivesGrowthAndOutOfOrderRemoval() {
+    final PendingReplies pendingReplies = new PendingReplies();
+    final int count = 1000;
+    final BinaryMessenger.BinaryReply[] replies = new BinaryMessenger.BinaryReply[count];
+    for (int i = 0; i < count; i++) {
+      replies[i] = mock(BinaryMessenger.BinaryReply.class);
+      // Keys that collide in small tables exercise probing and backward-shift deletion.
+      pendingReplies.put(i * 16, replies[i]);
+    }
+    assertEquals(count, pendingReplies.size());
+
+    final Random random = new Random(42);
+    final boolean[] removed = new boolean[count];
+    for (int n = 0; n < count; n++) {
+      int i;
+      do {
+        i = random.nextInt(count);
+      } while (removed[i]);
+      removed[i] = true;
+      assertSame(replies[i], pendingReplies.remove(i * 16));
+      // Every entry still in the table remains reachable.
+      if (n % 97 == 0) {
+        for (int j = 0; j < count; j++) {
+          if (!removed[j]) {
+            final BinaryMessenger.BinaryReply reply = pendingReplies.remove(j * 16);
+            assertSame(replies[j], reply);
+            pendingReplies.put(j * 16, reply);
+          }
+        }
+      }
+    }
+    assertEquals(0, pendingReplies.size());
+  }
+
+  @Test
+  public void acceptsNegativeIdsAfterWraparound() {
+    final PendingReplies pendingReplies = new PendingReplies();
+    final BinaryMessenger.BinaryReply reply = mock(BinaryMessenger.BinaryReply.class);
+    pendingReplies.put(Integer.MIN_VALUE, reply);
+    pendingReplies.put(-1, reply);
+    assertSame(reply, pendingReplies.remove(Integer.MIN_VALUE));
+    assertSame(reply, pendingReplies.remove(-1));
+    assertEquals(0, pendingReplies.size());
+  }
+}
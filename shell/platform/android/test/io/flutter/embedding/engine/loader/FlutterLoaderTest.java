@@ -5,11 +5,14 @@
 package io.flutter.embedding.engine.loader;
 
 import static android.os.Looper.getMainLooper;
+import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -26,10 +29,13 @@ import android.util.DisplayMetrics;
 import androidx.test.core.app.ApplicationProvider;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import io.flutter.embedding.engine.FlutterJNI;
+import java.io.File;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
@@ -146,6 +152,76 @@ public class FlutterLoaderTest {
     assertTrue(arguments.contains(leakVMArg));
   }
 
+  @Test
+  public void itRecordsTheStartupTimeline() throws Exception {
+    FlutterJNI mockFlutterJNI = mock(FlutterJNI.class);
+    FlutterLoader flutterLoader = new FlutterLoader(mockFlutterJNI);
+    assertNull(flutterLoader.getStartupTimeline());
+
+    File timelineFile = File.createTempFile("timeline", ".json");
+    FlutterLoader.Settings settings = new FlutterLoader.Settings();
+    settings.setStartupTimelineFile(timelineFile);
+    flutterLoader.startInitialization(ctx, settings);
+    flutterLoader.ensureInitializationComplete(ctx, null);
+    shadowOf(getMainLooper()).idle();
+
+    StartupTimeline timeline = flutterLoader.getStartupTimeline();
+    for (StartupTimeline.Phase phase :
+        new StartupTimeline.Phase[] {
+          StartupTimeline.Phase.LOAD_APPLICATION_INFO,
+          StartupTimeline.Phase.INIT_VSYNC_WAITER,
+          StartupTimeline.Phase.LOAD_LIBRARY,
+          StartupTimeline.Phase.WAIT_FOR_INITIALIZATION,
+          StartupTimeline.Phase.READ_METADATA,
+          StartupTimeline.Phase.INIT_ENGINE
+        }) {
+      assertTrue(phase.name(), timeline.getStartNanos(phase) >= 0);
+      assertTrue(phase.name(), timeline.getDurationNanos(phase) >= 0);
+    }
+    assertTrue(
+        timeline.getStartNanos(StartupTimeline.Phase.INIT_ENGINE)
+            >= timeline.getStartNanos(StartupTimeline.Phase.READ_METADATA));
+    assertTrue(timeline.getMainThreadBlockedNanos() > 0);
+    assertTrue(timeline.getTotalNanos() >= timeline.getMainThreadBlockedNanos());
+
+    // The timeline is persisted in the background.
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (timelineFile.length() == 0 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    StartupTimeline persisted =
+        StartupTimeline.fromJson(new String(Files.readAllBytes(timelineFile.toPath()), "UTF-8"));
+    assertEquals(timeline.getTotalNanos(), persisted.getTotalNanos());
+  }
+
+  @Test
+  public void itDoesNotCountLoadingTheLibraryAsExtractingResources() {
+    FlutterJNI mockFlutterJNI = mock(FlutterJNI.class);
+    // Loading the library takes far longer than extracting the resources, which are missing.
+    doAnswer(
+            invocation -> {
+              Thread.sleep(500);
+              return null;
+            })
+        .when(mockFlutterJNI)
+        .loadLibrary();
+    FlutterLoader flutterLoader = new FlutterLoader(mockFlutterJNI);
+
+    flutterLoader.startInitialization(ctx);
+    flutterLoader.ensureInitializationComplete(ctx, null);
+    shadowOf(getMainLooper()).idle();
+
+    StartupTimeline timeline = flutterLoader.getStartupTimeline();
+    assertTrue(
+        timeline.getDurationNanos(StartupTimeline.Phase.LOAD_LIBRARY)
+            >= TimeUnit.MILLISECONDS.toNanos(500));
+    assertTrue(timeline.getStartNanos(StartupTimeline.Phase.EXTRACT_RESOURCES) >= 0);
+    assertTrue(
+        timeline.getDurationNanos(StartupTimeline.Phase.EXTRACT_RESOURCES)
+            < TimeUnit.MILLISECONDS.toNanos(250));
+    assertTrue(timeline.getDurationNanos(StartupTimeline.Phase.WAIT_FOR_RESOURCES) >= 0);
+  }
+
   @Test
   public void itUsesCorrectExecutorService() {
     FlutterJNI mockFlutterJNI = mock(FlutterJNI.class);
@@ -0,0 +1,216 @@
+package io.flutter.embedding.engine.loader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.os.ParcelFileDescriptor;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class ResourceExtractorTest {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final HashMap<String, byte[]> assets = new HashMap<>();
+  private final PackageInfo packageInfo = new PackageInfo();
+  private AssetManager assetManager;
+  private PackageManager packageManager;
+  private ExecutorService executorService;
+  private File dataDir;
+
+  @Before
+  public void setUp() throws Exception {
+    dataDir = temporaryFolder.newFolder();
+    assetManager = mock(AssetManager.class);
+    when(assetManager.open(anyString()))
+        .thenAnswer(
+            invocation -> {
+              final byte[] content = assets.get((String) invocation.getArgument(0));
+              if (content == null) {
+                throw new FileNotFoundException();
+              }
+              return new ByteArrayInputStream(content);
+            });
+    // Like compressed assets.
+    when(assetManager.openFd(anyString())).thenThrow(new FileNotFoundException());
+    packageManager = mock(PackageManager.class);
+    packageInfo.lastUpdateTime = 1;
+    when(packageManager.getPackageInfo(eq("com.example"), anyInt())).thenReturn(packageInfo);
+    executorService = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  private void extract(String... resources) {
+    new ResourceExtractor(
+            dataDir.getPath(), "com.example", packageManager, assetManager, executorService)
+        .addResources(Arrays.asList(resources))
+        .start()
+        .waitForCompletion();
+  }
+
+  private byte[] extracted(String resource) throws IOException {
+    return Files.readAllBytes(new File(dataDir, resource).toPath());
+  }
+
+  @Test
+  public void extractsResourcesAndAManifest() throws IOException {
+    assets.put("a", "first".getBytes(UTF8));
+    assets.put("dir/b", new byte[100000]);
+
+    extract("a", "dir/b", "missing");
+
+    assertArrayEquals(assets.get("a"), extracted("a"));
+    assertArrayEquals(assets.get("dir/b"), extracted("dir/b"));
+    assertFalse(new File(dataDir, "missing").exists());
+    final String manifest = new String(extracted(ResourceExtractor.MANIFEST_FILE), UTF8);
+    // SHA-256 of "first".
+    assertTrue(
+        manifest.contains(
+            "a7937b64b8caa58f03721bb6bacf5c78cb235febe0e70b1b84cd99541461a08e 5 a\n"));
+    assertTrue(manifest.contains(" 100000 dir/b\n"));
+    assertFalse(manifest.contains("missing"));
+  }
+
+  @Test
+  public void doesNothingWhenTheTimestampMatches() throws IOException {
+    assets.put("a", "first".getBytes(UTF8));
+    extract("a");
+
+    assets.put("a", "other".getBytes(UTF8));
+    extract("a");
+
+    assertArrayEquals("first".getBytes(UTF8), extracted("a"));
+  }
+
+  @Test
+  public void onlyRewritesResourcesWhoseContentChanged() throws IOException {
+    assets.put("unchanged", "same".getBytes(UTF8));
+    assets.put("sameLength", "before".getBytes(UTF8));
+    assets.put("newLength", "short".getBytes(UTF8));
+    assets.put("removed", "gone".getBytes(UTF8));
+    extract("unchanged", "sameLength", "newLength", "removed");
+    for (String resource : new String[] {"unchanged", "sameLength", "newLength"}) {
+      assertTrue(new File(dataDir, resource).setLastModified(1000));
+    }
+
+    // An app update.
+    packageInfo.lastUpdateTime = 2;
+    assets.put("sameLength", "after!".getBytes(UTF8));
+    assets.put("newLength", "much longer".getBytes(UTF8));
+    assets.remove("removed");
+    extract("unchanged", "sameLength", "newLength", "removed");
+
+    assertEquals(1000, new File(dataDir, "unchanged").lastModified());
+    assertArrayEquals("same".getBytes(UTF8), extracted("unchanged"));
+    assertNotEquals(1000, new File(dataDir, "sameLength").lastModified());
+    assertArrayEquals("after!".getBytes(UTF8), extracted("sameLength"));
+    assertArrayEquals("much longer".getBytes(UTF8), extracted("newLength"));
+    assertFalse(new File(dataDir, "removed").exists());
+    final String manifest = new String(extracted(ResourceExtractor.MANIFEST_FILE), UTF8);
+    assertTrue(manifest.contains(" 11 newLength\n"));
+    assertFalse(manifest.contains("removed"));
+  }
+
+  @Test
+  public void rewritesResourcesModifiedOnDisk() throws IOException {
+    assets.put("a", "first".getBytes(UTF8));
+    extract("a");
+    Files.write(new File(dataDir, "a").toPath(), "truncated".getBytes(UTF8));
+
+    packageInfo.lastUpdateTime = 2;
+    extract("a");
+
+    assertArrayEquals("first".getBytes(UTF8), extracted("a"));
+  }
+
+  @Test
+  public void transfersChangedUncompressedResourcesFromTheirFileDescriptor() throws IOException {
+    assets.put("a", "before".getBytes(UTF8));
+    extract("a");
+
+    // An uncompressed asset, stored at an offset within the APK.
+    final File apk = temporaryFolder.newFile();
+    Files.write(apk.toPath(), "headerafter!trailer".getBytes(UTF8));
+    doAnswer(
+            invocation ->
+                new AssetFileDescriptor(
+                    ParcelFileDescriptor.open(apk, ParcelFileDescriptor.MODE_READ_ONLY), 6, 6))
+        .when(assetManager)
+        .openFd("a");
+    packageInfo.lastUpdateTime = 2;
+    assets.put("a", "after!".getBytes(UTF8));
+    extract("a");
+
+    assertArrayEquals("after!".getBytes(UTF8), extracted("a"));
+  }
+
+  @Test
+  public void extractsOnTheWaitingThreadWhenTheExecutorDoesNotRunTasks() throws IOException {
+    final ExecutorService stalled = mock(ExecutorService.class);
+    assets.put("a", "first".getBytes(UTF8));
+
+    new ResourceExtractor(dataDir.getPath(), "com.example", packageManager, assetManager, stalled)
+        .addResource("a")
+        .start()
+        .waitForCompletion();
+
+    assertArrayEquals("first".getBytes(UTF8), extracted("a"));
+  }
+
+  @Test
+  public void deletesEverythingWhenExtractionFails() throws IOException {
+    assets.put("a", "first".getBytes(UTF8));
+    extract("a");
+    // The output directory of "b" cannot be created.
+    assertTrue(new File(dataDir, "blocked").createNewFile());
+    assets.put("blocked/b", "second".getBytes(UTF8));
+
+    packageInfo.lastUpdateTime = 2;
+    new ResourceExtractor(
+            dataDir.getPath(), "com.example", packageManager, assetManager, executorService)
+        .addResources(Arrays.asList("a", "blocked/b"))
+        .start()
+        .waitForCompletion();
+
+    assertFalse(new File(dataDir, "a").exists());
+    assertFalse(new File(dataDir, ResourceExtractor.MANIFEST_FILE).exists());
+  }
+}
@@ -0,0 +1,57 @@
+package io.flutter.embedding.engine.loader;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.json.JSONException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class StartupTimelineTest {
+  @Test
+  public void recordsPhasesRelativeToTheStartOfInitialization() {
+    final StartupTimeline.Recorder recorder = new StartupTimeline.Recorder(1000);
+    recorder.recordPhase(StartupTimeline.Phase.LOAD_LIBRARY, 1500, 4500);
+
+    final StartupTimeline timeline = recorder.snapshot();
+    assertEquals(500, timeline.getStartNanos(StartupTimeline.Phase.LOAD_LIBRARY));
+    assertEquals(3000, timeline.getDurationNanos(StartupTimeline.Phase.LOAD_LIBRARY));
+    assertEquals(
+        StartupTimeline.NOT_RECORDED,
+        timeline.getStartNanos(StartupTimeline.Phase.EXTRACT_RESOURCES));
+    assertEquals(
+        StartupTimeline.NOT_RECORDED,
+        timeline.getDurationNanos(StartupTimeline.Phase.EXTRACT_RESOURCES));
+    assertEquals(StartupTimeline.NOT_RECORDED, timeline.getTotalNanos());
+  }
+
+  @Test
+  public void snapshotsAreNotAffectedByLaterPhases() {
+    final StartupTimeline.Recorder recorder = new StartupTimeline.Recorder(0);
+    final StartupTimeline before = recorder.snapshot();
+    recorder.recordPhase(StartupTimeline.Phase.INIT_ENGINE, 10, 20);
+
+    assertEquals(
+        StartupTimeline.NOT_RECORDED, before.getDurationNanos(StartupTimeline.Phase.INIT_ENGINE));
+    assertEquals(10, recorder.snapshot().getDurationNanos(StartupTimeline.Phase.INIT_ENGINE));
+  }
+
+  @Test
+  public void roundTripsThroughJson() throws JSONException {
+    final StartupTimeline.Recorder recorder = new StartupTimeline.Recorder(0);
+    recorder.recordPhase(StartupTimeline.Phase.LOAD_APPLICATION_INFO, 0, 7);
+    recorder.recordPhase(StartupTimeline.Phase.WAIT_FOR_INITIALIZATION, 100, 250);
+    final StartupTimeline timeline = recorder.snapshot();
+
+    final StartupTimeline read = StartupTimeline.fromJson(timeline.toJson());
+    for (StartupTimeline.Phase phase : StartupTimeline.Phase.values()) {
+      assertEquals(timeline.getStartNanos(phase), read.getStartNanos(phase));
+      assertEquals(timeline.getDurationNanos(phase), read.getDurationNanos(phase));
+    }
+    assertEquals(timeline.getMainThreadBlockedNanos(), read.getMainThreadBlockedNanos());
+    assertEquals(timeline.getTotalNanos(), read.getTotalNanos());
+  }
+}
@@ -5,7 +5,9 @@ import static junit.framework.TestCase.*;
 import static org.mockito.Mockito.*;
 
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.RectF;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
@@ -85,6 +87,44 @@ public class FlutterMutatorViewTest {
     }
   }
 
+  @Test
+  public void readyToDisplay_reusesEqualMutatorsStack() {
+    final int[] invalidateCount = {0};
+    final FlutterMutatorView view =
+        new FlutterMutatorView(ctx) {
+          @Override
+          public void invalidate() {
+            invalidateCount[0]++;
+            super.invalidate();
+          }
+        };
+    final FlutterMutatorsStack firstStack = new FlutterMutatorsStack();
+    firstStack.pushClipRect(0, 0, 100, 100);
+    view.readyToDisplay(firstStack, /*left=*/ 10, /*top=*/ 20, /*width=*/ 90, /*height=*/ 80);
+
+    final Canvas canvas = mock(Canvas.class);
+    view.draw(canvas);
+    verify(canvas).clipRect(new RectF(-10, -20, 90, 80));
+    verify(canvas, never()).clipPath(any());
+
+    // An equal stack in the same frame doesn't need to be redrawn.
+    invalidateCount[0] = 0;
+    final FlutterMutatorsStack equalStack = new FlutterMutatorsStack();
+    equalStack.pushClipRect(0, 0, 100, 100);
+    view.readyToDisplay(equalStack, /*left=*/ 10, /*top=*/ 20, /*width=*/ 90, /*height=*/ 80);
+    assertEquals(0, invalidateCount[0]);
+
+    // A different stack is.
+    final FlutterMutatorsStack otherStack = new FlutterMutatorsStack();
+    otherStack.pushClipRect(0, 0, 50, 50);
+    view.readyToDisplay(otherStack, /*left=*/ 10, /*top=*/ 20, /*width=*/ 90, /*height=*/ 80);
+    assertEquals(1, invalidateCount[0]);
+
+    reset(canvas);
+    view.draw(canvas);
+    verify(canvas).clipRect(new RectF(-10, -20, 40, 30));
+  }
+
   @Test
   public void focusChangeListener_hasFocus() {
     final ViewTreeObserver viewTreeObserver = mock(ViewTreeObserver.class);
@@ -0,0 +1,95 @@
+package io.flutter.embedding.engine.mutatorsstack;
+
+import static junit.framework.TestCase.*;
+
+import android.graphics.RectF;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class FlutterMutatorsStackTest {
+  private static final float[] TRANSLATE = {1, 0, 10, 0, 1, 20, 0, 0, 1};
+  private static final float[] SCALE = {2, 0, 0, 0, 2, 0, 0, 0, 1};
+  private static final float[] ROTATE_45 = {0.7f, -0.7f, 0, 0.7f, 0.7f, 0, 0, 0, 1};
+  private static final float[] RADII = {1, 1, 2, 2, 3, 3, 4, 4};
+
+  private static FlutterMutatorsStack createStack() {
+    final FlutterMutatorsStack stack = new FlutterMutatorsStack();
+    stack.pushTransform(TRANSLATE);
+    stack.pushClipRect(0, 0, 100, 100);
+    stack.pushClipRRect(0, 0, 50, 50, RADII);
+    return stack;
+  }
+
+  @Test
+  public void equals_comparesMutators() {
+    assertEquals(createStack(), createStack());
+    assertEquals(createStack().hashCode(), createStack().hashCode());
+
+    final FlutterMutatorsStack otherTransform = new FlutterMutatorsStack();
+    otherTransform.pushTransform(SCALE);
+    otherTransform.pushClipRect(0, 0, 100, 100);
+    otherTransform.pushClipRRect(0, 0, 50, 50, RADII);
+    assertFalse(createStack().equals(otherTransform));
+
+    final FlutterMutatorsStack otherClip = new FlutterMutatorsStack();
+    otherClip.pushTransform(TRANSLATE);
+    otherClip.pushClipRect(0, 0, 100, 101);
+    otherClip.pushClipRRect(0, 0, 50, 50, RADII);
+    assertFalse(createStack().equals(otherClip));
+
+    final FlutterMutatorsStack otherRadii = new FlutterMutatorsStack();
+    otherRadii.pushTransform(TRANSLATE);
+    otherRadii.pushClipRect(0, 0, 100, 100);
+    otherRadii.pushClipRRect(0, 0, 50, 50, new float[] {1, 1, 2, 2, 3, 3, 4, 5});
+    assertFalse(createStack().equals(otherRadii));
+
+    final FlutterMutatorsStack prefix = new FlutterMutatorsStack();
+    prefix.pushTransform(TRANSLATE);
+    prefix.pushClipRect(0, 0, 100, 100);
+    assertFalse(createStack().equals(prefix));
+  }
+
+  @Test
+  public void getFinalClippingPaths_hasAPathPerClip() {
+    final FlutterMutatorsStack stack = createStack();
+
+    assertEquals(2, stack.getFinalClippingPaths().size());
+    assertSame(stack.getFinalClippingPaths(), stack.getFinalClippingPaths());
+
+    stack.pushClipRect(0, 0, 10, 10);
+    assertEquals(3, stack.getFinalClippingPaths().size());
+  }
+
+  @Test
+  public void getFinalClippingRect_intersectsTransformedClipRects() {
+    final FlutterMutatorsStack stack = new FlutterMutatorsStack();
+    assertNull(stack.getFinalClippingRect());
+
+    stack.pushTransform(TRANSLATE);
+    stack.pushClipRect(0, 0, 100, 100);
+    assertEquals(new RectF(10, 20, 110, 120), stack.getFinalClippingRect());
+
+    stack.pushTransform(SCALE);
+    stack.pushClipRect(25, 25, 100, 100);
+    assertEquals(new RectF(60, 70, 110, 120), stack.getFinalClippingRect());
+
+    stack.pushClipRect(60, 60, 100, 100);
+    assertTrue(stack.getFinalClippingRect().isEmpty());
+  }
+
+  @Test
+  public void getFinalClippingRect_isNullUnlessAllClipsAreAxisAlignedRects() {
+    final FlutterMutatorsStack rrect = createStack();
+    assertNull(rrect.getFinalClippingRect());
+
+    final FlutterMutatorsStack rotated = new FlutterMutatorsStack();
+    rotated.pushTransform(ROTATE_45);
+    rotated.pushClipRect(0, 0, 100, 100);
+    assertNull(rotated.getFinalClippingRect());
+    assertEquals(1, rotated.getFinalClippingPaths().size());
+  }
+}
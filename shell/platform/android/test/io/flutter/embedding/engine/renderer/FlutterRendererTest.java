@@ -5,7 +5,9 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.anyFloat;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -28,6 +30,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.robolectric.annotation.Config;
 
 @Config(manifest = Config.NONE)
@@ -409,4 +412,83 @@ public class FlutterRendererTest {
     // Verify behavior under test.
     verify(fakeFlutterJNI, times(1)).onSurfaceDestroyed();
   }
+
+  @Test
+  public void itNotifiesFrameTimingListenersOfSurfaceLifecycle() {
+    FlutterRenderer flutterRenderer = new FlutterRenderer(fakeFlutterJNI);
+    FrameTimingListener listener = mock(FrameTimingListener.class);
+    flutterRenderer.addFrameTimingListener(listener);
+
+    flutterRenderer.startRenderingToSurface(fakeSurface, /*keepCurrentSurface=*/ false);
+    flutterRenderer.surfaceChanged(100, 50);
+    flutterRenderer.stopRenderingToSurface();
+
+    InOrder inOrder = inOrder(listener);
+    inOrder.verify(listener).onSurfaceCreated();
+    inOrder.verify(listener).onSurfaceChanged(100, 50);
+    inOrder.verify(listener).onSurfaceDestroyed();
+
+    flutterRenderer.removeFrameTimingListener(listener);
+    flutterRenderer.startRenderingToSurface(fakeSurface, /*keepCurrentSurface=*/ false);
+    verify(listener, times(1)).onSurfaceCreated();
+  }
+
+  @Test
+  public void itForwardsVsyncTimingsToFrameTimingListeners() {
+    FlutterRenderer flutterRenderer = new FlutterRenderer(fakeFlutterJNI);
+    FrameTimingListener listener = mock(FrameTimingListener.class);
+    flutterRenderer.addFrameTimingListener(listener);
+    final long refreshPeriod = 16_666_666L;
+
+    FrameTimingRecorder.getInstance().recordVsync(40_000_000L, refreshPeriod, 45_000_000L);
+    verify(listener, times(1)).onVsync(40_000_000L, 45_000_000L, 2);
+
+    flutterRenderer.removeFrameTimingListener(listener);
+    FrameTimingRecorder.getInstance().recordVsync(0, refreshPeriod, 0);
+    verify(listener, times(1)).onVsync(anyLong(), anyLong(), anyInt());
+  }
+
+  @Test
+  public void itKeepsFrameTimingListenersAddedToAnotherRenderer() {
+    FlutterRenderer firstRenderer = new FlutterRenderer(fakeFlutterJNI);
+    FlutterRenderer secondRenderer = new FlutterRenderer(fakeFlutterJNI);
+    FrameTimingListener listener = mock(FrameTimingListener.class);
+    firstRenderer.addFrameTimingListener(listener);
+    secondRenderer.addFrameTimingListener(listener);
+    final long refreshPeriod = 16_666_666L;
+
+    // Removing the listener from one renderer keeps it registered through the other, and each
+    // vsync is delivered once.
+    firstRenderer.removeFrameTimingListener(listener);
+    FlutterRenderer.onVsync(0, refreshPeriod, 0);
+    verify(listener, times(1)).onVsync(anyLong(), anyLong(), anyInt());
+
+    secondRenderer.removeFrameTimingListener(listener);
+    FlutterRenderer.onVsync(0, refreshPeriod, 0);
+    verify(listener, times(1)).onVsync(anyLong(), anyLong(), anyInt());
+  }
+
+  @Test
+  public void frameTimingStatsAggregateVsyncTimings() {
+    FrameTimingRecorder recorder = new FrameTimingRecorder();
+    final long refreshPeriod = 16_666_666L;
+
+    recorder.recordVsync(500_000L, refreshPeriod, 1_000_000L);
+    recorder.recordVsync(3_000_000L, refreshPeriod, 16_000_000L);
+    recorder.recordVsync(50_000_000L, refreshPeriod, 60_000_000L);
+    recorder.recordVsync(200_000_000L, refreshPeriod, 200_000_000L);
+
+    FrameTimingStats stats = recorder.getStats();
+    assertEquals(4, stats.getFrameCount());
+    assertEquals(0 + 0 + 3 + 12, stats.getMissedVsyncCount());
+    assertEquals(200_000_000L, stats.getMaxVsyncDelayNanos());
+    assertArrayEquals(new long[] {1, 0, 1, 0, 0, 0, 1, 0, 1}, stats.getVsyncDelayHistogram());
+    assertArrayEquals(
+        new long[] {1, 0, 0, 0, 1, 0, 1, 0, 1}, stats.getSchedulingLatencyHistogram());
+
+    // Snapshots are not affected by later frames.
+    recorder.recordVsync(0, refreshPeriod, 0);
+    assertEquals(4, stats.getFrameCount());
+    assertEquals(5, recorder.getStats().getFrameCount());
+  }
 }
@@ -1,10 +1,15 @@
 package io.flutter.embedding.engine.systemchannels;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,6 +23,7 @@ import io.flutter.plugin.common.BinaryMessenger;
 import io.flutter.plugin.common.JSONMessageCodec;
 import io.flutter.util.FakeKeyEvent;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.After;
@@ -59,6 +65,7 @@ public class KeyEventChannelTest {
     keyEvent = new FakeKeyEvent(KeyEvent.ACTION_DOWN, 65);
     handled = new boolean[] {false};
     keyEventChannel = new KeyEventChannel(fakeMessenger);
+    keyEventChannel.setEncodingHandler();
   }
 
   @After
@@ -135,6 +142,177 @@ public class KeyEventChannelTest {
     assertTrue(handled[0]);
   }
 
+  // Sends a setEncoding request from the framework, and returns the decoded reply.
+  private Object requestEncoding(String encoding) throws JSONException {
+    ArgumentCaptor<BinaryMessenger.BinaryMessageHandler> handlerArgumentCaptor =
+        ArgumentCaptor.forClass(BinaryMessenger.BinaryMessageHandler.class);
+    verify(fakeMessenger)
+        .setMessageHandler(eq("flutter/keyevent"), handlerArgumentCaptor.capture());
+    JSONObject request = new JSONObject();
+    request.put("type", "setEncoding");
+    request.put("encoding", encoding);
+    ByteBuffer binaryRequest = JSONMessageCodec.INSTANCE.encodeMessage(request);
+    binaryRequest.rewind();
+    Object[] reply = new Object[1];
+    handlerArgumentCaptor
+        .getValue()
+        .onMessage(
+            binaryRequest,
+            (ByteBuffer binaryReply) -> {
+              if (binaryReply != null) {
+                binaryReply.rewind();
+                reply[0] = JSONMessageCodec.INSTANCE.decodeMessage(binaryReply);
+              }
+            });
+    return reply[0];
+  }
+
+  @Test
+  public void binaryEncodingIsNegotiatedByTheFramework() throws JSONException {
+    assertFalse(keyEventChannel.isBinaryEncodingEnabled());
+
+    JSONObject reply = (JSONObject) requestEncoding("binary");
+    assertNotNull(reply);
+    assertEquals("binary", reply.get("encoding"));
+    assertTrue(keyEventChannel.isBinaryEncodingEnabled());
+
+    reply = (JSONObject) requestEncoding("json");
+    assertNotNull(reply);
+    assertEquals("json", reply.get("encoding"));
+    assertFalse(keyEventChannel.isBinaryEncodingEnabled());
+  }
+
+  @Test
+  public void resetEncodingSwitchesBackToJson() throws JSONException {
+    requestEncoding("binary");
+    assertTrue(keyEventChannel.isBinaryEncodingEnabled());
+
+    keyEventChannel.resetEncoding();
+    assertFalse(keyEventChannel.isBinaryEncodingEnabled());
+  }
+
+  @Test
+  public void binaryKeyEventsReuseTheMessage() {
+    final KeyEventChannel.FlutterKeyEvent down =
+        new KeyEventChannel.FlutterKeyEvent(new FakeKeyEvent(KeyEvent.ACTION_DOWN, 65), null);
+    final KeyEventChannel.FlutterKeyEvent up =
+        new KeyEventChannel.FlutterKeyEvent(new FakeKeyEvent(KeyEvent.ACTION_UP, 65), 'a');
+
+    final ByteBuffer downMessage = keyEventChannel.encodeKeyEventBinary(down, false);
+    assertEquals(KeyEventChannel.BINARY_MESSAGE_FIELD_COUNT * 4, downMessage.position());
+    final ByteBuffer upMessage = keyEventChannel.encodeKeyEventBinary(up, true);
+    assertSame(downMessage, upMessage);
+    assertEquals(KeyEventChannel.BINARY_MESSAGE_FIELD_COUNT * 4, upMessage.position());
+    upMessage.rewind();
+    upMessage.order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(1, upMessage.getInt()); // keyup
+  }
+
+  @Test
+  public void onlyTheChannelWithAnEncodingHandlerHandlesMessages() {
+    final BinaryMessenger messenger = mock(BinaryMessenger.class);
+    final KeyEventChannel other = new KeyEventChannel(messenger);
+    verify(messenger, never()).setMessageHandler(any(), any());
+    assertFalse(other.isBinaryEncodingEnabled());
+  }
+
+  @Test
+  public void unknownEncodingsAreRejected() throws JSONException {
+    assertNull(requestEncoding("protobuf"));
+    assertFalse(keyEventChannel.isBinaryEncodingEnabled());
+  }
+
+  @Test
+  public void binaryKeyEventIsSentToFrameworkOnceNegotiated() throws JSONException {
+    requestEncoding("binary");
+    keyEventChannel.sendFlutterKeyEvent(
+        new KeyEventChannel.FlutterKeyEvent(keyEvent, null),
+        false,
+        (isHandled) -> {
+          handled[0] = isHandled;
+        });
+
+    ArgumentCaptor<ByteBuffer> byteBufferArgumentCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+    ArgumentCaptor<BinaryMessenger.BinaryReply> replyArgumentCaptor =
+        ArgumentCaptor.forClass(BinaryMessenger.BinaryReply.class);
+    verify(fakeMessenger, times(1))
+        .send(
+            eq("flutter/keyevent"),
+            byteBufferArgumentCaptor.capture(),
+            replyArgumentCaptor.capture());
+    ByteBuffer capturedMessage = byteBufferArgumentCaptor.getValue();
+    assertEquals(KeyEventChannel.BINARY_MESSAGE_FIELD_COUNT * 4, capturedMessage.capacity());
+    capturedMessage.rewind();
+    capturedMessage.order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(0, capturedMessage.getInt()); // keydown
+
+    // Simulate a reply, and see that it is handled.
+    ByteBuffer binaryReply = ByteBuffer.allocateDirect(1);
+    binaryReply.put((byte) 1);
+    replyArgumentCaptor.getValue().reply(binaryReply);
+    assertTrue(handled[0]);
+  }
+
+  @Test
+  public void binaryEncodingMatchesJsonEncoding() throws JSONException {
+    final KeyEvent[] events = {
+      new FakeKeyEvent(KeyEvent.ACTION_DOWN, 65),
+      new FakeKeyEvent(KeyEvent.ACTION_UP, 66),
+      new FakeKeyEvent(KeyEvent.ACTION_DOWN, 0, KeyEvent.KEYCODE_A, 3, 'a', KeyEvent.META_SHIFT_ON),
+    };
+    final Character[] characters = {null, 'b', '\u00e1'};
+    final String[] fields = {
+      "type",
+      "flags",
+      "plainCodePoint",
+      "codePoint",
+      "keyCode",
+      "scanCode",
+      "metaState",
+      "character",
+      "source",
+      "deviceId",
+      "repeatCount"
+    };
+    assertEquals(KeyEventChannel.BINARY_MESSAGE_FIELD_COUNT, fields.length);
+
+    for (int i = 0; i < events.length; i++) {
+      final boolean isKeyUp = events[i].getAction() == KeyEvent.ACTION_UP;
+      final KeyEventChannel.FlutterKeyEvent flutterKeyEvent =
+          new KeyEventChannel.FlutterKeyEvent(events[i], characters[i]);
+      keyEventChannel.sendFlutterKeyEvent(flutterKeyEvent, isKeyUp, (isHandled) -> {});
+      ArgumentCaptor<ByteBuffer> byteBufferArgumentCaptor =
+          ArgumentCaptor.forClass(ByteBuffer.class);
+      verify(fakeMessenger, times(i + 1)).send(any(), byteBufferArgumentCaptor.capture(), any());
+      ByteBuffer capturedMessage = byteBufferArgumentCaptor.getValue();
+      capturedMessage.rewind();
+      JSONObject json = (JSONObject) JSONMessageCodec.INSTANCE.decodeMessage(capturedMessage);
+      assertEquals("android", json.get("keymap"));
+
+      ByteBuffer binary = keyEventChannel.encodeKeyEventBinary(flutterKeyEvent, isKeyUp);
+      binary.rewind();
+      binary.order(ByteOrder.LITTLE_ENDIAN);
+      for (String field : fields) {
+        final int value = binary.getInt();
+        switch (field) {
+          case "type":
+            assertEquals(json.get("type"), value == 1 ? "keyup" : "keydown");
+            break;
+          case "character":
+            assertEquals(json.has("character"), value != -1);
+            if (value != -1) {
+              assertEquals(json.get("character"), String.valueOf((char) value));
+            }
+            break;
+          default:
+            assertEquals(field, json.getInt(field), value);
+            break;
+        }
+      }
+      assertFalse(binary.hasRemaining());
+    }
+  }
+
   @Implements(InputDevice.class)
   public static class ShadowInputDevice extends org.robolectric.shadows.ShadowInputDevice {
     public static int[] sDeviceIds;
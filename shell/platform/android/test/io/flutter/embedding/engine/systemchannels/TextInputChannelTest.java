@@ -1,18 +1,35 @@
 package io.flutter.embedding.engine.systemchannels;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import android.annotation.TargetApi;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import io.flutter.embedding.engine.dart.DartExecutor;
+import io.flutter.plugin.common.JSONMethodCodec;
 import io.flutter.plugin.common.MethodCall;
 import io.flutter.plugin.common.MethodChannel;
+import io.flutter.plugin.common.StandardMethodCodec;
+import io.flutter.plugin.editing.TextEditingDelta;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.robolectric.annotation.Config;
 
 @Config(
@@ -34,4 +51,151 @@ public class TextInputChannelTest {
     textInputChannel.parsingMethodHandler.onMethodCall(call, result);
     verify(result).success(null);
   }
+
+  @Test
+  public void setEncodingSwitchesEncodingWithoutHandler() {
+    TextInputChannel textInputChannel = new TextInputChannel(mock(DartExecutor.class));
+    assertFalse(textInputChannel.isBinaryEncodingEnabled());
+
+    MethodChannel.Result result = mock(MethodChannel.Result.class);
+    textInputChannel.parsingMethodHandler.onMethodCall(
+        new MethodCall("TextInput.setEncoding", "binary"), result);
+    verify(result).success("binary");
+    assertTrue(textInputChannel.isBinaryEncodingEnabled());
+
+    result = mock(MethodChannel.Result.class);
+    textInputChannel.parsingMethodHandler.onMethodCall(
+        new MethodCall("TextInput.setEncoding", "xml"), result);
+    verify(result).error(eq("error"), anyString(), isNull());
+    assertTrue(textInputChannel.isBinaryEncodingEnabled());
+
+    result = mock(MethodChannel.Result.class);
+    textInputChannel.parsingMethodHandler.onMethodCall(
+        new MethodCall("TextInput.setEncoding", "json"), result);
+    verify(result).success("json");
+    assertFalse(textInputChannel.isBinaryEncodingEnabled());
+  }
+
+  @Test
+  public void resetEncodingSwitchesBackToJson() {
+    TextInputChannel textInputChannel = new TextInputChannel(mock(DartExecutor.class));
+    textInputChannel.parsingMethodHandler.onMethodCall(
+        new MethodCall("TextInput.setEncoding", "binary"), mock(MethodChannel.Result.class));
+    assertTrue(textInputChannel.isBinaryEncodingEnabled());
+
+    textInputChannel.resetEncoding();
+    assertFalse(textInputChannel.isBinaryEncodingEnabled());
+  }
+
+  @Test
+  public void updateEditingStateIsSentOnBinaryChannelOnceNegotiated() {
+    DartExecutor dartExecutor = mock(DartExecutor.class);
+    TextInputChannel textInputChannel = new TextInputChannel(dartExecutor);
+    textInputChannel.updateEditingState(1, "json", 4, 4, -1, -1);
+    verify(dartExecutor).send(eq("flutter/textinput"), any(ByteBuffer.class), isNull());
+
+    textInputChannel.parsingMethodHandler.onMethodCall(
+        new MethodCall("TextInput.setEncoding", "binary"), mock(MethodChannel.Result.class));
+    textInputChannel.updateEditingState(1, "\u4f60\u597d", 1, 2, 0, 2);
+
+    ArgumentCaptor<ByteBuffer> messageCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+    verify(dartExecutor)
+        .send(eq(TextInputChannel.BINARY_CHANNEL), messageCaptor.capture(), isNull());
+    MethodCall call = decodeBinary(messageCaptor.getValue());
+    assertEquals("TextInputClient.updateEditingState", call.method);
+    List<?> arguments = (List<?>) call.arguments;
+    assertEquals(1, arguments.get(0));
+    assertEquals("\u4f60\u597d", arguments.get(1));
+    assertTrue(Arrays.equals(new int[] {1, 2, 0, 2}, (int[]) arguments.get(2)));
+  }
+
+  // A pinyin IME composing "ni hao" into two characters after some existing text. Like the editing
+  // state, deltas that do not change the text share the old text instance of the previous delta.
+  private static ArrayList<TextEditingDelta> createCjkComposingDeltas() {
+    final String prefix = "\u4eca\u5929";
+    final String n = prefix + "n";
+    final String ni = prefix + "ni";
+    final String nihao = prefix + "nihao";
+    final String composed = prefix + "\u4f60\u597d";
+    final ArrayList<TextEditingDelta> deltas = new ArrayList<>();
+    deltas.add(new TextEditingDelta(prefix, 2, 2, "n", 3, 3, 2, 3));
+    deltas.add(new TextEditingDelta(n, 3, 3, 2, 3));
+    deltas.add(new TextEditingDelta(n, 2, 3, "ni", 4, 4, 2, 4));
+    deltas.add(new TextEditingDelta(ni, 4, 4, 2, 4));
+    deltas.add(new TextEditingDelta(ni, 2, 4, "nihao", 7, 7, 2, 7));
+    deltas.add(new TextEditingDelta(nihao, 7, 7, 2, 7));
+    deltas.add(new TextEditingDelta(nihao, 2, 7, "\u4f60\u597d", 4, 4, 2, 4));
+    deltas.add(new TextEditingDelta(composed, 4, 4, -1, -1));
+    return deltas;
+  }
+
+  @Test
+  public void binaryDeltasMatchJsonDeltas() throws JSONException {
+    DartExecutor dartExecutor = mock(DartExecutor.class);
+    TextInputChannel textInputChannel = new TextInputChannel(dartExecutor);
+    textInputChannel.parsingMethodHandler.onMethodCall(
+        new MethodCall("TextInput.setEncoding", "binary"), mock(MethodChannel.Result.class));
+    ArrayList<TextEditingDelta> deltas = createCjkComposingDeltas();
+    textInputChannel.updateEditingStateWithDeltas(3, deltas);
+
+    ArgumentCaptor<ByteBuffer> messageCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+    verify(dartExecutor)
+        .send(eq(TextInputChannel.BINARY_CHANNEL), messageCaptor.capture(), isNull());
+    verify(dartExecutor, never()).send(eq("flutter/textinput"), any(ByteBuffer.class), isNull());
+    MethodCall call = decodeBinary(messageCaptor.getValue());
+    assertEquals("TextInputClient.updateEditingStateWithDeltas", call.method);
+    List<?> arguments = (List<?>) call.arguments;
+    assertEquals(3, arguments.get(0));
+    List<?> texts = (List<?>) arguments.get(1);
+    int[] ranges = (int[]) arguments.get(2);
+    assertEquals(2 * deltas.size(), texts.size());
+    assertEquals(6 * deltas.size(), ranges.length);
+
+    String oldText = null;
+    for (int i = 0; i < deltas.size(); i++) {
+      JSONObject json = deltas.get(i).toJSON();
+      if (texts.get(2 * i) != null) {
+        oldText = (String) texts.get(2 * i);
+      }
+      assertEquals(json.getString("oldText"), oldText);
+      assertEquals(json.getString("deltaText"), texts.get(2 * i + 1));
+      assertEquals(json.getInt("deltaStart"), ranges[6 * i]);
+      assertEquals(json.getInt("deltaEnd"), ranges[6 * i + 1]);
+      assertEquals(json.getInt("selectionBase"), ranges[6 * i + 2]);
+      assertEquals(json.getInt("selectionExtent"), ranges[6 * i + 3]);
+      assertEquals(json.getInt("composingBase"), ranges[6 * i + 4]);
+      assertEquals(json.getInt("composingExtent"), ranges[6 * i + 5]);
+    }
+    // The text changes replace the composing text the previous delta reported, so their old text
+    // is not repeated.
+    assertNull(texts.get(2 * 2));
+    assertNull(texts.get(2 * 4));
+    assertNull(texts.get(2 * 6));
+  }
+
+  @Test
+  public void binaryDeltasAreSmallerThanJsonDeltas() {
+    ArrayList<TextEditingDelta> deltas = createCjkComposingDeltas();
+    ByteBuffer binary =
+        StandardMethodCodec.INSTANCE.encodeMethodCall(
+            new MethodCall(
+                "TextInputClient.updateEditingStateWithDeltas",
+                TextInputChannel.createEditingDeltaBinaryArguments(3, deltas)));
+    JSONArray jsonDeltas = new JSONArray();
+    for (TextEditingDelta delta : deltas) {
+      jsonDeltas.put(delta.toJSON());
+    }
+    ByteBuffer json =
+        JSONMethodCodec.INSTANCE.encodeMethodCall(
+            new MethodCall(
+                "TextInputClient.updateEditingStateWithDeltas", Arrays.asList(3, jsonDeltas)));
+    assertTrue(
+        "binary: " + binary.capacity() + ", json: " + json.capacity(),
+        2 * binary.capacity() < json.capacity());
+  }
+
+  private static MethodCall decodeBinary(ByteBuffer message) {
+    message.rewind();
+    return StandardMethodCodec.INSTANCE.decodeMethodCall(message);
+  }
 }
@@ -0,0 +1,82 @@
+package io.flutter.plugin.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class DirectByteBufferOutputStreamTest {
+  @Test
+  public void capacityForRoundsUpToSizeClasses() {
+    assertEquals(
+        DirectByteBufferOutputStream.MIN_CAPACITY, DirectByteBufferOutputStream.capacityFor(0));
+    assertEquals(
+        DirectByteBufferOutputStream.MIN_CAPACITY, DirectByteBufferOutputStream.capacityFor(256));
+    assertEquals(512, DirectByteBufferOutputStream.capacityFor(257));
+    assertEquals(1024, DirectByteBufferOutputStream.capacityFor(1024));
+    int oversized = DirectByteBufferOutputStream.MAX_POOLED_CAPACITY + 1;
+    assertEquals(oversized, DirectByteBufferOutputStream.capacityFor(oversized));
+  }
+
+  @Test
+  public void growsWhilePreservingWrittenBytes() {
+    DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    for (int i = 0; i < 1000; i++) {
+      stream.write(i);
+    }
+    stream.putInts(new int[] {1, 2, 3});
+
+    ByteBuffer expected = ByteBuffer.allocate(1012).order(ByteOrder.nativeOrder());
+    for (int i = 0; i < 1000; i++) {
+      expected.put((byte) i);
+    }
+    expected.putInt(1).putInt(2).putInt(3);
+
+    assertEquals(1012, stream.size());
+    assertArrayEquals(expected.array(), stream.toByteArray());
+    stream.release();
+  }
+
+  @Test
+  public void growsGeometricallyPastThePooledSizeClasses() {
+    DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    final int size = 3 * DirectByteBufferOutputStream.MAX_POOLED_CAPACITY;
+    for (int i = 0; i < size; i++) {
+      stream.write(i);
+    }
+
+    assertEquals(size, stream.size());
+    // 256 bytes doubles 12 times to reach the 1 MiB size class, and twice more to hold 3 MiB.
+    assertEquals(14, stream.getGrowCount());
+    ByteBuffer result = stream.toDirectByteBuffer();
+    stream.release();
+    result.flip();
+    for (int i = 0; i < size; i += 4099) {
+      assertEquals((byte) i, result.get(i));
+    }
+  }
+
+  @Test
+  public void toDirectByteBufferIsIndependentOfThePool() {
+    DirectByteBufferOutputStream stream = DirectByteBufferOutputStream.obtain();
+    stream.putLong(42L);
+    ByteBuffer result = stream.toDirectByteBuffer();
+    stream.release();
+
+    DirectByteBufferOutputStream reused = DirectByteBufferOutputStream.obtain();
+    reused.putLong(7L);
+    reused.release();
+
+    assertEquals(8, result.capacity());
+    assertEquals(8, result.position());
+    result.flip();
+    assertEquals(42L, result.order(ByteOrder.nativeOrder()).getLong());
+  }
+}
@@ -0,0 +1,315 @@
+package io.flutter.plugin.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class JSONMessageCodecTest {
+  private static final Charset UTF8 = Charset.forName("UTF8");
+
+  // Decodes the way JSONMessageCodec did before it parsed UTF-8 directly.
+  private static Object decodeThroughString(byte[] bytes) throws JSONException {
+    final JSONTokener tokener = new JSONTokener(new String(bytes, UTF8));
+    final Object value = tokener.nextValue();
+    if (tokener.more()) {
+      throw new IllegalArgumentException("Invalid JSON");
+    }
+    return value;
+  }
+
+  // Encodes the way JSONMessageCodec did before it serialized UTF-8 directly.
+  private static byte[] encodeThroughString(Object message) {
+    final Object wrapped = JSONUtil.wrap(message);
+    final String json =
+        wrapped instanceof String ? JSONObject.quote((String) wrapped) : wrapped.toString();
+    return json == null ? null : json.getBytes(UTF8);
+  }
+
+  private static byte[] toBytes(ByteBuffer buffer) {
+    if (buffer == null) {
+      return null;
+    }
+    buffer.flip();
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static ByteBuffer direct(byte[] bytes) {
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes);
+    buffer.flip();
+    return buffer;
+  }
+
+  private static void assertSameModel(Object expected, Object actual) throws JSONException {
+    if (expected == null) {
+      assertNull(actual);
+      return;
+    }
+    assertEquals(expected.getClass(), actual.getClass());
+    if (expected instanceof JSONObject) {
+      final JSONObject expectedObject = (JSONObject) expected;
+      final JSONObject actualObject = (JSONObject) actual;
+      assertEquals(expectedObject.length(), actualObject.length());
+      final Iterator<String> expectedNames = expectedObject.keys();
+      final Iterator<String> actualNames = actualObject.keys();
+      while (expectedNames.hasNext()) {
+        final String name = expectedNames.next();
+        assertEquals(name, actualNames.next());
+        assertSameModel(expectedObject.get(name), actualObject.get(name));
+      }
+    } else if (expected instanceof JSONArray) {
+      final JSONArray expectedArray = (JSONArray) expected;
+      final JSONArray actualArray = (JSONArray) actual;
+      assertEquals(expectedArray.length(), actualArray.length());
+      for (int i = 0; i < expectedArray.length(); i++) {
+        assertSameModel(expectedArray.opt(i), actualArray.opt(i));
+      }
+    } else {
+      assertEquals(expected, actual);
+    }
+  }
+
+  private static void assertDecodesLikeJSONTokener(String json) throws JSONException {
+    final byte[] bytes = json.getBytes(UTF8);
+    Object expected;
+    try {
+      expected = decodeThroughString(bytes);
+    } catch (JSONException | IllegalArgumentException e) {
+      expected = null;
+    }
+    if (expected == null) {
+      assertThrows(
+          json,
+          IllegalArgumentException.class,
+          () -> JSONMessageCodec.INSTANCE.decodeMessage(direct(bytes)));
+      assertThrows(
+          json,
+          IllegalArgumentException.class,
+          () -> JSONMessageCodec.INSTANCE.decodeMessage(ByteBuffer.wrap(bytes)));
+    } else {
+      assertSameModel(expected, JSONMessageCodec.INSTANCE.decodeMessage(direct(bytes)));
+      assertSameModel(expected, JSONMessageCodec.INSTANCE.decodeMessage(ByteBuffer.wrap(bytes)));
+    }
+  }
+
+  private static void assertEncodesLikeToString(Object message) {
+    assertArrayEquals(
+        String.valueOf(message),
+        encodeThroughString(message),
+        toBytes(JSONMessageCodec.INSTANCE.encodeMessage(message)));
+  }
+
+  private static Map<String, Object> editingState(String text) {
+    final Map<String, Object> state = new LinkedHashMap<>();
+    state.put("text", text);
+    state.put("selectionBase", text.length());
+    state.put("selectionExtent", text.length());
+    state.put("selectionAffinity", "TextAffinity.downstream");
+    state.put("selectionIsDirectional", false);
+    state.put("composingBase", -1);
+    state.put("composingExtent", -1);
+    return state;
+  }
+
+  @Test
+  public void decodesStrictJSONLikeJSONTokener() throws JSONException {
+    final String[] inputs = {
+      "{}",
+      "[]",
+      " \n\t{ \"a\" : [ 1 , 2 ] }",
+      "0",
+      "-0",
+      "42",
+      "-2147483648",
+      "2147483648",
+      "-9223372036854775808",
+      "9223372036854775808",
+      "123456789012345678901234567890",
+      "1.5",
+      "-0.0",
+      "1e5",
+      "1E-5",
+      "2.5e+10",
+      "true",
+      "false",
+      "null",
+      "\"\"",
+      "\"plain\"",
+      "\"esc\\\"aped\\\\ \\/ \\b\\f\\n\\r\\t\"",
+      "\"\\u0041\\u00e9\\u4e2d\\ud83d\\ude00\"",
+      "\"café 中文 😀\"",
+      "{\"a\":1,\"a\":2}",
+      "{\"nested\":{\"list\":[null,true,false,{},[]]}}",
+      "[1,2.0,\"3\",[4],{\"5\":6}]",
+    };
+    for (String input : inputs) {
+      assertDecodesLikeJSONTokener(input);
+    }
+  }
+
+  @Test
+  public void decodesLenientOrInvalidJSONLikeJSONTokener() throws JSONException {
+    final String[] inputs = {
+      "",
+      " ",
+      "1 ",
+      "{\"a\":1}x",
+      "{'a':1}",
+      "{a:1}",
+      "{\"a\"=1}",
+      "[1,,2]",
+      "[1,]",
+      "/* comment */ 1",
+      "# comment\n1",
+      "truex",
+      "TRUE",
+      "01",
+      "0x1f",
+      "-",
+      "1.",
+      ".5",
+      "1e",
+      "\"unterminated",
+      "\"bad \\x escape\"",
+      "\"raw\ttab\"",
+      "\ufeff[1]",
+      "[1",
+      "{\"a\":1e999}",
+    };
+    for (String input : inputs) {
+      assertDecodesLikeJSONTokener(input);
+    }
+  }
+
+  @Test
+  public void decodesMalformedUTF8LikeStringCodec() throws JSONException {
+    final byte[][] inputs = {
+      {'"', (byte) 0xc3, '"'},
+      {'"', (byte) 0x80, '"'},
+      {'"', (byte) 0xed, (byte) 0xa0, (byte) 0x80, '"'},
+      {'"', (byte) 0xf8, (byte) 0x88, (byte) 0x80, (byte) 0x80, (byte) 0x80, '"'},
+    };
+    for (byte[] input : inputs) {
+      assertSameModel(
+          decodeThroughString(input), JSONMessageCodec.INSTANCE.decodeMessage(direct(input)));
+    }
+  }
+
+  @Test
+  public void decodeConsumesTheMessage() {
+    final ByteBuffer message = direct("[1]".getBytes(UTF8));
+    JSONMessageCodec.INSTANCE.decodeMessage(message);
+    assertEquals(message.limit(), message.position());
+  }
+
+  @Test
+  public void encodesLikeToString() {
+    final Map<String, Object> map = new LinkedHashMap<>();
+    map.put("string", "esc\"aped\\ / \b\f\n\r\t \u0001\u001f café 中 😀");
+    map.put("int", 1);
+    map.put("long", 1L << 40);
+    map.put("double", 1.0);
+    map.put("fraction", 0.1);
+    map.put("negativeZero", -0.0);
+    map.put("float", 1.5f);
+    map.put("bool", true);
+    map.put("null", null);
+    map.put("list", Arrays.asList(1, "two", null, Collections.emptyMap()));
+    map.put("array", new int[] {1, 2, 3});
+    map.put("char", 'c');
+    final Object[] messages = {
+      map,
+      Collections.emptyMap(),
+      Collections.emptyList(),
+      "top level \"string\" / 😀",
+      42,
+      1.0,
+      true,
+      Arrays.asList(Double.NaN),
+      "unpaired \ud83d surrogate",
+      Collections.singletonMap("unpaired", "\ude00"),
+    };
+    for (Object message : messages) {
+      assertEncodesLikeToString(message);
+    }
+  }
+
+  @Test
+  public void encodesNullAsNull() {
+    assertNull(JSONMessageCodec.INSTANCE.encodeMessage(null));
+  }
+
+  @Test
+  public void roundTripsTextInputPayloads() throws JSONException {
+    final StringBuilder document = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      document.append("Line ").append(i).append(": café 中文 😀\n");
+    }
+    final List<Object> updates = new ArrayList<>();
+    updates.add(editingState(""));
+    updates.add(editingState("Hello, world"));
+    updates.add(editingState(document.toString()));
+
+    for (Object state : updates) {
+      final MethodCall call =
+          new MethodCall("TextInputClient.updateEditingState", Arrays.asList(7, state));
+      final ByteBuffer encoded = JSONMethodCodec.INSTANCE.encodeMethodCall(call);
+      final byte[] bytes = toBytes(encoded);
+      final Map<String, Object> expected = new LinkedHashMap<>();
+      expected.put("method", call.method);
+      expected.put("args", call.arguments);
+      assertArrayEquals(encodeThroughString(expected), bytes);
+
+      final MethodCall decoded = JSONMethodCodec.INSTANCE.decodeMethodCall(direct(bytes));
+      assertEquals(call.method, decoded.method);
+      assertSameModel(
+          decodeThroughString(bytes), JSONMessageCodec.INSTANCE.decodeMessage(direct(bytes)));
+      final JSONArray args = (JSONArray) decoded.arguments;
+      assertEquals(7, args.get(0));
+      assertEquals(((Map<?, ?>) state).get("text"), ((JSONObject) args.get(1)).getString("text"));
+    }
+  }
+
+  @Test
+  public void decodesDeeplyNestedMessages() {
+    final StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      json.append('[');
+    }
+    for (int i = 0; i < 100; i++) {
+      json.append(']');
+    }
+    Object value = JSONMessageCodec.INSTANCE.decodeMessage(direct(json.toString().getBytes(UTF8)));
+    int depth = 0;
+    while (value instanceof JSONArray && ((JSONArray) value).length() > 0) {
+      value = ((JSONArray) value).opt(0);
+      depth++;
+    }
+    assertTrue(value instanceof JSONArray);
+    assertEquals(99, depth);
+  }
+}
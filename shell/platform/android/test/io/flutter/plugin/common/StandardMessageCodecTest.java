@@ -7,8 +7,12 @@ import static org.junit.Assert.assertTrue;
 
 import android.text.SpannableString;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.annotation.Config;
@@ -144,4 +148,46 @@ public class StandardMessageCodecTest {
             });
     assertTrue(exception.getMessage().contains("NotEncodable"));
   }
+
+  @Test
+  public void itEncodesTheSameBytesAsAHeapStream() {
+    StandardMessageCodec codec = new StandardMessageCodec();
+
+    Map<Object, Object> map = new HashMap<>();
+    map.put("key", new long[] {1L, -2L, Long.MAX_VALUE});
+    map.put(7, new BigInteger("123456789abcdef0123", 16));
+    ArrayList<Object> messageContent = new ArrayList<>();
+    messageContent.add((byte) 3);
+    messageContent.add(1.5f);
+    messageContent.add("héllo");
+    messageContent.add(new byte[] {1, 2, 3});
+    messageContent.add(new int[] {-1, 0, Integer.MAX_VALUE});
+    messageContent.add(new double[] {Math.PI, -0.0});
+    messageContent.add(new float[] {1.0f, 2.2f, 5.3f});
+    messageContent.add(map);
+    // Large enough to cross several size classes and exercise the 5-byte size encoding.
+    messageContent.add(new int[70000]);
+
+    ByteArrayOutputStream heapStream = new ByteArrayOutputStream();
+    codec.writeValue(heapStream, messageContent);
+    ByteBuffer expected = ByteBuffer.wrap(heapStream.toByteArray());
+
+    ByteBuffer message = codec.encodeMessage(messageContent);
+    assertEquals(message.capacity(), message.position());
+    message.flip();
+    assertEquals(expected, message);
+  }
+
+  @Test
+  public void itDoesNotShareBuffersBetweenEncodedMessages() {
+    StandardMessageCodec codec = new StandardMessageCodec();
+
+    ByteBuffer first = codec.encodeMessage("first");
+    ByteBuffer second = codec.encodeMessage("second");
+    first.flip();
+    second.flip();
+
+    assertEquals("first", codec.decodeMessage(first));
+    assertEquals("second", codec.decodeMessage(second));
+  }
 }
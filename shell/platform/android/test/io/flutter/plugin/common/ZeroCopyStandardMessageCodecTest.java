@@ -0,0 +1,119 @@
+package io.flutter.plugin.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = Config.NONE)
+@RunWith(AndroidJUnit4.class)
+public class ZeroCopyStandardMessageCodecTest {
+  private static ByteBuffer encodeDirect(Object value) {
+    ByteBuffer encoded = StandardMessageCodec.INSTANCE.encodeMessage(value);
+    encoded.flip();
+    return encoded;
+  }
+
+  @Test
+  public void itDecodesTypedArraysAsViews() {
+    ArrayList<Object> messageContent = new ArrayList<>();
+    messageContent.add(new byte[] {1, 2, 3});
+    messageContent.add(new int[] {-1, 0, Integer.MAX_VALUE});
+    messageContent.add(new long[] {Long.MIN_VALUE, 5L});
+    messageContent.add(new double[] {Math.PI, -0.0});
+    messageContent.add("héllo");
+    ByteBuffer message = encodeDirect(messageContent);
+
+    List<?> decoded = (List<?>) ZeroCopyStandardMessageCodec.INSTANCE.decodeMessage(message);
+
+    ByteBuffer bytes = (ByteBuffer) decoded.get(0);
+    assertEquals(3, bytes.remaining());
+    assertEquals(3, bytes.get(2));
+    IntBuffer ints = (IntBuffer) decoded.get(1);
+    int[] intValues = new int[ints.remaining()];
+    ints.get(intValues);
+    assertArrayEquals(new int[] {-1, 0, Integer.MAX_VALUE}, intValues);
+    LongBuffer longs = (LongBuffer) decoded.get(2);
+    assertEquals(Long.MIN_VALUE, longs.get(0));
+    assertEquals(5L, longs.get(1));
+    DoubleBuffer doubles = (DoubleBuffer) decoded.get(3);
+    assertEquals(Math.PI, doubles.get(0), 0);
+    assertEquals("héllo", decoded.get(4));
+  }
+
+  @Test
+  public void viewsShareMemoryWithTheMessageAndAreReadOnly() {
+    ByteBuffer message = encodeDirect(new int[] {7, 8});
+
+    IntBuffer ints = (IntBuffer) ZeroCopyStandardMessageCodec.INSTANCE.decodeMessage(message);
+
+    assertTrue(ints.isReadOnly());
+    assertTrue(ints.isDirect());
+    // The ints start after the type byte, size byte and two bytes of alignment.
+    message.putInt(4, 42);
+    assertEquals(42, ints.get(0));
+    assertThrows(ReadOnlyBufferException.class, () -> ints.put(0, 1));
+  }
+
+  @Test
+  public void viewsAreInvalidatedWhenTheScopeEnds() {
+    ByteBuffer message = encodeDirect(new double[] {1.0, 2.0});
+
+    int mark = BorrowedBufferViews.begin();
+    DoubleBuffer doubles =
+        (DoubleBuffer) ZeroCopyStandardMessageCodec.INSTANCE.decodeMessage(message);
+    assertEquals(2, doubles.remaining());
+    BorrowedBufferViews.end(mark);
+
+    assertEquals(0, doubles.limit());
+  }
+
+  @Test
+  public void viewsOutsideAScopeAreNotInvalidated() {
+    ByteBuffer message = encodeDirect(new byte[] {1, 2});
+    ByteBuffer bytes = (ByteBuffer) ZeroCopyStandardMessageCodec.INSTANCE.decodeMessage(message);
+
+    int mark = BorrowedBufferViews.begin();
+    BorrowedBufferViews.end(mark);
+
+    assertEquals(2, bytes.limit());
+  }
+
+  @Test
+  public void itEncodesViewsLikeArrays() {
+    ZeroCopyStandardMessageCodec codec = ZeroCopyStandardMessageCodec.INSTANCE;
+    ArrayList<Object> messageContent = new ArrayList<>();
+    messageContent.add(new byte[] {1, 2, 3});
+    messageContent.add(new int[] {4, 5});
+    messageContent.add(new float[] {1.5f});
+    ByteBuffer expected = encodeDirect(messageContent);
+
+    List<?> views = (List<?>) codec.decodeMessage(encodeDirect(messageContent));
+    ByteBuffer reencoded = codec.encodeMessage(views);
+    reencoded.flip();
+
+    assertEquals(expected, reencoded);
+  }
+
+  @Test
+  public void itRejectsTruncatedArrays() {
+    ByteBuffer message = encodeDirect(new long[] {1L, 2L});
+    message.limit(message.limit() - 1);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ZeroCopyStandardMessageCodec.INSTANCE.decodeMessage(message));
+  }
+}
@@ -254,6 +254,42 @@ public class ListenableEditingStateTest {
     assertEquals(3, batchDeltas.size());
   }
 
+  @Test
+  public void testDeltaRecordingCanBeDisabled() {
+    final ListenableEditingState editingState = new ListenableEditingState(null, new View(ctx));
+    editingState.replace(0, editingState.length(), "test");
+    editingState.setDeltaRecordingEnabled(false);
+    assertEquals(0, editingState.extractBatchTextEditingDeltas().size());
+
+    editingState.delete(0, 1);
+    Selection.setSelection(editingState, 1);
+    assertEquals(0, editingState.extractBatchTextEditingDeltas().size());
+    assertEquals("est", editingState.toString());
+
+    editingState.setDeltaRecordingEnabled(true);
+    editingState.insert(0, "t");
+    assertEquals(1, editingState.extractBatchTextEditingDeltas().size());
+  }
+
+  @Test
+  public void testTextVersionOnlyChangesWithText() {
+    final ListenableEditingState editingState = new ListenableEditingState(null, new View(ctx));
+    editingState.replace(0, editingState.length(), "test");
+    final long version = editingState.getTextVersion();
+
+    Selection.setSelection(editingState, 1, 2);
+    editingState.setComposingRange(0, 2);
+    // Replacing text with the same text is not a change.
+    editingState.replace(0, 2, "te");
+    assertEquals(version, editingState.getTextVersion());
+
+    editingState.replace(0, 2, "be");
+    assertTrue(editingState.getTextVersion() != version);
+    final long changedVersion = editingState.getTextVersion();
+    editingState.replace(0, 2, "te");
+    assertTrue(editingState.getTextVersion() != changedVersion);
+  }
+
   // -------- Start: Test InputMethods actions   -------
   @Test
   public void inputMethod_batchEditingBeginAndEnd() {
@@ -248,6 +248,75 @@ public class TextInputPluginTest {
     verify(textInputChannel, times(0)).updateEditingStateWithDeltas(anyInt(), any());
   }
 
+  @Test
+  public void didChangeEditingState_sendsOnlyRealChangesOfLargeDocuments() {
+    View testView = new View(ctx);
+    TextInputChannel textInputChannel = spy(new TextInputChannel(mock(DartExecutor.class)));
+    TextInputPlugin textInputPlugin =
+        new TextInputPlugin(testView, textInputChannel, mock(PlatformViewsController.class));
+    textInputPlugin.setTextInputClient(
+        0,
+        new TextInputChannel.Configuration(
+            false,
+            false,
+            true,
+            true,
+            false,
+            TextInputChannel.TextCapitalization.NONE,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null));
+    final StringBuilder document = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      document.append("line ").append(i).append('\n');
+    }
+    final String text = document.toString();
+    final int end = text.length();
+    textInputPlugin.setTextInputEditingState(
+        testView, new TextInputChannel.TextEditState(text, end, end, -1, -1));
+    final ListenableEditingState editable = (ListenableEditingState) textInputPlugin.getEditable();
+
+    // Typing a character sends the new text once.
+    editable.insert(end, "x");
+    verify(textInputChannel, times(1))
+        .updateEditingState(anyInt(), eq(text + "x"), eq(end + 1), eq(end + 1), eq(-1), eq(-1));
+
+    // Replacing text with the same text sends nothing.
+    editable.replace(end, end + 1, "x");
+    verify(textInputChannel, times(1))
+        .updateEditingState(anyInt(), any(), anyInt(), anyInt(), anyInt(), anyInt());
+
+    // Moving the selection sends the unchanged text with the new selection.
+    editable.beginBatchEdit();
+    Selection.setSelection(editable, 0);
+    editable.endBatchEdit();
+    verify(textInputChannel, times(1))
+        .updateEditingState(anyInt(), eq(text + "x"), eq(0), eq(0), eq(-1), eq(-1));
+
+    // An edit that is undone within a batch edit sends nothing.
+    editable.beginBatchEdit();
+    editable.insert(0, "y");
+    editable.delete(0, 1);
+    Selection.setSelection(editable, 0);
+    editable.endBatchEdit();
+    verify(textInputChannel, times(2))
+        .updateEditingState(anyInt(), any(), anyInt(), anyInt(), anyInt(), anyInt());
+
+    // The framework echoing back the text it was sent does not restart or resend anything.
+    textInputPlugin.setTextInputEditingState(
+        testView, new TextInputChannel.TextEditState(text + "x", 0, 0, -1, -1));
+    editable.beginBatchEdit();
+    Selection.setSelection(editable, 1);
+    editable.endBatchEdit();
+    verify(textInputChannel, times(1))
+        .updateEditingState(anyInt(), eq(text + "x"), eq(1), eq(1), eq(-1), eq(-1));
+    verify(textInputChannel, times(3))
+        .updateEditingState(anyInt(), any(), anyInt(), anyInt(), anyInt(), anyInt());
+  }
+
   @Test
   public void textEditingDelta_TestUpdateEditingValueWithDeltasIsNotInvokedWhenDeltaModelDisabled()
       throws NullPointerException {
@@ -10,6 +10,7 @@ import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Rect;
 import android.view.View;
 import android.view.View.OnFocusChangeListener;
 import android.view.ViewGroup;
@@ -61,6 +62,108 @@ public class PlatformViewWrapperTest {
     verify(canvas, times(1)).drawColor(Color.RED);
   }
 
+  @Test
+  public void invalidateChildInParent_ignoresDamageOutsideOfBounds() {
+    final PlatformViewWrapper wrapper = spy(new PlatformViewWrapper(ctx));
+    wrapper.layout(0, 0, 100, 100);
+
+    wrapper.invalidateChildInParent(new int[] {200, 0}, new Rect(0, 0, 10, 10));
+    verify(wrapper, never()).invalidate();
+
+    wrapper.invalidateChildInParent(new int[] {95, 0}, new Rect(0, 0, 10, 10));
+    verify(wrapper, times(1)).invalidate();
+  }
+
+  @Test
+  @Config(
+      shadows = {
+        ShadowView.class,
+      })
+  public void draw_countsDamagedAndRedrawnPixels() {
+    final PlatformViewRenderTarget renderTarget = mock(PlatformViewRenderTarget.class);
+    final Canvas targetCanvas = mock(Canvas.class);
+    when(renderTarget.lockHardwareCanvas()).thenReturn(targetCanvas);
+    when(renderTarget.getWidth()).thenReturn(100);
+    when(renderTarget.getHeight()).thenReturn(100);
+    final PlatformViewWrapper wrapper = new PlatformViewWrapper(ctx, renderTarget);
+    wrapper.layout(0, 0, 100, 100);
+
+    // Laying out damages the whole view.
+    wrapper.draw(mock(Canvas.class));
+    assertEquals(1, wrapper.getTextureUpdateCount());
+    assertEquals(10000, wrapper.getDamagedPixelCount());
+    assertEquals(10000, wrapper.getRedrawnPixelCount());
+
+    wrapper.invalidateChildInParent(new int[] {10, 10}, new Rect(0, 0, 5, 4));
+    wrapper.invalidateChildInParent(new int[] {20, 10}, new Rect(0, 0, 5, 4));
+    wrapper.draw(mock(Canvas.class));
+    assertEquals(2, wrapper.getTextureUpdateCount());
+    assertEquals(10000 + 15 * 4, wrapper.getDamagedPixelCount());
+    assertEquals(20000, wrapper.getRedrawnPixelCount());
+    verify(renderTarget, times(2)).unlockCanvasAndPost(targetCanvas);
+  }
+
+  @Test
+  @Config(
+      shadows = {
+        ShadowView.class,
+      })
+  public void invalidateChildInParent_defersUpdatesWithinTheMinUpdateInterval() {
+    final PlatformViewRenderTarget renderTarget = mock(PlatformViewRenderTarget.class);
+    when(renderTarget.lockHardwareCanvas()).thenReturn(mock(Canvas.class));
+    when(renderTarget.getWidth()).thenReturn(100);
+    when(renderTarget.getHeight()).thenReturn(100);
+    final PlatformViewWrapper wrapper = spy(new PlatformViewWrapper(ctx, renderTarget));
+    wrapper.layout(0, 0, 100, 100);
+    wrapper.setMinUpdateIntervalMillis(1000);
+    // The first update isn't deferred.
+    wrapper.draw(mock(Canvas.class));
+    assertEquals(1, wrapper.getTextureUpdateCount());
+
+    // Every frame of an animation invalidates the wrapper, but none of them updates the texture
+    // until the interval has passed.
+    for (int frame = 0; frame < 10; frame++) {
+      wrapper.invalidateChildInParent(new int[] {10 * frame, 10}, new Rect(0, 0, 5, 4));
+    }
+    verify(wrapper, never()).invalidate();
+    final ArgumentCaptor<Runnable> postedUpdate = ArgumentCaptor.forClass(Runnable.class);
+    final ArgumentCaptor<Long> delayMillis = ArgumentCaptor.forClass(Long.class);
+    verify(wrapper, times(1)).postOnAnimationDelayed(postedUpdate.capture(), delayMillis.capture());
+    assertTrue(delayMillis.getValue() > 500);
+    assertTrue(delayMillis.getValue() <= 1000);
+    assertEquals(1, wrapper.getTextureUpdateCount());
+
+    // The next draw updates the texture with all the deferred damage at once, and cancels the
+    // posted update since there's nothing left for it to do.
+    wrapper.draw(mock(Canvas.class));
+    verify(wrapper, times(1)).removeCallbacks(postedUpdate.getValue());
+    assertEquals(2, wrapper.getTextureUpdateCount());
+    assertEquals(10000 + 95 * 4, wrapper.getDamagedPixelCount());
+  }
+
+  @Test
+  public void setMinUpdateIntervalMillis_rejectsNegativeIntervals() {
+    final PlatformViewWrapper wrapper = new PlatformViewWrapper(ctx);
+    assertThrows(IllegalArgumentException.class, () -> wrapper.setMinUpdateIntervalMillis(-1));
+  }
+
+  @Test
+  public void getRedrawnPixelsPerSecond_countsTheLastSecond() {
+    final PlatformViewWrapper wrapper = new PlatformViewWrapper(ctx);
+    final long second = 1000000000L;
+    final long start = System.nanoTime() + 10 * second;
+
+    wrapper.recordTextureUpdate(start, 0, 100);
+    wrapper.recordTextureUpdate(start + second / 2, 0, 200);
+    assertEquals(0, wrapper.getRedrawnPixelsPerSecond(start + second / 2));
+    assertEquals(300, wrapper.getRedrawnPixelsPerSecond(start + second));
+
+    wrapper.recordTextureUpdate(start + second + second / 2, 0, 400);
+    assertEquals(300, wrapper.getRedrawnPixelsPerSecond(start + second + second / 2));
+    assertEquals(400, wrapper.getRedrawnPixelsPerSecond(start + 3 * second));
+    assertEquals(0, wrapper.getRedrawnPixelsPerSecond(start + 4 * second));
+  }
+
   @Test
   public void focusChangeListener_hasFocus() {
     final ViewTreeObserver viewTreeObserver = mock(ViewTreeObserver.class);
@@ -1354,6 +1354,121 @@ public class PlatformViewsControllerTest {
     verify(newFlutterView, times(1)).addView(any(PlatformViewWrapper.class));
   }
 
+  @Test
+  @Config(
+      shadows = {
+        ShadowFlutterSurfaceView.class,
+        ShadowFlutterJNI.class,
+        ShadowPlatformTaskQueue.class
+      })
+  public void onEndFrame_keepsUnusedOverlaySurfacesInViewHierarchy() {
+    final PlatformViewsController platformViewsController = new PlatformViewsController();
+
+    final int platformViewId = 0;
+    final PlatformViewFactory viewFactory = mock(PlatformViewFactory.class);
+    final PlatformView platformView = mock(PlatformView.class);
+    when(platformView.getView()).thenReturn(mock(View.class));
+    when(viewFactory.create(any(), eq(platformViewId), any())).thenReturn(platformView);
+    platformViewsController.getRegistry().registerViewFactory("testType", viewFactory);
+
+    final FlutterJNI jni = new FlutterJNI();
+    jni.attachToNative();
+    final FlutterView flutterView = attach(jni, platformViewsController);
+    jni.onFirstFrame();
+    createPlatformView(jni, platformViewsController, platformViewId, "testType", /* hybrid=*/ true);
+
+    final PlatformOverlayView overlayView =
+        new PlatformOverlayView(
+            ApplicationProvider.getApplicationContext(),
+            10,
+            10,
+            mock(AccessibilityEventsDelegate.class)) {
+          @Override
+          public boolean acquireLatestImage() {
+            return true;
+          }
+        };
+    final FlutterOverlaySurface overlaySurface =
+        platformViewsController.createOverlaySurface(overlayView);
+
+    // Produce a frame that displays the platform view and an overlay surface.
+    platformViewsController.onBeginFrame();
+    platformViewsController.onDisplayPlatformView(
+        platformViewId, 0, 0, 10, 10, 10, 10, new FlutterMutatorsStack());
+    platformViewsController.onDisplayOverlaySurface(overlaySurface.getId(), 0, 0, 10, 10);
+    platformViewsController.onEndFrame();
+    assertEquals(View.VISIBLE, overlayView.getVisibility());
+
+    // Produce a frame that only displays the platform view.
+    platformViewsController.onBeginFrame();
+    platformViewsController.onDisplayPlatformView(
+        platformViewId, 0, 0, 10, 10, 10, 10, new FlutterMutatorsStack());
+    platformViewsController.onEndFrame();
+    assertEquals(View.GONE, overlayView.getVisibility());
+    assertTrue(flutterView.indexOfChild(overlayView) != -1);
+
+    // The overlay surface is displayed on top of the platform view again.
+    platformViewsController.onBeginFrame();
+    platformViewsController.onDisplayPlatformView(
+        platformViewId, 0, 0, 10, 10, 10, 10, new FlutterMutatorsStack());
+    platformViewsController.onDisplayOverlaySurface(overlaySurface.getId(), 0, 0, 10, 10);
+    platformViewsController.onEndFrame();
+    assertEquals(View.VISIBLE, overlayView.getVisibility());
+    assertEquals(flutterView.getChildCount() - 1, flutterView.indexOfChild(overlayView));
+  }
+
+  @Test
+  @Config(
+      shadows = {
+        ShadowFlutterSurfaceView.class,
+        ShadowFlutterJNI.class,
+        ShadowPlatformTaskQueue.class
+      })
+  public void onDisplayPlatformView_onlyUpdatesLayoutWhenFrameChanges() {
+    final PlatformViewsController platformViewsController = new PlatformViewsController();
+
+    final int platformViewId = 0;
+    final PlatformViewFactory viewFactory = mock(PlatformViewFactory.class);
+    final PlatformView platformView = mock(PlatformView.class);
+    final View androidView = new View(ApplicationProvider.getApplicationContext());
+    when(platformView.getView()).thenReturn(androidView);
+    when(viewFactory.create(any(), eq(platformViewId), any())).thenReturn(platformView);
+    platformViewsController.getRegistry().registerViewFactory("testType", viewFactory);
+
+    final FlutterJNI jni = new FlutterJNI();
+    jni.attachToNative();
+    attach(jni, platformViewsController);
+    jni.onFirstFrame();
+    createPlatformView(jni, platformViewsController, platformViewId, "testType", /* hybrid=*/ true);
+
+    platformViewsController.onBeginFrame();
+    platformViewsController.onDisplayPlatformView(
+        platformViewId, 5, 6, 10, 10, 10, 10, new FlutterMutatorsStack());
+    platformViewsController.onEndFrame();
+    final View parentView = (View) androidView.getParent();
+    final LayoutParams parentLayoutParams = (LayoutParams) parentView.getLayoutParams();
+    final LayoutParams viewLayoutParams = (LayoutParams) androidView.getLayoutParams();
+    assertEquals(5, parentLayoutParams.leftMargin);
+    assertEquals(6, parentLayoutParams.topMargin);
+
+    // The same frame keeps the same layout params, which doesn't request a layout.
+    platformViewsController.onBeginFrame();
+    platformViewsController.onDisplayPlatformView(
+        platformViewId, 5, 6, 10, 10, 10, 10, new FlutterMutatorsStack());
+    platformViewsController.onEndFrame();
+    assertSame(parentLayoutParams, parentView.getLayoutParams());
+    assertSame(viewLayoutParams, androidView.getLayoutParams());
+
+    // A moved and resized platform view gets new layout params.
+    platformViewsController.onBeginFrame();
+    platformViewsController.onDisplayPlatformView(
+        platformViewId, 7, 6, 20, 10, 20, 10, new FlutterMutatorsStack());
+    platformViewsController.onEndFrame();
+    assertEquals(7, ((LayoutParams) parentView.getLayoutParams()).leftMargin);
+    assertEquals(20, parentView.getLayoutParams().width);
+    assertEquals(20, androidView.getLayoutParams().width);
+  }
+
   @Config(
       shadows = {
         ShadowFlutterSurfaceView.class,
@@ -4,11 +4,13 @@
 
 package io.flutter.view;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -20,6 +22,7 @@ import android.os.Looper;
 import android.view.Display;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import io.flutter.embedding.engine.FlutterJNI;
+import io.flutter.embedding.engine.renderer.FlutterRenderer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -100,4 +103,100 @@ public class VsyncWaiterTest {
 
     verify(mockFlutterJNI, times(1)).setRefreshRateFPS(90.0f);
   }
+
+  @TargetApi(17)
+  @Test
+  public void itReportsTheRefreshRateOfTheDisplayViewsAreAttachedTo() {
+    FlutterJNI mockFlutterJNI = mock(FlutterJNI.class);
+    DisplayManager mockDisplayManager = mock(DisplayManager.class);
+    Display mockDefaultDisplay = mock(Display.class);
+    Display mockExternalDisplay = mock(Display.class);
+    when(mockDisplayManager.getDisplay(Display.DEFAULT_DISPLAY)).thenReturn(mockDefaultDisplay);
+    when(mockDisplayManager.getDisplay(2)).thenReturn(mockExternalDisplay);
+    when(mockDefaultDisplay.getRefreshRate()).thenReturn(90.0f);
+    when(mockExternalDisplay.getRefreshRate()).thenReturn(50.0f);
+
+    VsyncWaiter waiter = VsyncWaiter.getInstance(mockDisplayManager, mockFlutterJNI);
+    verify(mockFlutterJNI, times(1)).setRefreshRateFPS(90.0f);
+    waiter.init();
+    ArgumentCaptor<FlutterJNI.AsyncWaitForVsyncDelegate> delegateCaptor =
+        ArgumentCaptor.forClass(FlutterJNI.AsyncWaitForVsyncDelegate.class);
+    verify(mockFlutterJNI, times(1)).setAsyncWaitForVsyncDelegate(delegateCaptor.capture());
+
+    // A view moves to the external display.
+    VsyncWaiter.onViewAttachedToDisplay(2);
+    verify(mockFlutterJNI, times(1)).setRefreshRateFPS(50.0f);
+    delegateCaptor.getValue().asyncWaitForVsync(1);
+    shadowOf(Looper.getMainLooper()).idle();
+    verify(mockFlutterJNI, times(1)).onVsync(anyLong(), eq(1000000000l / 50l), eq(1l));
+
+    // A second view is shown on the default display.
+    VsyncWaiter.onViewAttachedToDisplay(Display.DEFAULT_DISPLAY);
+    verify(mockFlutterJNI, times(2)).setRefreshRateFPS(90.0f);
+
+    // Once it goes away, the view on the external display is current again.
+    VsyncWaiter.onViewDetachedFromDisplay(Display.DEFAULT_DISPLAY);
+    verify(mockFlutterJNI, times(2)).setRefreshRateFPS(50.0f);
+    delegateCaptor.getValue().asyncWaitForVsync(2);
+    shadowOf(Looper.getMainLooper()).idle();
+    verify(mockFlutterJNI, times(1)).onVsync(anyLong(), eq(1000000000l / 50l), eq(2l));
+
+    VsyncWaiter.onViewDetachedFromDisplay(2);
+    verify(mockFlutterJNI, times(3)).setRefreshRateFPS(90.0f);
+  }
+
+  @TargetApi(17)
+  @Test
+  public void itTracksRefreshRateChangesOfTheCurrentDisplayOnly() {
+    FlutterJNI mockFlutterJNI = mock(FlutterJNI.class);
+    DisplayManager mockDisplayManager = mock(DisplayManager.class);
+    Display mockDefaultDisplay = mock(Display.class);
+    Display mockExternalDisplay = mock(Display.class);
+    ArgumentCaptor<VsyncWaiter.DisplayListener> displayListenerCaptor =
+        ArgumentCaptor.forClass(VsyncWaiter.DisplayListener.class);
+    when(mockDisplayManager.getDisplay(Display.DEFAULT_DISPLAY)).thenReturn(mockDefaultDisplay);
+    when(mockDisplayManager.getDisplay(2)).thenReturn(mockExternalDisplay);
+    when(mockDefaultDisplay.getRefreshRate()).thenReturn(60.0f);
+    when(mockExternalDisplay.getRefreshRate()).thenReturn(50.0f);
+
+    VsyncWaiter.getInstance(mockDisplayManager, mockFlutterJNI);
+    verify(mockDisplayManager, times(1))
+        .registerDisplayListener(displayListenerCaptor.capture(), isNull());
+    VsyncWaiter.onViewAttachedToDisplay(2);
+    verify(mockFlutterJNI, times(1)).setRefreshRateFPS(50.0f);
+
+    // The default display is not the one Flutter is rendered on.
+    when(mockDefaultDisplay.getRefreshRate()).thenReturn(120.0f);
+    displayListenerCaptor.getValue().onDisplayChanged(Display.DEFAULT_DISPLAY);
+    verify(mockFlutterJNI, never()).setRefreshRateFPS(120.0f);
+
+    when(mockExternalDisplay.getRefreshRate()).thenReturn(30.0f);
+    displayListenerCaptor.getValue().onDisplayChanged(2);
+    verify(mockFlutterJNI, times(1)).setRefreshRateFPS(30.0f);
+
+    // Unplugging the external display falls back to the default display.
+    displayListenerCaptor.getValue().onDisplayRemoved(2);
+    verify(mockFlutterJNI, times(1)).setRefreshRateFPS(120.0f);
+    // The view detaching afterwards changes nothing.
+    VsyncWaiter.onViewDetachedFromDisplay(2);
+    verify(mockFlutterJNI, times(1)).setRefreshRateFPS(120.0f);
+  }
+
+  @Test
+  public void itRecordsFrameTimings() {
+    FlutterJNI mockFlutterJNI = mock(FlutterJNI.class);
+    VsyncWaiter waiter = VsyncWaiter.getInstance(10.0f, mockFlutterJNI);
+    waiter.init();
+    ArgumentCaptor<FlutterJNI.AsyncWaitForVsyncDelegate> delegateCaptor =
+        ArgumentCaptor.forClass(FlutterJNI.AsyncWaitForVsyncDelegate.class);
+    verify(mockFlutterJNI, times(1)).setAsyncWaitForVsyncDelegate(delegateCaptor.capture());
+    final FlutterRenderer renderer = new FlutterRenderer(mockFlutterJNI);
+    final long frameCount = renderer.getFrameTimingStats().getFrameCount();
+
+    delegateCaptor.getValue().asyncWaitForVsync(1);
+    delegateCaptor.getValue().asyncWaitForVsync(2);
+    shadowOf(Looper.getMainLooper()).idle();
+
+    assertEquals(frameCount + 2, renderer.getFrameTimingStats().getFrameCount());
+  }
 }